@@ -0,0 +1,71 @@
+package com.storyai.storytelling_backend.DTO;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.storyai.storytelling_backend.entity.AIGenerationJob;
+
+/** A generation to run asynchronously: its type and the request for that type */
+public class CreateGenerationJobRequest {
+  @NotNull private AIGenerationJob.JobType type;
+
+  @Valid private GenerateStoryRequest story; // for STORY
+  @Valid private GenerateChoicesRequest choices; // for CHOICES
+  @Valid private GenerateTurnRequest turn; // for TURN
+
+  public CreateGenerationJobRequest() {}
+
+  /** The request matching the type */
+  @JsonIgnore
+  public Object getPayload() {
+    if (type == null) {
+      return null;
+    }
+    return switch (type) {
+      case STORY -> story;
+      case CHOICES -> choices;
+      case TURN -> turn;
+    };
+  }
+
+  @JsonIgnore
+  @AssertTrue(message = "The request for the job type is required")
+  public boolean isPayloadPresent() {
+    return type == null || getPayload() != null;
+  }
+
+  // Getters and Setters
+  public AIGenerationJob.JobType getType() {
+    return type;
+  }
+
+  public void setType(AIGenerationJob.JobType type) {
+    this.type = type;
+  }
+
+  public GenerateStoryRequest getStory() {
+    return story;
+  }
+
+  public void setStory(GenerateStoryRequest story) {
+    this.story = story;
+  }
+
+  public GenerateChoicesRequest getChoices() {
+    return choices;
+  }
+
+  public void setChoices(GenerateChoicesRequest choices) {
+    this.choices = choices;
+  }
+
+  public GenerateTurnRequest getTurn() {
+    return turn;
+  }
+
+  public void setTurn(GenerateTurnRequest turn) {
+    this.turn = turn;
+  }
+}
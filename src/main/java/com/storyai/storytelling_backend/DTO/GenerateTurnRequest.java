@@ -0,0 +1,140 @@
+package com.storyai.storytelling_backend.DTO;
+
+import java.util.Map;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/** A chapter and the player's choices after it, generated in one provider call */
+public class GenerateTurnRequest {
+  @NotNull private Long storyId;
+
+  @NotNull private Long sessionId;
+
+  // Chapter the choices belong to; with it, generate-choice for that chapter hits the cache
+  private Long chapterId;
+
+  @NotBlank private String genre;
+
+  private String theme;
+  private String tone;
+  private Integer targetLength; // word count
+  private Map<String, Object> context; // Story state, previous choices, etc.
+
+  // Default: 3; bounded so the choices fit the tokens a turn adds for them
+  @Min(1)
+  @Max(6)
+  private Integer numberOfChoices;
+
+  private String difficultyLevel;
+
+  public GenerateTurnRequest() {}
+
+  /** The chapter part, as a generate-story request */
+  public GenerateStoryRequest toStoryRequest() {
+    GenerateStoryRequest request = new GenerateStoryRequest();
+    request.setStoryId(storyId);
+    request.setSessionId(sessionId);
+    request.setGenre(genre);
+    request.setTheme(theme);
+    request.setTone(tone);
+    request.setTargetLength(targetLength);
+    request.setContext(context);
+    return request;
+  }
+
+  /** The choices part, as the generate-choice request a client would send for the chapter */
+  public GenerateChoicesRequest toChoicesRequest(String chapter) {
+    GenerateChoicesRequest request = new GenerateChoicesRequest();
+    request.setChapterId(chapterId);
+    request.setSessionId(sessionId);
+    request.setCurrentSituation(chapter);
+    request.setNumberOfChoices(numberOfChoices);
+    request.setDifficultyLevel(difficultyLevel);
+    request.setContext(context);
+    return request;
+  }
+
+  // Getters and Setters
+  public Long getStoryId() {
+    return storyId;
+  }
+
+  public void setStoryId(Long storyId) {
+    this.storyId = storyId;
+  }
+
+  public Long getSessionId() {
+    return sessionId;
+  }
+
+  public void setSessionId(Long sessionId) {
+    this.sessionId = sessionId;
+  }
+
+  public Long getChapterId() {
+    return chapterId;
+  }
+
+  public void setChapterId(Long chapterId) {
+    this.chapterId = chapterId;
+  }
+
+  public String getGenre() {
+    return genre;
+  }
+
+  public void setGenre(String genre) {
+    this.genre = genre;
+  }
+
+  public String getTheme() {
+    return theme;
+  }
+
+  public void setTheme(String theme) {
+    this.theme = theme;
+  }
+
+  public String getTone() {
+    return tone;
+  }
+
+  public void setTone(String tone) {
+    this.tone = tone;
+  }
+
+  public Integer getTargetLength() {
+    return targetLength;
+  }
+
+  public void setTargetLength(Integer targetLength) {
+    this.targetLength = targetLength;
+  }
+
+  public Map<String, Object> getContext() {
+    return context;
+  }
+
+  public void setContext(Map<String, Object> context) {
+    this.context = context;
+  }
+
+  public Integer getNumberOfChoices() {
+    return numberOfChoices;
+  }
+
+  public void setNumberOfChoices(Integer numberOfChoices) {
+    this.numberOfChoices = numberOfChoices;
+  }
+
+  public String getDifficultyLevel() {
+    return difficultyLevel;
+  }
+
+  public void setDifficultyLevel(String difficultyLevel) {
+    this.difficultyLevel = difficultyLevel;
+  }
+}
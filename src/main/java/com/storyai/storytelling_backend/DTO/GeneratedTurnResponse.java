@@ -0,0 +1,30 @@
+package com.storyai.storytelling_backend.DTO;
+
+public class GeneratedTurnResponse {
+  private GeneratedStoryResponse story;
+  private GeneratedChoicesResponse choices;
+
+  public GeneratedTurnResponse() {}
+
+  public GeneratedTurnResponse(GeneratedStoryResponse story, GeneratedChoicesResponse choices) {
+    this.story = story;
+    this.choices = choices;
+  }
+
+  // Getters and Setters
+  public GeneratedStoryResponse getStory() {
+    return story;
+  }
+
+  public void setStory(GeneratedStoryResponse story) {
+    this.story = story;
+  }
+
+  public GeneratedChoicesResponse getChoices() {
+    return choices;
+  }
+
+  public void setChoices(GeneratedChoicesResponse choices) {
+    this.choices = choices;
+  }
+}
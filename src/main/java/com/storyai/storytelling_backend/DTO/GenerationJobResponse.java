@@ -0,0 +1,99 @@
+package com.storyai.storytelling_backend.DTO;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.storyai.storytelling_backend.entity.AIGenerationJob;
+
+public class GenerationJobResponse {
+  private UUID id;
+  private AIGenerationJob.JobType type;
+  private AIGenerationJob.Status status;
+  private Integer attempts;
+  // The generated response for the type, once succeeded
+  @JsonRawValue private String result;
+  private String error;
+  private LocalDateTime createdAt;
+  private LocalDateTime finishedAt;
+
+  public GenerationJobResponse() {}
+
+  public static GenerationJobResponse from(AIGenerationJob job) {
+    GenerationJobResponse response = new GenerationJobResponse();
+    response.setId(job.getId());
+    response.setType(job.getJobType());
+    response.setStatus(job.getStatus());
+    response.setAttempts(job.getAttempts());
+    response.setResult(job.getResult());
+    response.setError(job.getError());
+    response.setCreatedAt(job.getCreatedAt());
+    response.setFinishedAt(job.getFinishedAt());
+    return response;
+  }
+
+  // Getters and Setters
+  public UUID getId() {
+    return id;
+  }
+
+  public void setId(UUID id) {
+    this.id = id;
+  }
+
+  public AIGenerationJob.JobType getType() {
+    return type;
+  }
+
+  public void setType(AIGenerationJob.JobType type) {
+    this.type = type;
+  }
+
+  public AIGenerationJob.Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(AIGenerationJob.Status status) {
+    this.status = status;
+  }
+
+  public Integer getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(Integer attempts) {
+    this.attempts = attempts;
+  }
+
+  public String getResult() {
+    return result;
+  }
+
+  public void setResult(String result) {
+    this.result = result;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public LocalDateTime getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(LocalDateTime finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+}
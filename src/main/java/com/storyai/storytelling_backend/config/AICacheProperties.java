@@ -0,0 +1,431 @@
+package com.storyai.storytelling_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Tuning for the AI content cache, bound from the ai.cache.* properties */
+@Configuration
+@ConfigurationProperties(prefix = "ai.cache")
+public class AICacheProperties {
+
+  private boolean enabled = true;
+  private Local local = new Local();
+  private Key key = new Key();
+  private Compression compression = new Compression();
+  private Eviction eviction = new Eviction();
+  private Cleanup cleanup = new Cleanup();
+  private Stale stale = new Stale();
+  private Warmup warmup = new Warmup();
+  private Speculation speculation = new Speculation();
+
+  // Getters and Setters
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Local getLocal() {
+    return local;
+  }
+
+  public void setLocal(Local local) {
+    this.local = local;
+  }
+
+  public Key getKey() {
+    return key;
+  }
+
+  public void setKey(Key key) {
+    this.key = key;
+  }
+
+  public Compression getCompression() {
+    return compression;
+  }
+
+  public void setCompression(Compression compression) {
+    this.compression = compression;
+  }
+
+  public Eviction getEviction() {
+    return eviction;
+  }
+
+  public void setEviction(Eviction eviction) {
+    this.eviction = eviction;
+  }
+
+  public Cleanup getCleanup() {
+    return cleanup;
+  }
+
+  public void setCleanup(Cleanup cleanup) {
+    this.cleanup = cleanup;
+  }
+
+  public Stale getStale() {
+    return stale;
+  }
+
+  public void setStale(Stale stale) {
+    this.stale = stale;
+  }
+
+  public Warmup getWarmup() {
+    return warmup;
+  }
+
+  public void setWarmup(Warmup warmup) {
+    this.warmup = warmup;
+  }
+
+  public Speculation getSpeculation() {
+    return speculation;
+  }
+
+  public void setSpeculation(Speculation speculation) {
+    this.speculation = speculation;
+  }
+
+  /** How widely a cached generation may be reused */
+  public enum KeyScope {
+    /** Any session of any story with an identical prompt */
+    GLOBAL,
+    /** Sessions of the same story (or the same chapter, for choices) */
+    STORY,
+    /** Only the session that generated it */
+    SESSION
+  }
+
+  /** Cache key derivation */
+  public static class Key {
+    private KeyScope scope = KeyScope.STORY;
+
+    // Getters and Setters
+    public KeyScope getScope() {
+      return scope;
+    }
+
+    public void setScope(KeyScope scope) {
+      this.scope = scope;
+    }
+  }
+
+  /** In-process tier that sits in front of the ai_cache table */
+  public static class Local {
+    private boolean enabled = true;
+    private long maximumWeightBytes = 64L * 1024 * 1024; // 64 MB
+    private long expireAfterWriteMinutes = 10;
+    private long negativeTtlSeconds = 30;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public long getMaximumWeightBytes() {
+      return maximumWeightBytes;
+    }
+
+    public void setMaximumWeightBytes(long maximumWeightBytes) {
+      this.maximumWeightBytes = maximumWeightBytes;
+    }
+
+    public long getExpireAfterWriteMinutes() {
+      return expireAfterWriteMinutes;
+    }
+
+    public void setExpireAfterWriteMinutes(long expireAfterWriteMinutes) {
+      this.expireAfterWriteMinutes = expireAfterWriteMinutes;
+    }
+
+    public long getNegativeTtlSeconds() {
+      return negativeTtlSeconds;
+    }
+
+    public void setNegativeTtlSeconds(long negativeTtlSeconds) {
+      this.negativeTtlSeconds = negativeTtlSeconds;
+    }
+  }
+
+  /** Compressed storage of ai_cache content */
+  public static class Compression {
+    private boolean enabled = false;
+    private int minSizeBytes = 512;
+    private int level = 6;
+    private int dictionarySampleSize = 200;
+    private int migrationBatchSize = 100;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getMinSizeBytes() {
+      return minSizeBytes;
+    }
+
+    public void setMinSizeBytes(int minSizeBytes) {
+      this.minSizeBytes = minSizeBytes;
+    }
+
+    public int getLevel() {
+      return level;
+    }
+
+    public void setLevel(int level) {
+      this.level = level;
+    }
+
+    public int getDictionarySampleSize() {
+      return dictionarySampleSize;
+    }
+
+    public void setDictionarySampleSize(int dictionarySampleSize) {
+      this.dictionarySampleSize = dictionarySampleSize;
+    }
+
+    public int getMigrationBatchSize() {
+      return migrationBatchSize;
+    }
+
+    public void setMigrationBatchSize(int migrationBatchSize) {
+      this.migrationBatchSize = migrationBatchSize;
+    }
+  }
+
+  /** Size-bounded eviction of ai_cache rows */
+  public static class Eviction {
+    private boolean enabled = true;
+    private long maxBytes = 512L * 1024 * 1024; // 512 MB
+    private int batchSize = 500;
+    private int maxBatchesPerRun = 10;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public long getMaxBytes() {
+      return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public int getMaxBatchesPerRun() {
+      return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+      this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+  }
+
+  /** Expiry partition maintenance and sweeping of the default partition */
+  public static class Cleanup {
+    private int partitionDaysAhead = 14;
+    private int maxBatchSize = 1000;
+    private int minBatchSize = 50;
+    private int maxBatchesPerRun = 50;
+    private long batchPauseMs = 50;
+    private long targetBatchMs = 250;
+
+    // Getters and Setters
+    public int getPartitionDaysAhead() {
+      return partitionDaysAhead;
+    }
+
+    public void setPartitionDaysAhead(int partitionDaysAhead) {
+      this.partitionDaysAhead = partitionDaysAhead;
+    }
+
+    public int getMaxBatchSize() {
+      return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+      this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMinBatchSize() {
+      return minBatchSize;
+    }
+
+    public void setMinBatchSize(int minBatchSize) {
+      this.minBatchSize = minBatchSize;
+    }
+
+    public int getMaxBatchesPerRun() {
+      return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+      this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    public long getBatchPauseMs() {
+      return batchPauseMs;
+    }
+
+    public void setBatchPauseMs(long batchPauseMs) {
+      this.batchPauseMs = batchPauseMs;
+    }
+
+    public long getTargetBatchMs() {
+      return targetBatchMs;
+    }
+
+    public void setTargetBatchMs(long targetBatchMs) {
+      this.targetBatchMs = targetBatchMs;
+    }
+  }
+
+  /** Serving expired entries while they are regenerated in the background */
+  public static class Stale {
+    private long graceMinutes = 60; // 0 disables stale serving
+    private int refreshConcurrency = 2;
+    private int refreshQueueSize = 50;
+
+    // Getters and Setters
+    public long getGraceMinutes() {
+      return graceMinutes;
+    }
+
+    public void setGraceMinutes(long graceMinutes) {
+      this.graceMinutes = graceMinutes;
+    }
+
+    public int getRefreshConcurrency() {
+      return refreshConcurrency;
+    }
+
+    public void setRefreshConcurrency(int refreshConcurrency) {
+      this.refreshConcurrency = refreshConcurrency;
+    }
+
+    public int getRefreshQueueSize() {
+      return refreshQueueSize;
+    }
+
+    public void setRefreshQueueSize(int refreshQueueSize) {
+      this.refreshQueueSize = refreshQueueSize;
+    }
+  }
+
+  /** Loading the hottest entries into the local tier at startup */
+  public static class Warmup {
+    private boolean enabled = true;
+    private int maxEntries = 2000;
+    private long maxBytes = 32L * 1024 * 1024; // 32 MB
+    private long maxDurationSeconds = 30;
+    private int fetchSize = 100;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+      return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+    }
+
+    public long getMaxBytes() {
+      return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    public long getMaxDurationSeconds() {
+      return maxDurationSeconds;
+    }
+
+    public void setMaxDurationSeconds(long maxDurationSeconds) {
+      this.maxDurationSeconds = maxDurationSeconds;
+    }
+
+    public int getFetchSize() {
+      return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+      this.fetchSize = fetchSize;
+    }
+  }
+
+  /** Generating the continuation of each choice while the player reads the chapter */
+  public static class Speculation {
+    private boolean enabled = true;
+    private int concurrency = 2; // Generations running at once, across all sessions
+    private int queueSize = 20;
+    private int maxBranchesPerSession = 3;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getConcurrency() {
+      return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+      this.concurrency = concurrency;
+    }
+
+    public int getQueueSize() {
+      return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+      this.queueSize = queueSize;
+    }
+
+    public int getMaxBranchesPerSession() {
+      return maxBranchesPerSession;
+    }
+
+    public void setMaxBranchesPerSession(int maxBranchesPerSession) {
+      this.maxBranchesPerSession = maxBranchesPerSession;
+    }
+  }
+}
@@ -1,26 +1,90 @@
 package com.storyai.storytelling_backend.config;
 
-import java.time.Duration;
-
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
 /** AI Configuration for AI Services and REST clients */
 @Configuration
 public class AIConfiguration {
 
-  /** RestTemplate configured for AI API calls with appropriate timeouts */
+  static final HttpHost OPENAI_HOST = new HttpHost("https", "api.openai.com", 443);
+  static final HttpHost CLAUDE_HOST = new HttpHost("https", "api.anthropic.com", 443);
+
+  /**
+   * Keep-alive connection pool shared by all provider calls, with a limit per provider host. TLS
+   * sessions are resumed through the JSSE session cache when a new connection is needed. Pool
+   * usage is published as httpcomponents.httpclient.pool.* tagged httpclient=ai-providers.
+   */
+  @Bean(destroyMethod = "close")
+  public PoolingHttpClientConnectionManager aiConnectionManager(
+      AIHttpClientProperties properties, MeterRegistry meterRegistry) {
+    PoolingHttpClientConnectionManager connectionManager =
+        PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(properties.getMaxTotal())
+            .setMaxConnPerRoute(properties.getMaxPerRoute())
+            // Reuse the most recently used connection so idle ones age out
+            .setConnPoolPolicy(PoolReusePolicy.LIFO)
+            .setDefaultConnectionConfig(
+                ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofSeconds(properties.getConnectTimeoutSeconds()))
+                    .setSocketTimeout(Timeout.ofSeconds(properties.getReadTimeoutSeconds()))
+                    .setTimeToLive(TimeValue.ofMinutes(properties.getConnectionTtlMinutes()))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                    .build())
+            .build();
+    connectionManager.setMaxPerRoute(
+        new HttpRoute(OPENAI_HOST), properties.getOpenaiMaxConnections());
+    connectionManager.setMaxPerRoute(
+        new HttpRoute(CLAUDE_HOST), properties.getClaudeMaxConnections());
+
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "ai-providers")
+        .bindTo(meterRegistry);
+    return connectionManager;
+  }
+
+  /** HTTP client over the pool; idle and expired connections are closed in the background */
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient aiHttpClient(
+      PoolingHttpClientConnectionManager aiConnectionManager, AIHttpClientProperties properties) {
+    return HttpClients.custom()
+        .setConnectionManager(aiConnectionManager)
+        .setDefaultRequestConfig(
+            RequestConfig.custom()
+                .setConnectionRequestTimeout(
+                    Timeout.ofSeconds(properties.getConnectionRequestTimeoutSeconds()))
+                .setResponseTimeout(Timeout.ofSeconds(properties.getReadTimeoutSeconds()))
+                .build())
+        .evictIdleConnections(TimeValue.ofSeconds(properties.getIdleEvictionSeconds()))
+        .evictExpiredConnections()
+        .build();
+  }
+
+  /** RestTemplate configured for AI API calls, on the pooled client */
   @Bean
-  public RestTemplate aiRestTemplate(RestTemplateBuilder builder) {
-    SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-    factory.setConnectTimeout(Duration.ofSeconds(10));
-    factory.setReadTimeout(Duration.ofSeconds(60)); // AI CALLS CAN TAKE A LONG TIME
-    return builder.requestFactory(() -> factory).build();
+  public RestTemplate aiRestTemplate(
+      RestTemplateBuilder builder, CloseableHttpClient aiHttpClient) {
+    return builder
+        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(aiHttpClient))
+        .build();
   }
 
   /** ObjectMapper for JSON processing */
@@ -0,0 +1,65 @@
+package com.storyai.storytelling_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Compaction of the story context sent in prompts, bound from ai.context.* */
+@Configuration
+@ConfigurationProperties(prefix = "ai.context")
+public class AIContextProperties {
+
+  private boolean enabled = true;
+
+  /** Latest items of each list in the context that are sent as they are */
+  private int recentItems = 5;
+
+  /** Older items are folded into the session's summary as a line of at most this many chars */
+  private int summaryItemChars = 160;
+
+  /** Oldest summary lines are dropped, not condensed, beyond this */
+  private int maxSummaryChars = 2000;
+
+  /** Longer single values are cut to this */
+  private int maxValueChars = 1000;
+
+  // Getters and Setters
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getRecentItems() {
+    return recentItems;
+  }
+
+  public void setRecentItems(int recentItems) {
+    this.recentItems = recentItems;
+  }
+
+  public int getSummaryItemChars() {
+    return summaryItemChars;
+  }
+
+  public void setSummaryItemChars(int summaryItemChars) {
+    this.summaryItemChars = summaryItemChars;
+  }
+
+  public int getMaxSummaryChars() {
+    return maxSummaryChars;
+  }
+
+  public void setMaxSummaryChars(int maxSummaryChars) {
+    this.maxSummaryChars = maxSummaryChars;
+  }
+
+  public int getMaxValueChars() {
+    return maxValueChars;
+  }
+
+  public void setMaxValueChars(int maxValueChars) {
+    this.maxValueChars = maxValueChars;
+  }
+}
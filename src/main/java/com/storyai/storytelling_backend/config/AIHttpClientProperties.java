@@ -0,0 +1,106 @@
+package com.storyai.storytelling_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Connection pool and timeouts of the HTTP client used for AI providers, bound from ai.http.* */
+@Configuration
+@ConfigurationProperties(prefix = "ai.http")
+public class AIHttpClientProperties {
+
+  /** Connections across all providers */
+  private int maxTotal = 100;
+
+  /** Connections to any one host without its own limit below */
+  private int maxPerRoute = 20;
+
+  private int openaiMaxConnections = 50;
+  private int claudeMaxConnections = 50;
+
+  private int connectTimeoutSeconds = 10;
+
+  /** AI calls can take a long time */
+  private int readTimeoutSeconds = 60;
+
+  /** How long a call waits for a free pooled connection */
+  private int connectionRequestTimeoutSeconds = 10;
+
+  /** Idle connections are closed after this long */
+  private int idleEvictionSeconds = 30;
+
+  /** Connections are retired after this long, so DNS changes are picked up */
+  private int connectionTtlMinutes = 5;
+
+  // Getters and Setters
+  public int getMaxTotal() {
+    return maxTotal;
+  }
+
+  public void setMaxTotal(int maxTotal) {
+    this.maxTotal = maxTotal;
+  }
+
+  public int getMaxPerRoute() {
+    return maxPerRoute;
+  }
+
+  public void setMaxPerRoute(int maxPerRoute) {
+    this.maxPerRoute = maxPerRoute;
+  }
+
+  public int getOpenaiMaxConnections() {
+    return openaiMaxConnections;
+  }
+
+  public void setOpenaiMaxConnections(int openaiMaxConnections) {
+    this.openaiMaxConnections = openaiMaxConnections;
+  }
+
+  public int getClaudeMaxConnections() {
+    return claudeMaxConnections;
+  }
+
+  public void setClaudeMaxConnections(int claudeMaxConnections) {
+    this.claudeMaxConnections = claudeMaxConnections;
+  }
+
+  public int getConnectTimeoutSeconds() {
+    return connectTimeoutSeconds;
+  }
+
+  public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
+    this.connectTimeoutSeconds = connectTimeoutSeconds;
+  }
+
+  public int getReadTimeoutSeconds() {
+    return readTimeoutSeconds;
+  }
+
+  public void setReadTimeoutSeconds(int readTimeoutSeconds) {
+    this.readTimeoutSeconds = readTimeoutSeconds;
+  }
+
+  public int getConnectionRequestTimeoutSeconds() {
+    return connectionRequestTimeoutSeconds;
+  }
+
+  public void setConnectionRequestTimeoutSeconds(int connectionRequestTimeoutSeconds) {
+    this.connectionRequestTimeoutSeconds = connectionRequestTimeoutSeconds;
+  }
+
+  public int getIdleEvictionSeconds() {
+    return idleEvictionSeconds;
+  }
+
+  public void setIdleEvictionSeconds(int idleEvictionSeconds) {
+    this.idleEvictionSeconds = idleEvictionSeconds;
+  }
+
+  public int getConnectionTtlMinutes() {
+    return connectionTtlMinutes;
+  }
+
+  public void setConnectionTtlMinutes(int connectionTtlMinutes) {
+    this.connectionTtlMinutes = connectionTtlMinutes;
+  }
+}
@@ -0,0 +1,121 @@
+package com.storyai.storytelling_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Asynchronous generation jobs and their workers, bound from ai.generation.jobs.* */
+@Configuration
+@ConfigurationProperties(prefix = "ai.generation.jobs")
+public class AIJobProperties {
+
+  /** Whether this node runs workers; jobs can be submitted either way */
+  private boolean enabled = true;
+
+  /** Worker threads on this node */
+  private int concurrency = 4;
+
+  /** How often idle workers look for jobs submitted on other nodes */
+  private long pollIntervalMs = 500;
+
+  /** A claimed job not finished within this is claimed again, e.g. after a crash */
+  private long leaseSeconds = 300;
+
+  /** How often the leases of jobs still running are extended; well below lease-seconds */
+  private long renewIntervalMs = 60000;
+
+  /** Claims of a job before it is failed */
+  private int maxAttempts = 3;
+
+  /** Finished jobs are deleted after this */
+  private long retentionHours = 24;
+
+  /** How long an events stream waits for its job */
+  private long eventsTimeoutSeconds = 300;
+
+  /** Queued or running jobs one user may have; further submissions get a 429 */
+  private int maxActivePerUser = 10;
+
+  /** Retry-After of a submission rejected for max-active-per-user */
+  private int rejectedRetryAfterSeconds = 30;
+
+  // Getters and Setters
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public void setConcurrency(int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  public long getPollIntervalMs() {
+    return pollIntervalMs;
+  }
+
+  public void setPollIntervalMs(long pollIntervalMs) {
+    this.pollIntervalMs = pollIntervalMs;
+  }
+
+  public long getLeaseSeconds() {
+    return leaseSeconds;
+  }
+
+  public void setLeaseSeconds(long leaseSeconds) {
+    this.leaseSeconds = leaseSeconds;
+  }
+
+  public long getRenewIntervalMs() {
+    return renewIntervalMs;
+  }
+
+  public void setRenewIntervalMs(long renewIntervalMs) {
+    this.renewIntervalMs = renewIntervalMs;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  public long getRetentionHours() {
+    return retentionHours;
+  }
+
+  public void setRetentionHours(long retentionHours) {
+    this.retentionHours = retentionHours;
+  }
+
+  public long getEventsTimeoutSeconds() {
+    return eventsTimeoutSeconds;
+  }
+
+  public void setEventsTimeoutSeconds(long eventsTimeoutSeconds) {
+    this.eventsTimeoutSeconds = eventsTimeoutSeconds;
+  }
+
+  public int getMaxActivePerUser() {
+    return maxActivePerUser;
+  }
+
+  public void setMaxActivePerUser(int maxActivePerUser) {
+    this.maxActivePerUser = maxActivePerUser;
+  }
+
+  public int getRejectedRetryAfterSeconds() {
+    return rejectedRetryAfterSeconds;
+  }
+
+  public void setRejectedRetryAfterSeconds(int rejectedRetryAfterSeconds) {
+    this.rejectedRetryAfterSeconds = rejectedRetryAfterSeconds;
+  }
+}
@@ -0,0 +1,158 @@
+package com.storyai.storytelling_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** The offline mock provider selected with ai.provider=mock, bound from ai.mock.* */
+@Configuration
+@ConfigurationProperties(prefix = "ai.mock")
+public class AIMockProperties {
+
+  /** Same seed and prompt, same text */
+  private long seed = 42;
+
+  private String model = "mock-1";
+  private int maxTokens = 1000;
+  private Latency latency = new Latency();
+  private Errors errors = new Errors();
+
+  // Getters and Setters
+  public long getSeed() {
+    return seed;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public String getModel() {
+    return model;
+  }
+
+  public void setModel(String model) {
+    this.model = model;
+  }
+
+  public int getMaxTokens() {
+    return maxTokens;
+  }
+
+  public void setMaxTokens(int maxTokens) {
+    this.maxTokens = maxTokens;
+  }
+
+  public Latency getLatency() {
+    return latency;
+  }
+
+  public void setLatency(Latency latency) {
+    this.latency = latency;
+  }
+
+  public Errors getErrors() {
+    return errors;
+  }
+
+  public void setErrors(Errors errors) {
+    this.errors = errors;
+  }
+
+  /** How the time to the first token is drawn */
+  public enum LatencyProfile {
+    FIXED,
+    LOGNORMAL
+  }
+
+  /** Time to first token, then output at a steady token rate */
+  public static class Latency {
+    private LatencyProfile profile = LatencyProfile.FIXED;
+    private long fixedMs = 200;
+    private long medianMs = 400; // Lognormal
+    private double sigma = 0.5; // Lognormal spread; p95 is about median * e^(1.645 sigma)
+    private double tokensPerSecond = 50; // 0 returns the whole text at once
+
+    // Getters and Setters
+    public LatencyProfile getProfile() {
+      return profile;
+    }
+
+    public void setProfile(LatencyProfile profile) {
+      this.profile = profile;
+    }
+
+    public long getFixedMs() {
+      return fixedMs;
+    }
+
+    public void setFixedMs(long fixedMs) {
+      this.fixedMs = fixedMs;
+    }
+
+    public long getMedianMs() {
+      return medianMs;
+    }
+
+    public void setMedianMs(long medianMs) {
+      this.medianMs = medianMs;
+    }
+
+    public double getSigma() {
+      return sigma;
+    }
+
+    public void setSigma(double sigma) {
+      this.sigma = sigma;
+    }
+
+    public double getTokensPerSecond() {
+      return tokensPerSecond;
+    }
+
+    public void setTokensPerSecond(double tokensPerSecond) {
+      this.tokensPerSecond = tokensPerSecond;
+    }
+  }
+
+  /** Injected failures */
+  public static class Errors {
+    private double serverErrorRate = 0.0; // Fraction of calls failing with a 503
+
+    // Every burst-every-seconds, the last burst-seconds of the period answer 429 (0 disables)
+    private long burstEverySeconds = 0;
+    private long burstSeconds = 5;
+    private long retryAfterSeconds = 2;
+
+    // Getters and Setters
+    public double getServerErrorRate() {
+      return serverErrorRate;
+    }
+
+    public void setServerErrorRate(double serverErrorRate) {
+      this.serverErrorRate = serverErrorRate;
+    }
+
+    public long getBurstEverySeconds() {
+      return burstEverySeconds;
+    }
+
+    public void setBurstEverySeconds(long burstEverySeconds) {
+      this.burstEverySeconds = burstEverySeconds;
+    }
+
+    public long getBurstSeconds() {
+      return burstSeconds;
+    }
+
+    public void setBurstSeconds(long burstSeconds) {
+      this.burstSeconds = burstSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+      return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(long retryAfterSeconds) {
+      this.retryAfterSeconds = retryAfterSeconds;
+    }
+  }
+}
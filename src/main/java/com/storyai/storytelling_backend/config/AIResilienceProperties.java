@@ -0,0 +1,326 @@
+package com.storyai.storytelling_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Protection of the AI providers and of our own threads, bound from ai.resilience.* */
+@Configuration
+@ConfigurationProperties(prefix = "ai.resilience")
+public class AIResilienceProperties {
+
+  private Concurrency concurrency = new Concurrency();
+  private Routing routing = new Routing();
+  private RateLimit rateLimit = new RateLimit();
+  private Retry retry = new Retry();
+
+  // Getters and Setters
+  public Concurrency getConcurrency() {
+    return concurrency;
+  }
+
+  public void setConcurrency(Concurrency concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  public Routing getRouting() {
+    return routing;
+  }
+
+  public void setRouting(Routing routing) {
+    this.routing = routing;
+  }
+
+  public RateLimit getRateLimit() {
+    return rateLimit;
+  }
+
+  public void setRateLimit(RateLimit rateLimit) {
+    this.rateLimit = rateLimit;
+  }
+
+  public Retry getRetry() {
+    return retry;
+  }
+
+  public void setRetry(Retry retry) {
+    this.retry = retry;
+  }
+
+  /** Adaptive (AIMD) limit on concurrent calls per provider */
+  public static class Concurrency {
+    private boolean enabled = true;
+    private int initialLimit = 8;
+    private int minLimit = 1;
+    private int maxLimit = 64;
+    private int maxQueue = 32; // callers waiting for a slot; 0 fails fast when saturated
+    private long maxWaitMs = 2000;
+    private double backoffRatio = 0.9; // limit is multiplied by this on overload
+    private double latencyTolerance = 3.0; // slower than this times the usual latency is overload
+
+    // Getters and Setters
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getInitialLimit() {
+      return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+      this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+      return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+      this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+      return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+      this.maxLimit = maxLimit;
+    }
+
+    public int getMaxQueue() {
+      return maxQueue;
+    }
+
+    public void setMaxQueue(int maxQueue) {
+      this.maxQueue = maxQueue;
+    }
+
+    public long getMaxWaitMs() {
+      return maxWaitMs;
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) {
+      this.maxWaitMs = maxWaitMs;
+    }
+
+    public double getBackoffRatio() {
+      return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+      this.backoffRatio = backoffRatio;
+    }
+
+    public double getLatencyTolerance() {
+      return latencyTolerance;
+    }
+
+    public void setLatencyTolerance(double latencyTolerance) {
+      this.latencyTolerance = latencyTolerance;
+    }
+  }
+
+  /** Provider selection, circuit breaking and hedging when ai.provider=router */
+  public static class Routing {
+    private int windowSize = 100; // recent calls per provider used for p95 latency and error rate
+    private int minimumCalls = 10; // calls in the window before the error rate can trip the breaker
+    private double failureRateThreshold = 0.5;
+    private int consecutiveFailures = 5; // trips the breaker regardless of the window
+    private long openSeconds = 30; // how long a tripped provider is skipped before a probe
+    private double errorPenalty = 4.0; // score = p95 * (1 + errorPenalty * errorRate)
+    private long hedgeAfterMs = 0; // 0 disables hedging to the second provider
+    private int hedgeConcurrency = 16;
+
+    // Getters and Setters
+    public int getWindowSize() {
+      return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+      this.windowSize = windowSize;
+    }
+
+    public int getMinimumCalls() {
+      return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+      this.minimumCalls = minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+      return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+      this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public int getConsecutiveFailures() {
+      return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+      this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public long getOpenSeconds() {
+      return openSeconds;
+    }
+
+    public void setOpenSeconds(long openSeconds) {
+      this.openSeconds = openSeconds;
+    }
+
+    public double getErrorPenalty() {
+      return errorPenalty;
+    }
+
+    public void setErrorPenalty(double errorPenalty) {
+      this.errorPenalty = errorPenalty;
+    }
+
+    public long getHedgeAfterMs() {
+      return hedgeAfterMs;
+    }
+
+    public void setHedgeAfterMs(long hedgeAfterMs) {
+      this.hedgeAfterMs = hedgeAfterMs;
+    }
+
+    public int getHedgeConcurrency() {
+      return hedgeConcurrency;
+    }
+
+    public void setHedgeConcurrency(int hedgeConcurrency) {
+      this.hedgeConcurrency = hedgeConcurrency;
+    }
+  }
+
+  /**
+   * Client-side requests- and tokens-per-minute buckets per provider and model. The quotas here
+   * are starting points; the rate-limit headers of each response replace them.
+   */
+  public static class RateLimit {
+    private boolean enabled = true;
+    private int requestsPerMinute = 500;
+    private int tokensPerMinute = 100_000;
+    private long maxWaitMs = 5000; // longer waits are shed with a 503 instead of queued
+
+    // Getters and Setters
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getRequestsPerMinute() {
+      return requestsPerMinute;
+    }
+
+    public void setRequestsPerMinute(int requestsPerMinute) {
+      this.requestsPerMinute = requestsPerMinute;
+    }
+
+    public int getTokensPerMinute() {
+      return tokensPerMinute;
+    }
+
+    public void setTokensPerMinute(int tokensPerMinute) {
+      this.tokensPerMinute = tokensPerMinute;
+    }
+
+    public long getMaxWaitMs() {
+      return maxWaitMs;
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) {
+      this.maxWaitMs = maxWaitMs;
+    }
+  }
+
+  /**
+   * Retries of transient provider failures with full-jitter exponential backoff, limited by a
+   * retry budget shared by all providers.
+   */
+  public static class Retry {
+    private boolean enabled = true;
+    private int maxAttempts = 3; // including the first call
+    private long baseDelayMs = 200;
+    private long maxDelayMs = 5000;
+    private long maxRetryAfterMs = 10_000; // a longer Retry-After fails the call instead
+    private double budgetRatio = 0.1; // retries earned per call, i.e. at most 10% extra load
+    private double budgetMinPerSecond = 1.0; // retries allowed regardless of traffic
+    private double budgetCapacity = 20; // unused budget kept for a burst of failures
+
+    // Getters and Setters
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getMaxAttempts() {
+      return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+      this.maxAttempts = maxAttempts;
+    }
+
+    public long getBaseDelayMs() {
+      return baseDelayMs;
+    }
+
+    public void setBaseDelayMs(long baseDelayMs) {
+      this.baseDelayMs = baseDelayMs;
+    }
+
+    public long getMaxDelayMs() {
+      return maxDelayMs;
+    }
+
+    public void setMaxDelayMs(long maxDelayMs) {
+      this.maxDelayMs = maxDelayMs;
+    }
+
+    public long getMaxRetryAfterMs() {
+      return maxRetryAfterMs;
+    }
+
+    public void setMaxRetryAfterMs(long maxRetryAfterMs) {
+      this.maxRetryAfterMs = maxRetryAfterMs;
+    }
+
+    public double getBudgetRatio() {
+      return budgetRatio;
+    }
+
+    public void setBudgetRatio(double budgetRatio) {
+      this.budgetRatio = budgetRatio;
+    }
+
+    public double getBudgetMinPerSecond() {
+      return budgetMinPerSecond;
+    }
+
+    public void setBudgetMinPerSecond(double budgetMinPerSecond) {
+      this.budgetMinPerSecond = budgetMinPerSecond;
+    }
+
+    public double getBudgetCapacity() {
+      return budgetCapacity;
+    }
+
+    public void setBudgetCapacity(double budgetCapacity) {
+      this.budgetCapacity = budgetCapacity;
+    }
+  }
+}
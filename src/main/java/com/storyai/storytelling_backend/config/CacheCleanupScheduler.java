@@ -1,14 +1,29 @@
 package com.storyai.storytelling_backend.config;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import com.storyai.storytelling_backend.service.AICacheService;
 
-/** Scheduled task to clean up expired cache entries */
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Expires cache entries without row-by-row deletes: each run keeps daily expiry partitions created
+ * ahead of time and drops the ones whose day is over. Entries that landed in the default partition
+ * are swept in small batches whose size adapts to how long each delete takes, with a pause between
+ * batches and a cap per run so any backlog is worked off over several runs.
+ */
 @Component
 @ConditionalOnProperty(name = "ai.cache.enabled", havingValue = "true", matchIfMissing = true)
 public class CacheCleanupScheduler {
@@ -16,29 +31,107 @@ public class CacheCleanupScheduler {
   public static final Logger logger = LoggerFactory.getLogger(CacheCleanupScheduler.class);
 
   private final AICacheService cacheService;
+  private final AICacheProperties.Cleanup cleanup;
+
+  private final Counter deletedCounter;
+  private final Timer batchTimer;
+  private final AtomicInteger batchSize;
+  private final AtomicInteger behind = new AtomicInteger();
 
-  public CacheCleanupScheduler(AICacheService cacheService) {
+  public CacheCleanupScheduler(
+      AICacheService cacheService, AICacheProperties properties, MeterRegistry meterRegistry) {
     this.cacheService = cacheService;
+    this.cleanup = properties.getCleanup();
+    this.batchSize = new AtomicInteger(cleanup.getMaxBatchSize());
+
+    this.deletedCounter =
+        Counter.builder("ai.cache.expiry.deleted")
+            .description("Expired cache entries removed by partition drops and sweeps")
+            .register(meterRegistry);
+    this.batchTimer =
+        Timer.builder("ai.cache.expiry.batch")
+            .description("Time taken by one expiry delete batch")
+            .register(meterRegistry);
+    Gauge.builder("ai.cache.expiry.batch.size", batchSize, AtomicInteger::get)
+        .description("Current adaptive expiry batch size")
+        .register(meterRegistry);
+    Gauge.builder("ai.cache.expiry.behind", behind, AtomicInteger::get)
+        .description("1 when the last sweep stopped with expired entries still left")
+        .register(meterRegistry);
   }
 
-  /** Run daily at 3AM To clean Expired Cache Configurable via ai.cache.cleanup.cron property */
-  @Scheduled(cron = "${ai.cache.cleanup.cron:0 0 3 * * ?}")
+  /** Configurable via ai.cache.cleanup.interval-ms */
+  @Scheduled(
+      fixedDelayString = "${ai.cache.cleanup.interval-ms:60000}",
+      initialDelayString = "${ai.cache.cleanup.interval-ms:60000}")
   public void cleanupExpiredCache() {
-    logger.info("Starting scheduled cache cleanup....");
+    int deleteCount = 0;
+    boolean more = false;
 
     try {
-      int deleteCount = cacheService.clearExpiredCache();
-      logger.info("Cache cleanup completed. Deleted {} expired entries", deleteCount);
+      cacheService.ensureExpiryPartitions(cleanup.getPartitionDaysAhead());
 
-      // Log cache stats after cleanup
-      AICacheService.CacheStats stats = cacheService.getCacheStats();
-      logger.info(
-          "Current cache stats - Total entries: {}, Total hits: {}, Average hits per entry: {}",
-          stats.getTotalEntries(),
-          stats.getTotalHits(),
-          String.format("%.2f", stats.getAverageHitsPerEntry()));
+      long dropped = cacheService.dropExpiredPartitions();
+      deletedCounter.increment(dropped);
+      deleteCount += (int) Math.min(Integer.MAX_VALUE, dropped);
+
+      for (int run = 0; run < cleanup.getMaxBatchesPerRun(); run++) {
+        int size = batchSize.get();
+        long start = System.nanoTime();
+        int deleted = cacheService.sweepExpiredBatch(size);
+        long elapsedNanos = System.nanoTime() - start;
+
+        batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        deletedCounter.increment(deleted);
+        deleteCount += deleted;
+        adjustBatchSize(size, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        more = deleted == size;
+        if (!more) {
+          break;
+        }
+        Thread.sleep(cleanup.getBatchPauseMs());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     } catch (Exception e) {
       logger.error("Error during cache cleanup", e);
     }
+
+    behind.set(more ? 1 : 0);
+    if (deleteCount > 0) {
+      logger.info(
+          "Cache cleanup deleted {} expired entries{}",
+          deleteCount,
+          more ? ", more remain for the next run" : "");
+    }
+  }
+
+  /**
+   * Seed the in-memory cache size estimates at startup and correct their drift every
+   * ai.cache.cleanup.storage-refresh-interval-ms. This scans ai_cache, so it runs rarely; in between
+   * the estimates follow writes, evictions and expirations.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      fixedDelayString = "${ai.cache.cleanup.storage-refresh-interval-ms:3600000}",
+      initialDelayString = "${ai.cache.cleanup.storage-refresh-interval-ms:3600000}")
+  public void refreshStorageStats() {
+    try {
+      cacheService.refreshStorageStats();
+    } catch (Exception e) {
+      logger.warn("Could not refresh cache storage stats", e);
+    }
+  }
+
+  /** Halve the batch when deletes get slow, grow it again while they stay fast */
+  private void adjustBatchSize(int size, long elapsedMillis) {
+    int next = size;
+    if (elapsedMillis > cleanup.getTargetBatchMs()) {
+      next = Math.max(cleanup.getMinBatchSize(), size / 2);
+    } else if (elapsedMillis < cleanup.getTargetBatchMs() / 2) {
+      next = Math.min(cleanup.getMaxBatchSize(), size * 2);
+    }
+    batchSize.set(next);
   }
 }
@@ -0,0 +1,60 @@
+package com.storyai.storytelling_backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.service.AICacheContentCodec;
+import com.storyai.storytelling_backend.service.AICacheService;
+
+/**
+ * Background migration that compresses ai_cache rows written before compression was enabled. The
+ * first run trains the shared dictionary if none exists yet; each run then handles one batch.
+ */
+@Component
+@ConditionalOnProperty(name = "ai.cache.compression.enabled", havingValue = "true")
+public class CacheCompressionScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheCompressionScheduler.class);
+
+  private final AICacheService cacheService;
+  private final AICacheContentCodec contentCodec;
+  private final AICacheProperties.Compression compression;
+
+  private long lastCompressedId = 0;
+
+  public CacheCompressionScheduler(
+      AICacheService cacheService,
+      AICacheContentCodec contentCodec,
+      AICacheProperties properties) {
+    this.cacheService = cacheService;
+    this.contentCodec = contentCodec;
+    this.compression = properties.getCompression();
+  }
+
+  /** Configurable via ai.cache.compression.migration-interval-ms */
+  @Scheduled(
+      fixedDelayString = "${ai.cache.compression.migration-interval-ms:60000}",
+      initialDelayString = "${ai.cache.compression.migration-interval-ms:60000}")
+  public void compressStoredEntries() {
+    try {
+      if (!contentCodec.hasActiveDictionary()
+          && !cacheService.trainCompressionDictionary(
+              compression.getDictionarySampleSize(), compression.getMinSizeBytes())) {
+        logger.debug("Not enough cache entries to train a compression dictionary yet");
+      }
+
+      long lastId =
+          cacheService.compressStoredContent(
+              lastCompressedId, compression.getMigrationBatchSize(), compression.getMinSizeBytes());
+      if (lastId == 0 && lastCompressedId > 0) {
+        logger.info("Finished a compression pass over stored cache entries");
+      }
+      lastCompressedId = lastId;
+    } catch (Exception e) {
+      logger.error("Error during cache compression migration", e);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.storyai.storytelling_backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.service.AICacheService;
+
+/**
+ * Keeps ai_cache within its byte budget by evicting the least valuable entries a few batches at a
+ * time, so the table never needs a large one-off purge.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "ai.cache.eviction.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class CacheEvictionScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheEvictionScheduler.class);
+
+  private final AICacheService cacheService;
+  private final AICacheProperties.Eviction eviction;
+
+  public CacheEvictionScheduler(AICacheService cacheService, AICacheProperties properties) {
+    this.cacheService = cacheService;
+    this.eviction = properties.getEviction();
+  }
+
+  /** Configurable via ai.cache.eviction.interval-ms */
+  @Scheduled(
+      fixedDelayString = "${ai.cache.eviction.interval-ms:60000}",
+      initialDelayString = "${ai.cache.eviction.interval-ms:60000}")
+  public void evictToBudget() {
+    try {
+      cacheService.evictToBudget(
+          eviction.getMaxBytes(), eviction.getBatchSize(), eviction.getMaxBatchesPerRun());
+    } catch (Exception e) {
+      logger.error("Error during cache eviction", e);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.storyai.storytelling_backend.config;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.service.AICacheService;
+
+/**
+ * Warms the local cache tier with the hottest ai_cache entries after startup. Runs on its own
+ * thread and doubles as the aiCacheWarmup health indicator, which the readiness group includes, so
+ * a fresh node only takes traffic once warm-up has finished or run out of budget.
+ */
+@Component("aiCacheWarmup")
+public class CacheWarmupRunner implements HealthIndicator {
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheWarmupRunner.class);
+
+  private final AICacheService cacheService;
+  private final AICacheProperties.Warmup warmup;
+  private final boolean enabled;
+
+  private volatile boolean finished;
+  private volatile int loaded;
+
+  public CacheWarmupRunner(AICacheService cacheService, AICacheProperties properties) {
+    this.cacheService = cacheService;
+    this.warmup = properties.getWarmup();
+    this.enabled =
+        properties.isEnabled() && properties.getLocal().isEnabled() && warmup.isEnabled();
+    this.finished = !enabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startWarmup() {
+    if (!enabled) {
+      return;
+    }
+    Thread thread = new Thread(this::warmup, "cache-warmup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public Health health() {
+    if (!finished) {
+      return Health.outOfService().withDetail("warmup", "in progress").build();
+    }
+    return Health.up().withDetail("warmedEntries", loaded).build();
+  }
+
+  private void warmup() {
+    try {
+      loaded =
+          cacheService.warmLocalCache(
+              warmup.getMaxEntries(),
+              warmup.getMaxBytes(),
+              Duration.ofSeconds(warmup.getMaxDurationSeconds()),
+              warmup.getFetchSize());
+    } catch (Exception e) {
+      // A cold cache is slower, not broken; don't hold readiness back
+      logger.warn("Cache warm-up failed, continuing with a cold cache", e);
+    } finally {
+      finished = true;
+    }
+  }
+}
@@ -5,13 +5,18 @@ import java.util.Map;
 
 import jakarta.validation.Valid;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.storyai.storytelling_backend.DTO.*;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
 import com.storyai.storytelling_backend.service.AICacheService;
 import com.storyai.storytelling_backend.service.AIStoryGenerator;
+import com.storyai.storytelling_backend.service.AIStoryStreamer;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -23,10 +28,13 @@ public class AIGenerationController {
 
   private final AIStoryGenerator aiGenerator;
   private final AICacheService cacheService;
+  private final AIStoryStreamer storyStreamer;
 
-  public AIGenerationController(AIStoryGenerator aiGenerator, AICacheService cacheService) {
+  public AIGenerationController(
+      AIStoryGenerator aiGenerator, AICacheService cacheService, AIStoryStreamer storyStreamer) {
     this.aiGenerator = aiGenerator;
     this.cacheService = cacheService;
+    this.storyStreamer = storyStreamer;
   }
 
   @PostMapping("/generate-story")
@@ -45,6 +53,28 @@ public class AIGenerationController {
     return ResponseEntity.ok(response);
   }
 
+  @PostMapping(value = "/generate-story/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(
+      summary = "Stream story content using AI",
+      description =
+          "Server-sent events: \"delta\" events carry text as it is generated, then a \"done\" "
+              + "event carries the complete response, or an \"error\" event")
+  public ResponseEntity<SseEmitter> streamStory(@Valid @RequestBody GenerateStoryRequest request) {
+
+    if (!aiGenerator.isAvailable()) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    try {
+      return ResponseEntity.ok(storyStreamer.stream(request));
+    } catch (AIServiceUnavailableException e) {
+      // No JSON error body: the client only accepts an event stream
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+          .build();
+    }
+  }
+
   @PostMapping("/generate-choice")
   @Operation(
       summary = "Generate story choices options using AI",
@@ -61,6 +91,26 @@ public class AIGenerationController {
     return ResponseEntity.ok(response);
   }
 
+  @PostMapping("/generate-turn")
+  @Operation(
+      summary = "Generate a story chapter and its choices using AI",
+      description =
+          "Generates the chapter and the choices after it in one provider call; both are cached "
+              + "as if generate-story and generate-choice had been called")
+  public ResponseEntity<GeneratedTurnResponse> generateTurn(
+      @Valid @RequestBody GenerateTurnRequest request) {
+
+    if (!aiGenerator.isAvailable()) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .body(
+              new GeneratedTurnResponse(
+                  createUnavailableStoryResponse(), createUnavailableChoicesReponse()));
+    }
+
+    GeneratedTurnResponse response = aiGenerator.generateTurn(request);
+    return ResponseEntity.ok(response);
+  }
+
   @GetMapping("/status")
   @Operation(summary = "Check AI service Availability")
   public ResponseEntity<Map<String, Object>> getAIStatus() {
@@ -0,0 +1,80 @@
+package com.storyai.storytelling_backend.controller;
+
+import java.net.URI;
+import java.util.UUID;
+
+import jakarta.validation.Valid;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.storyai.storytelling_backend.DTO.CreateGenerationJobRequest;
+import com.storyai.storytelling_backend.DTO.GenerationJobResponse;
+import com.storyai.storytelling_backend.security.CustomUserDetails;
+import com.storyai.storytelling_backend.service.AIGenerationJobService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/v1/ai/jobs")
+@Tag(name = "AI Generation", description = "AI-powered story and choice generation")
+public class AIGenerationJobController {
+
+  // Polling hint for jobs still queued or running
+  private static final String POLL_AFTER_SECONDS = "1";
+
+  private final AIGenerationJobService jobService;
+
+  public AIGenerationJobController(AIGenerationJobService jobService) {
+    this.jobService = jobService;
+  }
+
+  @PostMapping
+  @Operation(
+      summary = "Queue a generation",
+      description =
+          "Returns 202 with the job at once; the result is fetched from the job's URL or its "
+              + "events stream. type is STORY, CHOICES or TURN, with the matching request in "
+              + "story, choices or turn; 429 with Retry-After while the user already has "
+              + "ai.generation.jobs.max-active-per-user jobs queued or running")
+  public ResponseEntity<GenerationJobResponse> submitJob(
+      @Valid @RequestBody CreateGenerationJobRequest request,
+      @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+    GenerationJobResponse job = jobService.submit(request, userDetails.getUserId());
+    return ResponseEntity.accepted()
+        .location(URI.create("/api/v1/ai/jobs/" + job.getId()))
+        .header(HttpHeaders.RETRY_AFTER, POLL_AFTER_SECONDS)
+        .body(job);
+  }
+
+  @GetMapping("/{id}")
+  @Operation(
+      summary = "Get a generation job",
+      description = "The job's status, and its result once it has succeeded")
+  public ResponseEntity<GenerationJobResponse> getJob(
+      @PathVariable UUID id, @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+    GenerationJobResponse job = jobService.getJob(id, userDetails.getUserId());
+    if (!job.getStatus().isFinished()) {
+      return ResponseEntity.ok().header(HttpHeaders.RETRY_AFTER, POLL_AFTER_SECONDS).body(job);
+    }
+    return ResponseEntity.ok(job);
+  }
+
+  @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(
+      summary = "Stream a generation job",
+      description =
+          "Server-sent events: a \"status\" event with the job, then a \"done\" event with the "
+              + "result or an \"error\" event once it has finished")
+  public SseEmitter watchJob(
+      @PathVariable UUID id, @AuthenticationPrincipal CustomUserDetails userDetails) {
+    return jobService.watch(id, userDetails.getUserId());
+  }
+}
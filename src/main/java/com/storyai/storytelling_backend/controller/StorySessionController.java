@@ -9,6 +9,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import com.storyai.storytelling_backend.DTO.ChapterResponse;
+import com.storyai.storytelling_backend.DTO.CurrentChapterResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedTurnResponse;
 import com.storyai.storytelling_backend.DTO.StartSessionRequest;
 import com.storyai.storytelling_backend.DTO.UpdateProgressRequest;
 import com.storyai.storytelling_backend.entity.Story;
@@ -108,4 +110,17 @@ public class StorySessionController {
     return next.<ResponseEntity<?>>map(ch -> ResponseEntity.ok(ChapterResponse.fromEntity(ch)))
         .orElse(ResponseEntity.status(HttpStatus.NO_CONTENT).build());
   }
+
+  /** Current chapter and its choices; starts pre-generating the unwritten ones' continuations */
+  @GetMapping("/{id}/chapter")
+  public ResponseEntity<CurrentChapterResponse> getCurrentChapter(@PathVariable Long id) {
+    return ResponseEntity.ok(sessionService.getCurrentChapter(id));
+  }
+
+  /** AI continuation of a choice leading to an unwritten chapter, pre-generated while reading */
+  @GetMapping("/{id}/choices/{choiceId}/continuation")
+  public ResponseEntity<GeneratedTurnResponse> getContinuation(
+      @PathVariable Long id, @PathVariable Long choiceId) {
+    return ResponseEntity.ok(sessionService.getContinuation(id, choiceId));
+  }
 }
@@ -1,10 +1,17 @@
 package com.storyai.storytelling_backend.entity;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.*;
 
-/** Entity for caching AI-generated content to reduce API costs */
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Entity for caching AI-generated content to reduce API costs. The table is range-partitioned by
+ * expiryBucket, so a key is unique per expiry day rather than globally.
+ */
 @Entity
 @Table(
     name = "ai_cache",
@@ -14,22 +21,57 @@ import jakarta.persistence.*;
     })
 public class AICache {
 
+  /** Expiry bucket of entries that never expire */
+  public static final LocalDate NO_EXPIRY_BUCKET = LocalDate.of(9999, 12, 31);
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
-  @Column(name = "cache_key", unique = true, nullable = false, length = 255)
+  @Column(name = "cache_key", nullable = false, length = 255)
   private String cacheKey;
 
-  @Column(name = "content", columnDefinition = "TEXT", nullable = false)
+  /** Plain content; null when the row is stored compressed */
+  @Column(name = "content", columnDefinition = "TEXT")
   private String content;
 
+  @Column(name = "content_compressed")
+  private byte[] contentCompressed;
+
+  /** Codec of contentCompressed, null for plain rows */
+  @Column(name = "compression_codec", length = 16)
+  private String compressionCodec;
+
+  @Column(name = "dictionary_id")
+  private Integer dictionaryId;
+
+  /** Stored size in bytes, used by the eviction budget */
+  @Column(name = "content_bytes", nullable = false)
+  private Integer contentBytes = 0;
+
+  /** Provider latency that produced this content, used to weigh eviction */
+  @Column(name = "generation_cost_ms")
+  private Integer generationCostMs;
+
+  /** Parsed form of the content as JSON, null when never parsed */
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(name = "structured")
+  private String structured;
+
+  /** Schema version of structured */
+  @Column(name = "structured_version")
+  private Short structuredVersion;
+
   @Column(name = "created_at", nullable = false)
   private LocalDateTime createdAt;
 
   @Column(name = "expires_at")
   private LocalDateTime expiresAt;
 
+  /** Partition key; kept in step with expiresAt */
+  @Column(name = "expiry_bucket", nullable = false)
+  private LocalDate expiryBucket = NO_EXPIRY_BUCKET;
+
   @Column(name = "last_accessed_at")
   private LocalDateTime lastAccessedAt;
 
@@ -73,6 +115,62 @@ public class AICache {
     this.content = content;
   }
 
+  public byte[] getContentCompressed() {
+    return contentCompressed;
+  }
+
+  public void setContentCompressed(byte[] contentCompressed) {
+    this.contentCompressed = contentCompressed;
+  }
+
+  public String getCompressionCodec() {
+    return compressionCodec;
+  }
+
+  public void setCompressionCodec(String compressionCodec) {
+    this.compressionCodec = compressionCodec;
+  }
+
+  public Integer getDictionaryId() {
+    return dictionaryId;
+  }
+
+  public void setDictionaryId(Integer dictionaryId) {
+    this.dictionaryId = dictionaryId;
+  }
+
+  public Integer getContentBytes() {
+    return contentBytes;
+  }
+
+  public void setContentBytes(Integer contentBytes) {
+    this.contentBytes = contentBytes;
+  }
+
+  public Integer getGenerationCostMs() {
+    return generationCostMs;
+  }
+
+  public void setGenerationCostMs(Integer generationCostMs) {
+    this.generationCostMs = generationCostMs;
+  }
+
+  public String getStructured() {
+    return structured;
+  }
+
+  public void setStructured(String structured) {
+    this.structured = structured;
+  }
+
+  public Short getStructuredVersion() {
+    return structuredVersion;
+  }
+
+  public void setStructuredVersion(Short structuredVersion) {
+    this.structuredVersion = structuredVersion;
+  }
+
   public LocalDateTime getCreatedAt() {
     return createdAt;
   }
@@ -87,6 +185,16 @@ public class AICache {
 
   public void setExpiresAt(LocalDateTime expiresAt) {
     this.expiresAt = expiresAt;
+    this.expiryBucket = expiryBucketOf(expiresAt);
+  }
+
+  public LocalDate getExpiryBucket() {
+    return expiryBucket;
+  }
+
+  /** Partition an entry expiring at the given time belongs to */
+  public static LocalDate expiryBucketOf(LocalDateTime expiresAt) {
+    return expiresAt != null ? expiresAt.toLocalDate() : NO_EXPIRY_BUCKET;
   }
 
   public LocalDateTime getLastAccessedAt() {
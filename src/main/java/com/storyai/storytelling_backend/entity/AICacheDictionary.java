@@ -0,0 +1,80 @@
+package com.storyai.storytelling_backend.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/** Preset compression dictionary shared by ai_cache rows */
+@Entity
+@Table(name = "ai_cache_dictionaries")
+public class AICacheDictionary {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Integer id;
+
+  @Column(name = "codec", nullable = false, length = 16)
+  private String codec;
+
+  @Column(name = "dictionary", nullable = false)
+  private byte[] dictionary;
+
+  @Column(name = "sample_count", nullable = false)
+  private Integer sampleCount;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  // Constructors
+  public AICacheDictionary() {
+    this.createdAt = LocalDateTime.now();
+  }
+
+  public AICacheDictionary(String codec, byte[] dictionary, int sampleCount) {
+    this();
+    this.codec = codec;
+    this.dictionary = dictionary;
+    this.sampleCount = sampleCount;
+  }
+
+  // Getters and Setters
+  public Integer getId() {
+    return id;
+  }
+
+  public void setId(Integer id) {
+    this.id = id;
+  }
+
+  public String getCodec() {
+    return codec;
+  }
+
+  public void setCodec(String codec) {
+    this.codec = codec;
+  }
+
+  public byte[] getDictionary() {
+    return dictionary;
+  }
+
+  public void setDictionary(byte[] dictionary) {
+    this.dictionary = dictionary;
+  }
+
+  public Integer getSampleCount() {
+    return sampleCount;
+  }
+
+  public void setSampleCount(Integer sampleCount) {
+    this.sampleCount = sampleCount;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+}
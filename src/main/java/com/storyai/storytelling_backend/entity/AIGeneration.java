@@ -0,0 +1,217 @@
+package com.storyai.storytelling_backend.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/** One provider call, recorded for cost and latency analytics */
+@Entity
+@Table(name = "ai_generations")
+public class AIGeneration {
+
+  /** Why the provider was called */
+  public enum CacheOutcome {
+    /** Nothing usable was cached */
+    MISS,
+    /** Background regeneration of a stale entry */
+    REFRESH
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "session_id")
+  private Long sessionId;
+
+  @Column(name = "story_id")
+  private Long storyId;
+
+  @Column(name = "chapter_id")
+  private Long chapterId;
+
+  /** story or choices */
+  @Column(name = "request_type", length = 20)
+  private String requestType;
+
+  @Column(name = "provider", length = 20)
+  private String provider;
+
+  @Column(name = "ai_model", length = 100)
+  private String aiModel;
+
+  @Column(name = "prompt_hash", nullable = false, length = 64)
+  private String promptHash;
+
+  @Column(name = "input_tokens")
+  private Integer inputTokens;
+
+  @Column(name = "output_tokens")
+  private Integer outputTokens;
+
+  /** Input plus output tokens, as reported by the provider */
+  @Column(name = "tokens_used")
+  private Integer tokensUsed;
+
+  @Column(name = "latency_ms")
+  private Integer latencyMs;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "cache_outcome", length = 20)
+  private CacheOutcome cacheOutcome;
+
+  @Column(name = "succeeded", nullable = false)
+  private boolean succeeded = true;
+
+  @Column(name = "created_at")
+  private LocalDateTime createdAt;
+
+  // Constructors
+  public AIGeneration() {
+    this.createdAt = LocalDateTime.now();
+  }
+
+  public AIGeneration(
+      String requestType,
+      String provider,
+      String aiModel,
+      String promptHash,
+      CacheOutcome cacheOutcome) {
+    this();
+    this.requestType = requestType;
+    this.provider = provider;
+    this.aiModel = aiModel;
+    this.promptHash = promptHash;
+    this.cacheOutcome = cacheOutcome;
+  }
+
+  /** A new record of the same request, for a retry of the call */
+  public AIGeneration retry() {
+    AIGeneration retry = new AIGeneration(requestType, provider, aiModel, promptHash, cacheOutcome);
+    retry.setSessionId(sessionId);
+    retry.setStoryId(storyId);
+    retry.setChapterId(chapterId);
+    return retry;
+  }
+
+  // Getters and Setters
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getSessionId() {
+    return sessionId;
+  }
+
+  public void setSessionId(Long sessionId) {
+    this.sessionId = sessionId;
+  }
+
+  public Long getStoryId() {
+    return storyId;
+  }
+
+  public void setStoryId(Long storyId) {
+    this.storyId = storyId;
+  }
+
+  public Long getChapterId() {
+    return chapterId;
+  }
+
+  public void setChapterId(Long chapterId) {
+    this.chapterId = chapterId;
+  }
+
+  public String getRequestType() {
+    return requestType;
+  }
+
+  public void setRequestType(String requestType) {
+    this.requestType = requestType;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public void setProvider(String provider) {
+    this.provider = provider;
+  }
+
+  public String getAiModel() {
+    return aiModel;
+  }
+
+  public void setAiModel(String aiModel) {
+    this.aiModel = aiModel;
+  }
+
+  public String getPromptHash() {
+    return promptHash;
+  }
+
+  public void setPromptHash(String promptHash) {
+    this.promptHash = promptHash;
+  }
+
+  public Integer getInputTokens() {
+    return inputTokens;
+  }
+
+  public void setInputTokens(Integer inputTokens) {
+    this.inputTokens = inputTokens;
+  }
+
+  public Integer getOutputTokens() {
+    return outputTokens;
+  }
+
+  public void setOutputTokens(Integer outputTokens) {
+    this.outputTokens = outputTokens;
+  }
+
+  public Integer getTokensUsed() {
+    return tokensUsed;
+  }
+
+  public void setTokensUsed(Integer tokensUsed) {
+    this.tokensUsed = tokensUsed;
+  }
+
+  public Integer getLatencyMs() {
+    return latencyMs;
+  }
+
+  public void setLatencyMs(Integer latencyMs) {
+    this.latencyMs = latencyMs;
+  }
+
+  public CacheOutcome getCacheOutcome() {
+    return cacheOutcome;
+  }
+
+  public void setCacheOutcome(CacheOutcome cacheOutcome) {
+    this.cacheOutcome = cacheOutcome;
+  }
+
+  public boolean isSucceeded() {
+    return succeeded;
+  }
+
+  public void setSucceeded(boolean succeeded) {
+    this.succeeded = succeeded;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+}
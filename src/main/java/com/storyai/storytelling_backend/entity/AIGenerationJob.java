@@ -0,0 +1,184 @@
+package com.storyai.storytelling_backend.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * A generation request answered asynchronously. Rows are inserted through JPA; the queue
+ * transitions (claim, complete, fail, requeue) are native statements in {@link
+ * com.storyai.storytelling_backend.repository.AIGenerationJobRepository}, and the lease columns
+ * (run_after, locked_by, locked_until) are only ever written there.
+ */
+@Entity
+@Table(name = "ai_generation_jobs")
+public class AIGenerationJob {
+
+  /** What the job generates, and so the type of its request and result */
+  public enum JobType {
+    /** GenerateStoryRequest to GeneratedStoryResponse */
+    STORY,
+    /** GenerateChoicesRequest to GeneratedChoicesResponse */
+    CHOICES,
+    /** GenerateTurnRequest to GeneratedTurnResponse */
+    TURN
+  }
+
+  public enum Status {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isFinished() {
+      return this == SUCCEEDED || this == FAILED;
+    }
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.UUID)
+  private UUID id;
+
+  @Column(name = "user_id")
+  private Long userId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "job_type", nullable = false, length = 20)
+  private JobType jobType;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false, length = 20)
+  private Status status = Status.QUEUED;
+
+  /** The generation request as JSON */
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(name = "request", nullable = false)
+  private String request;
+
+  /** The generation response as JSON, once succeeded */
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(name = "result")
+  private String result;
+
+  @Column(name = "error", length = 500)
+  private String error;
+
+  /** Times the job has been claimed by a worker */
+  @Column(name = "attempts", nullable = false)
+  private Integer attempts = 0;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  @Column(name = "finished_at")
+  private LocalDateTime finishedAt;
+
+  // Constructors
+  public AIGenerationJob() {
+    this.createdAt = LocalDateTime.now();
+    this.updatedAt = this.createdAt;
+  }
+
+  public AIGenerationJob(JobType jobType, Long userId, String request) {
+    this();
+    this.jobType = jobType;
+    this.userId = userId;
+    this.request = request;
+  }
+
+  // Getters and Setters
+  public UUID getId() {
+    return id;
+  }
+
+  public void setId(UUID id) {
+    this.id = id;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(Long userId) {
+    this.userId = userId;
+  }
+
+  public JobType getJobType() {
+    return jobType;
+  }
+
+  public void setJobType(JobType jobType) {
+    this.jobType = jobType;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public String getRequest() {
+    return request;
+  }
+
+  public void setRequest(String request) {
+    this.request = request;
+  }
+
+  public String getResult() {
+    return result;
+  }
+
+  public void setResult(String result) {
+    this.result = result;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public Integer getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(Integer attempts) {
+    this.attempts = attempts;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public LocalDateTime getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(LocalDateTime updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+
+  public LocalDateTime getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(LocalDateTime finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+}
@@ -0,0 +1,26 @@
+package com.storyai.storytelling_backend.exception;
+
+/** AI generation can't be served right now; clients should retry after the given delay */
+public class AIServiceUnavailableException extends RuntimeException {
+  private final String errorCode;
+  private final int retryAfterSeconds;
+
+  public AIServiceUnavailableException(String message, String errorCode, int retryAfterSeconds) {
+    super(message);
+    this.errorCode = errorCode;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public static AIServiceUnavailableException generationPending(int retryAfterSeconds) {
+    return new AIServiceUnavailableException(
+        "An identical generation is still in progress", "AI_GENERATION_PENDING", retryAfterSeconds);
+  }
+
+  public String getErrorCode() {
+    return errorCode;
+  }
+
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -2,6 +2,7 @@ package com.storyai.storytelling_backend.exception;
 
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -16,6 +17,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -24,6 +26,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+  private static final int INTERRUPTED_RETRY_AFTER_SECONDS = 1;
+
   //ErrorResponse Class
   @Schema(description = "Standard error response format")
   public static class ErrorResponse {
@@ -284,7 +288,52 @@ public class GlobalExceptionHandler {
     additionalInfo.put("retryAfterSeconds", ex.getRetryAfterSeconds());
     errorResponse.setAdditionalInfo(additionalInfo);
 
-    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+      .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+      .body(errorResponse);
+  }
+
+  @ExceptionHandler(AIServiceUnavailableException.class)
+  public ResponseEntity<ErrorResponse> handleAIServiceUnavailable(
+    AIServiceUnavailableException ex, WebRequest request) {
+
+    ErrorResponse errorResponse = new ErrorResponse(
+      HttpStatus.SERVICE_UNAVAILABLE.value(),
+      "SERVICE_UNAVAILABLE",
+      ex.getMessage(),
+      getPath(request)
+    );
+    errorResponse.setErrorCode(ex.getErrorCode());
+
+    Map<String, Object> additionalInfo = new HashMap<>();
+    additionalInfo.put("retryAfterSeconds", ex.getRetryAfterSeconds());
+    errorResponse.setAdditionalInfo(additionalInfo);
+
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+      .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+      .body(errorResponse);
+  }
+
+  // Interrupted while waiting on a shared generation, a provider slot, quota or a retry delay
+  @ExceptionHandler(CancellationException.class)
+  public ResponseEntity<ErrorResponse> handleCancellation(
+    CancellationException ex, WebRequest request) {
+
+    ErrorResponse errorResponse = new ErrorResponse(
+      HttpStatus.SERVICE_UNAVAILABLE.value(),
+      "SERVICE_UNAVAILABLE",
+      "AI generation was interrupted",
+      getPath(request)
+    );
+    errorResponse.setErrorCode("AI_GENERATION_INTERRUPTED");
+
+    Map<String, Object> additionalInfo = new HashMap<>();
+    additionalInfo.put("retryAfterSeconds", INTERRUPTED_RETRY_AFTER_SECONDS);
+    errorResponse.setAdditionalInfo(additionalInfo);
+
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+      .header(HttpHeaders.RETRY_AFTER, String.valueOf(INTERRUPTED_RETRY_AFTER_SECONDS))
+      .body(errorResponse);
   }
 
   @ExceptionHandler(EmailSendException.class)
@@ -0,0 +1,15 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.storyai.storytelling_backend.entity.AICacheDictionary;
+
+@Repository
+public interface AICacheDictionaryRepository extends JpaRepository<AICacheDictionary, Integer> {
+
+  /** Most recently trained dictionary for a codec */
+  Optional<AICacheDictionary> findTopByCodecOrderByIdDesc(String codec);
+}
@@ -1,27 +1,167 @@
 package com.storyai.storytelling_backend.repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.storyai.storytelling_backend.entity.AICache;
 
 @Repository
-public interface AICacheRepository extends JpaRepository<AICache, Long> {
+public interface AICacheRepository
+    extends JpaRepository<AICache, Long>, AICacheRepositoryCustom {
 
-  /** Find cache entry by key */
-  Optional<AICache> findByCacheKey(String cacheKey);
+  /**
+   * Newest entry for the key in a partition that hasn't fully expired yet. Expired partitions are
+   * pruned by the expiry_bucket bound, and each remaining partition is probed through its
+   * (cache_key, expiry_bucket) index.
+   */
+  @Query(
+      value =
+          "SELECT * FROM ai_cache WHERE cache_key = :cacheKey AND expiry_bucket >= :today "
+              + "ORDER BY expires_at DESC LIMIT 1",
+      nativeQuery = true)
+  Optional<AICache> findLiveByCacheKey(
+      @Param("cacheKey") String cacheKey, @Param("today") LocalDate today);
 
-  /** Delete all expired cache entries */
-  int deleteByExpiresAtBefore(LocalDateTime dateTime);
+  /** Delete every stored copy of the key */
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM ai_cache WHERE cache_key = :cacheKey", nativeQuery = true)
+  int deleteByCacheKey(@Param("cacheKey") String cacheKey);
 
-  /** Sum all hit counts for statistics */
-  @Query("SELECT COALESCE(SUM(c.hitCount), 0) FROM AICache c")
-  long sumAllHitCounts();
+  /**
+   * Insert or refresh a cache entry in one statement. A row for the key in the same expiry day
+   * keeps its created_at and hit_count; content, structured form, size, cost and expiry are
+   * replaced. Copies of the key in other expiry days are deleted, so a rewrite never leaves the old
+   * row behind until its partition is dropped. Exactly one of content and contentCompressed is
+   * expected to be non-null.
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "WITH replaced AS (DELETE FROM ai_cache WHERE cache_key = :cacheKey "
+              + "AND expiry_bucket <> COALESCE(CAST(:expiresAt AS DATE), DATE '9999-12-31')) "
+              + "INSERT INTO ai_cache "
+              + "(cache_key, content, content_compressed, compression_codec, dictionary_id, "
+              + "content_bytes, generation_cost_ms, created_at, expires_at, last_accessed_at, "
+              + "hit_count, expiry_bucket, structured, structured_version) "
+              + "VALUES (:cacheKey, :content, CAST(:contentCompressed AS BYTEA), :codec, "
+              + "CAST(:dictionaryId AS INTEGER), :contentBytes, "
+              + "CAST(:generationCostMs AS INTEGER), :now, :expiresAt, :now, 0, "
+              + "COALESCE(CAST(:expiresAt AS DATE), DATE '9999-12-31'), "
+              + "CAST(:structured AS JSONB), CAST(:structuredVersion AS SMALLINT)) "
+              + "ON CONFLICT (cache_key, expiry_bucket) DO UPDATE SET "
+              + "content = EXCLUDED.content, "
+              + "content_compressed = EXCLUDED.content_compressed, "
+              + "compression_codec = EXCLUDED.compression_codec, "
+              + "dictionary_id = EXCLUDED.dictionary_id, "
+              + "content_bytes = EXCLUDED.content_bytes, "
+              + "structured = EXCLUDED.structured, "
+              + "structured_version = EXCLUDED.structured_version, "
+              + "generation_cost_ms = "
+              + "COALESCE(EXCLUDED.generation_cost_ms, ai_cache.generation_cost_ms), "
+              + "expires_at = EXCLUDED.expires_at, "
+              + "last_accessed_at = EXCLUDED.last_accessed_at",
+      nativeQuery = true)
+  int upsert(
+      @Param("cacheKey") String cacheKey,
+      @Param("content") String content,
+      @Param("contentCompressed") byte[] contentCompressed,
+      @Param("codec") String codec,
+      @Param("dictionaryId") Integer dictionaryId,
+      @Param("contentBytes") int contentBytes,
+      @Param("generationCostMs") Integer generationCostMs,
+      @Param("structured") String structured,
+      @Param("structuredVersion") Integer structuredVersion,
+      @Param("now") LocalDateTime now,
+      @Param("expiresAt") LocalDateTime expiresAt);
+
+  /**
+   * Store the structured form of the key's live entries, upgrading only rows that have none or an
+   * older version, so a newer structure written alongside fresh content is never overwritten.
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE ai_cache SET structured = CAST(:structured AS JSONB), "
+              + "structured_version = :version "
+              + "WHERE cache_key = :cacheKey AND expiry_bucket >= :today "
+              + "AND (structured_version IS NULL OR structured_version < :version)",
+      nativeQuery = true)
+  int upgradeStructured(
+      @Param("cacheKey") String cacheKey,
+      @Param("structured") String structured,
+      @Param("version") short version,
+      @Param("today") LocalDate today);
+
+  /** Plain-text rows large enough to compress, in id order after the given id */
+  @Query(
+      value =
+          "SELECT * FROM ai_cache WHERE compression_codec IS NULL AND content IS NOT NULL "
+              + "AND octet_length(content) >= :minSize AND id > :afterId "
+              + "ORDER BY id LIMIT :limit",
+      nativeQuery = true)
+  List<AICache> findUncompressedAfter(
+      @Param("afterId") long afterId, @Param("minSize") int minSize, @Param("limit") int limit);
+
+  /**
+   * Replace a plain row with its compressed form. Guarded on the original content so a concurrent
+   * rewrite of the entry is never clobbered.
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE ai_cache SET content = NULL, content_compressed = :contentCompressed, "
+              + "compression_codec = :codec, dictionary_id = CAST(:dictionaryId AS INTEGER), "
+              + "content_bytes = octet_length(:contentCompressed) "
+              + "WHERE id = :id AND compression_codec IS NULL AND content = :expectedContent",
+      nativeQuery = true)
+  int compressInPlace(
+      @Param("id") Long id,
+      @Param("expectedContent") String expectedContent,
+      @Param("contentCompressed") byte[] contentCompressed,
+      @Param("codec") String codec,
+      @Param("dictionaryId") Integer dictionaryId);
+
+  /**
+   * Delete up to limit expired entries from the default partition, oldest first. Daily partitions
+   * are dropped whole; only rows that landed in the default partition need deleting. Rows locked by
+   * another transaction are skipped, so a sweep never waits on (or blocks) concurrent writers.
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "DELETE FROM ai_cache_default WHERE id IN ("
+              + "SELECT id FROM ai_cache_default WHERE expires_at < :now "
+              + "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED)",
+      nativeQuery = true)
+  int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+  /** Entry count and stored bytes in one scan, used to correct the in-memory estimates */
+  @Query(
+      value = "SELECT count(*) AS entries, COALESCE(SUM(content_bytes), 0) AS bytes FROM ai_cache",
+      nativeQuery = true)
+  StorageTotals storageTotals();
 
   /** Check if cache key exists */
   boolean existsByCacheKey(String cacheKey);
+
+  /** Result of {@link #storageTotals()} */
+  interface StorageTotals {
+    long getEntries();
+
+    long getBytes();
+  }
 }
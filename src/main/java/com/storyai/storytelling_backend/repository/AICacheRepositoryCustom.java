@@ -0,0 +1,164 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.storyai.storytelling_backend.entity.AICache;
+
+/** Bulk JDBC operations on ai_cache that don't fit derived or JPQL queries */
+public interface AICacheRepositoryCustom {
+
+  /** Apply accumulated hit counts and access times as one batched UPDATE */
+  int applyHitDeltas(Collection<HitDelta> deltas);
+
+  /**
+   * Insert or refresh many entries with multi-row INSERT ... ON CONFLICT statements. If a key
+   * appears more than once, the last entry wins; copies of a key in other expiry days are deleted.
+   */
+  int upsertAll(Collection<CacheEntry> entries);
+
+  /**
+   * Delete the lowest-value entries until about bytesToFree bytes are released, at most limit rows.
+   * An entry's value is (hits + 1) * generation cost / stored size, divided by the hours since it
+   * was last read, so cheap, large, cold entries go first. Only a window of the least recently
+   * read rows is ranked, so each call costs the same however large the table grows.
+   */
+  List<EvictedEntry> evictLowestValue(long bytesToFree, int limit);
+
+  /**
+   * Stream up to limit live entries, most hit and most recently read first, through a server-side
+   * cursor fetching fetchSize rows at a time. Must be consumed and closed inside a transaction.
+   */
+  Stream<AICache> streamHottest(LocalDateTime now, int limit, int fetchSize, int timeoutSeconds);
+
+  /** Expiry days that currently have their own partition, in order */
+  List<LocalDate> findExpiryPartitions();
+
+  /**
+   * Create and attach the partition for one expiry day, moving over any of its rows that landed in
+   * the default partition first. Returns false if the partition already exists.
+   */
+  boolean createExpiryPartition(LocalDate day);
+
+  /**
+   * Detach and drop the partition for one expiry day. Returns the number of rows dropped with it,
+   * or -1 if there was no such partition. Fails, changing nothing, if other transactions keep the
+   * table locked for longer than a short lock timeout.
+   */
+  long dropExpiryPartition(LocalDate day);
+
+  /** Content to write for one cache key, either plain or compressed */
+  class CacheEntry {
+    private final String cacheKey;
+    private final String content;
+    private final byte[] contentCompressed;
+    private final String codec;
+    private final Integer dictionaryId;
+    private final int contentBytes;
+    private final LocalDateTime expiresAt;
+
+    public CacheEntry(String cacheKey, String content, LocalDateTime expiresAt) {
+      this(
+          cacheKey,
+          content,
+          null,
+          null,
+          null,
+          content.getBytes(StandardCharsets.UTF_8).length,
+          expiresAt);
+    }
+
+    public CacheEntry(
+        String cacheKey,
+        String content,
+        byte[] contentCompressed,
+        String codec,
+        Integer dictionaryId,
+        int contentBytes,
+        LocalDateTime expiresAt) {
+      this.cacheKey = cacheKey;
+      this.content = content;
+      this.contentCompressed = contentCompressed;
+      this.codec = codec;
+      this.dictionaryId = dictionaryId;
+      this.contentBytes = contentBytes;
+      this.expiresAt = expiresAt;
+    }
+
+    public String getCacheKey() {
+      return cacheKey;
+    }
+
+    public String getContent() {
+      return content;
+    }
+
+    public byte[] getContentCompressed() {
+      return contentCompressed;
+    }
+
+    public String getCodec() {
+      return codec;
+    }
+
+    public Integer getDictionaryId() {
+      return dictionaryId;
+    }
+
+    public int getContentBytes() {
+      return contentBytes;
+    }
+
+    public LocalDateTime getExpiresAt() {
+      return expiresAt;
+    }
+  }
+
+  /** Hits gathered in memory for one cache key since the last flush */
+  class HitDelta {
+    private final String cacheKey;
+    private final long hits;
+    private final LocalDateTime lastAccessedAt;
+
+    public HitDelta(String cacheKey, long hits, LocalDateTime lastAccessedAt) {
+      this.cacheKey = cacheKey;
+      this.hits = hits;
+      this.lastAccessedAt = lastAccessedAt;
+    }
+
+    public String getCacheKey() {
+      return cacheKey;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public LocalDateTime getLastAccessedAt() {
+      return lastAccessedAt;
+    }
+  }
+
+  /** A row removed by eviction */
+  class EvictedEntry {
+    private final String cacheKey;
+    private final int contentBytes;
+
+    public EvictedEntry(String cacheKey, int contentBytes) {
+      this.cacheKey = cacheKey;
+      this.contentBytes = contentBytes;
+    }
+
+    public String getCacheKey() {
+      return cacheKey;
+    }
+
+    public int getContentBytes() {
+      return contentBytes;
+    }
+  }
+}
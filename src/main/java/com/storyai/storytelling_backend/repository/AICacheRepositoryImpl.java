@@ -0,0 +1,295 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.storyai.storytelling_backend.entity.AICache;
+
+/** JDBC-backed fragment of {@link AICacheRepository} */
+public class AICacheRepositoryImpl implements AICacheRepositoryCustom {
+
+  private static final String APPLY_HIT_DELTA_SQL =
+      "UPDATE ai_cache SET hit_count = hit_count + ?, "
+          + "last_accessed_at = GREATEST(COALESCE(last_accessed_at, ?), ?) "
+          + "WHERE cache_key = ?";
+
+  private static final String UPSERT_PREFIX =
+      "INSERT INTO ai_cache "
+          + "(cache_key, content, content_compressed, compression_codec, dictionary_id, "
+          + "content_bytes, created_at, expires_at, last_accessed_at, hit_count, expiry_bucket) "
+          + "VALUES ";
+  private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+  // Bulk entries carry no structured form; a rewrite drops the one parsed from the old content
+  private static final String UPSERT_SUFFIX =
+      " ON CONFLICT (cache_key, expiry_bucket) DO UPDATE SET "
+          + "content = EXCLUDED.content, "
+          + "content_compressed = EXCLUDED.content_compressed, "
+          + "compression_codec = EXCLUDED.compression_codec, "
+          + "dictionary_id = EXCLUDED.dictionary_id, "
+          + "content_bytes = EXCLUDED.content_bytes, "
+          + "structured = NULL, "
+          + "structured_version = NULL, "
+          + "expires_at = EXCLUDED.expires_at, "
+          + "last_accessed_at = EXCLUDED.last_accessed_at";
+
+  // A rewrite in another expiry day replaces the key's older copies instead of sitting beside them
+  private static final String DELETE_OTHER_BUCKETS_SQL =
+      "DELETE FROM ai_cache WHERE cache_key = ? AND expiry_bucket <> ?";
+
+  private static final String EVICTION_COLUMNS =
+      "id, content_bytes, hit_count, generation_cost_ms, last_accessed_at, created_at";
+
+  // Ranks only the least recently read rows, found through the last_accessed_at index, so a batch
+  // never scans or sorts the whole table. Entries with no recorded cost are assumed to have taken a
+  // second to generate
+  private static final String EVICT_LOWEST_VALUE_SQL =
+      "DELETE FROM ai_cache WHERE id IN ("
+          + "SELECT id FROM ("
+          + "SELECT id, content_bytes, SUM(content_bytes) OVER (ORDER BY "
+          + "(hit_count + 1) * (COALESCE(generation_cost_ms, 1000) + 1)::float8 "
+          + "/ GREATEST(content_bytes, 1) "
+          + "/ (1 + EXTRACT(EPOCH FROM (now() - COALESCE(last_accessed_at, created_at))) / 3600.0)"
+          + ", id) AS freed "
+          + "FROM ("
+          + "(SELECT " + EVICTION_COLUMNS + " FROM ai_cache "
+          + "WHERE last_accessed_at IS NULL LIMIT ?) "
+          + "UNION ALL "
+          + "(SELECT " + EVICTION_COLUMNS + " FROM ai_cache "
+          + "WHERE last_accessed_at IS NOT NULL ORDER BY last_accessed_at LIMIT ?)"
+          + ") candidates) ranked "
+          + "WHERE freed - content_bytes < ? LIMIT ?) "
+          + "RETURNING cache_key, content_bytes";
+
+  // Rows ranked per evicted row; more finds better victims among recently read entries
+  private static final int EVICTION_CANDIDATES_PER_ROW = 4;
+
+  private static final String STREAM_HOTTEST_SQL =
+      "SELECT cache_key, content, content_compressed, compression_codec, dictionary_id, "
+          + "structured, structured_version, expires_at FROM ai_cache "
+          + "WHERE expiry_bucket >= ? AND (expires_at IS NULL OR expires_at > ?) "
+          + "ORDER BY hit_count DESC, last_accessed_at DESC NULLS LAST LIMIT ?";
+
+  private static final String PARTITION_PREFIX = "ai_cache_p";
+  private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+  // Serializes partition changes across application instances
+  private static final String PARTITION_LOCK_SQL =
+      "SELECT pg_advisory_xact_lock(hashtext('ai_cache_partitions'))";
+
+  // DETACH takes ACCESS EXCLUSIVE on ai_cache; waiting behind a long reader would queue every
+  // lookup behind the DETACH, so it gives up instead and the next cleanup run tries again.
+  // DETACH ... CONCURRENTLY isn't an option while the table has a default partition
+  private static final String DETACH_LOCK_TIMEOUT_SQL = "SET LOCAL lock_timeout = '2s'";
+
+  private static final String FIND_PARTITIONS_SQL =
+      "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+          + "WHERE i.inhparent = 'ai_cache'::regclass AND c.relname LIKE 'ai_cache\\_p%'";
+
+  // Keeps each statement well under the 32767 bind-parameter limit of the Postgres protocol
+  private static final int UPSERT_ROWS_PER_STATEMENT = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AICacheRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  @Transactional
+  public int applyHitDeltas(Collection<HitDelta> deltas) {
+    if (deltas.isEmpty()) {
+      return 0;
+    }
+
+    List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+    for (HitDelta delta : deltas) {
+      Timestamp accessedAt = Timestamp.valueOf(delta.getLastAccessedAt());
+      batchArgs.add(
+          new Object[] {
+            (int) Math.min(Integer.MAX_VALUE, delta.getHits()),
+            accessedAt,
+            accessedAt,
+            delta.getCacheKey()
+          });
+    }
+
+    int updated = 0;
+    for (int count : jdbcTemplate.batchUpdate(APPLY_HIT_DELTA_SQL, batchArgs)) {
+      updated += Math.max(count, 0);
+    }
+    return updated;
+  }
+
+  @Override
+  @Transactional
+  public int upsertAll(Collection<CacheEntry> entries) {
+    if (entries.isEmpty()) {
+      return 0;
+    }
+
+    // ON CONFLICT DO UPDATE can't touch the same row twice in one statement
+    Map<String, CacheEntry> byKey = new LinkedHashMap<>();
+    for (CacheEntry entry : entries) {
+      byKey.put(entry.getCacheKey(), entry);
+    }
+
+    List<CacheEntry> unique = new ArrayList<>(byKey.values());
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    int written = 0;
+
+    List<Object[]> replacedArgs = new ArrayList<>(unique.size());
+    for (CacheEntry entry : unique) {
+      replacedArgs.add(
+          new Object[] {
+            entry.getCacheKey(), Date.valueOf(AICache.expiryBucketOf(entry.getExpiresAt()))
+          });
+    }
+    jdbcTemplate.batchUpdate(DELETE_OTHER_BUCKETS_SQL, replacedArgs);
+
+    for (int from = 0; from < unique.size(); from += UPSERT_ROWS_PER_STATEMENT) {
+      List<CacheEntry> chunk =
+          unique.subList(from, Math.min(from + UPSERT_ROWS_PER_STATEMENT, unique.size()));
+
+      StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+      List<Object> args = new ArrayList<>(chunk.size() * 10);
+      for (int i = 0; i < chunk.size(); i++) {
+        CacheEntry entry = chunk.get(i);
+        sql.append(i == 0 ? "" : ", ").append(UPSERT_ROW);
+        args.add(entry.getCacheKey());
+        args.add(new SqlParameterValue(Types.VARCHAR, entry.getContent()));
+        args.add(new SqlParameterValue(Types.BINARY, entry.getContentCompressed()));
+        args.add(new SqlParameterValue(Types.VARCHAR, entry.getCodec()));
+        args.add(new SqlParameterValue(Types.INTEGER, entry.getDictionaryId()));
+        args.add(entry.getContentBytes());
+        args.add(now);
+        args.add(
+            new SqlParameterValue(
+                Types.TIMESTAMP,
+                entry.getExpiresAt() != null ? Timestamp.valueOf(entry.getExpiresAt()) : null));
+        args.add(now);
+        args.add(Date.valueOf(AICache.expiryBucketOf(entry.getExpiresAt())));
+      }
+      sql.append(UPSERT_SUFFIX);
+
+      written += jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+    return written;
+  }
+
+  @Override
+  @Transactional
+  public List<EvictedEntry> evictLowestValue(long bytesToFree, int limit) {
+    if (bytesToFree <= 0 || limit <= 0) {
+      return List.of();
+    }
+    int candidates = (int) Math.min(Integer.MAX_VALUE, (long) limit * EVICTION_CANDIDATES_PER_ROW);
+    return jdbcTemplate.query(
+        EVICT_LOWEST_VALUE_SQL,
+        (rs, rowNum) -> new EvictedEntry(rs.getString("cache_key"), rs.getInt("content_bytes")),
+        candidates,
+        candidates,
+        bytesToFree,
+        limit);
+  }
+
+  @Override
+  public Stream<AICache> streamHottest(
+      LocalDateTime now, int limit, int fetchSize, int timeoutSeconds) {
+    JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+    streaming.setFetchSize(fetchSize);
+    streaming.setQueryTimeout(timeoutSeconds);
+    return streaming.queryForStream(
+        STREAM_HOTTEST_SQL,
+        (rs, rowNum) -> {
+          AICache cache = new AICache();
+          cache.setCacheKey(rs.getString("cache_key"));
+          cache.setContent(rs.getString("content"));
+          cache.setContentCompressed(rs.getBytes("content_compressed"));
+          cache.setCompressionCodec(rs.getString("compression_codec"));
+          cache.setDictionaryId(rs.getObject("dictionary_id", Integer.class));
+          cache.setStructured(rs.getString("structured"));
+          cache.setStructuredVersion(rs.getObject("structured_version", Short.class));
+          Timestamp expiresAt = rs.getTimestamp("expires_at");
+          cache.setExpiresAt(expiresAt != null ? expiresAt.toLocalDateTime() : null);
+          return cache;
+        },
+        Date.valueOf(now.toLocalDate()),
+        Timestamp.valueOf(now),
+        limit);
+  }
+
+  @Override
+  public List<LocalDate> findExpiryPartitions() {
+    List<LocalDate> days = new ArrayList<>();
+    for (String name : jdbcTemplate.queryForList(FIND_PARTITIONS_SQL, String.class)) {
+      days.add(LocalDate.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+    }
+    days.sort(null);
+    return days;
+  }
+
+  @Override
+  @Transactional
+  public boolean createExpiryPartition(LocalDate day) {
+    jdbcTemplate.queryForList(PARTITION_LOCK_SQL);
+    if (findExpiryPartitions().contains(day)) {
+      return false;
+    }
+
+    String name = partitionName(day);
+    jdbcTemplate.execute(
+        "CREATE TABLE "
+            + name
+            + " (LIKE ai_cache INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE)");
+    // Attaching fails while the default partition still holds rows for this day
+    jdbcTemplate.update(
+        "WITH moved AS (DELETE FROM ai_cache_default WHERE expiry_bucket = ? RETURNING *) "
+            + "INSERT INTO "
+            + name
+            + " SELECT * FROM moved",
+        Date.valueOf(day));
+    jdbcTemplate.execute(
+        "ALTER TABLE ai_cache ATTACH PARTITION "
+            + name
+            + " FOR VALUES FROM ('"
+            + day
+            + "') TO ('"
+            + day.plusDays(1)
+            + "')");
+    return true;
+  }
+
+  @Override
+  @Transactional
+  public long dropExpiryPartition(LocalDate day) {
+    jdbcTemplate.queryForList(PARTITION_LOCK_SQL);
+    if (!findExpiryPartitions().contains(day)) {
+      return -1;
+    }
+
+    String name = partitionName(day);
+    jdbcTemplate.execute(DETACH_LOCK_TIMEOUT_SQL);
+    jdbcTemplate.execute("ALTER TABLE ai_cache DETACH PARTITION " + name);
+    Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + name, Long.class);
+    jdbcTemplate.execute("DROP TABLE " + name);
+    return rows != null ? rows : 0;
+  }
+
+  private static String partitionName(LocalDate day) {
+    return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+  }
+}
@@ -0,0 +1,107 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.storyai.storytelling_backend.entity.AIGenerationJob;
+import com.storyai.storytelling_backend.entity.AIGenerationJob.Status;
+
+/**
+ * Queue of generation jobs. The transitions of a claimed job only apply while the worker still
+ * holds its lease, so a worker whose lease ran out cannot overwrite the job's next claim.
+ */
+@Repository
+public interface AIGenerationJobRepository
+    extends JpaRepository<AIGenerationJob, UUID>, AIGenerationJobRepositoryCustom {
+
+  Optional<AIGenerationJob> findByIdAndUserId(UUID id, Long userId);
+
+  long countByUserIdAndStatusIn(Long userId, Collection<Status> statuses);
+
+  /** Store the result of a job and finish it */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE ai_generation_jobs SET status = 'SUCCEEDED', result = CAST(:result AS JSONB), "
+              + "error = NULL, locked_by = NULL, locked_until = NULL, "
+              + "updated_at = LOCALTIMESTAMP, finished_at = LOCALTIMESTAMP "
+              + "WHERE id = :id AND locked_by = :workerId AND status = 'RUNNING'",
+      nativeQuery = true)
+  int complete(
+      @Param("id") UUID id, @Param("workerId") String workerId, @Param("result") String result);
+
+  /** Finish a job as failed */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE ai_generation_jobs SET status = 'FAILED', error = :error, "
+              + "locked_by = NULL, locked_until = NULL, "
+              + "updated_at = LOCALTIMESTAMP, finished_at = LOCALTIMESTAMP "
+              + "WHERE id = :id AND locked_by = :workerId AND status = 'RUNNING'",
+      nativeQuery = true)
+  int fail(@Param("id") UUID id, @Param("workerId") String workerId, @Param("error") String error);
+
+  /** Put a job back in the queue, to be claimed again after the delay */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE ai_generation_jobs SET status = 'QUEUED', "
+              + "run_after = now() + :delaySeconds * INTERVAL '1 second', "
+              + "locked_by = NULL, locked_until = NULL, updated_at = LOCALTIMESTAMP "
+              + "WHERE id = :id AND locked_by = :workerId AND status = 'RUNNING'",
+      nativeQuery = true)
+  int requeue(
+      @Param("id") UUID id,
+      @Param("workerId") String workerId,
+      @Param("delaySeconds") long delaySeconds);
+
+  /**
+   * Put every job the worker still holds back in the queue when the node shuts down; the
+   * interrupted claim does not count as an attempt
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE ai_generation_jobs SET status = 'QUEUED', run_after = now(), "
+              + "attempts = GREATEST(attempts - 1, 0), "
+              + "locked_by = NULL, locked_until = NULL, updated_at = LOCALTIMESTAMP "
+              + "WHERE locked_by = :workerId AND status = 'RUNNING'",
+      nativeQuery = true)
+  int releaseAll(@Param("workerId") String workerId);
+
+  /**
+   * Extend the lease of every job the worker is still running, so a long generation is not
+   * claimed again while it runs; jobs claimed since by another worker are left alone
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE ai_generation_jobs "
+              + "SET locked_until = now() + :leaseSeconds * INTERVAL '1 second' "
+              + "WHERE locked_by = :workerId AND status = 'RUNNING'",
+      nativeQuery = true)
+  int renewLeases(@Param("workerId") String workerId, @Param("leaseSeconds") long leaseSeconds);
+
+  /** Delete jobs that finished more than the given number of seconds ago */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "DELETE FROM ai_generation_jobs "
+              + "WHERE finished_at < LOCALTIMESTAMP - :ageSeconds * INTERVAL '1 second'",
+      nativeQuery = true)
+  int deleteFinishedBefore(@Param("ageSeconds") long ageSeconds);
+}
@@ -0,0 +1,21 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.storyai.storytelling_backend.entity.AIGenerationJob;
+
+/** Claiming of queued jobs, which needs UPDATE ... RETURNING */
+public interface AIGenerationJobRepositoryCustom {
+
+  /**
+   * Lease up to limit runnable jobs to the worker: queued jobs that are due, oldest first, and
+   * running jobs whose lease has run out. Rows another worker is claiming are skipped rather than
+   * waited for (FOR UPDATE SKIP LOCKED), so any number of workers on any number of nodes can
+   * claim at once without getting the same job.
+   */
+  List<ClaimedJob> claim(String workerId, int limit, long leaseSeconds);
+
+  /** A job leased to a worker; attempts includes this claim */
+  record ClaimedJob(UUID id, AIGenerationJob.JobType jobType, String request, int attempts) {}
+}
@@ -0,0 +1,49 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.storyai.storytelling_backend.entity.AIGenerationJob;
+
+/** JDBC-backed fragment of {@link AIGenerationJobRepository} */
+public class AIGenerationJobRepositoryImpl implements AIGenerationJobRepositoryCustom {
+
+  private static final String CLAIM_SQL =
+      "UPDATE ai_generation_jobs j "
+          + "SET status = 'RUNNING', attempts = j.attempts + 1, locked_by = ?, "
+          + "locked_until = now() + ? * INTERVAL '1 second', updated_at = LOCALTIMESTAMP "
+          + "FROM (SELECT id FROM ai_generation_jobs "
+          + "WHERE (status = 'QUEUED' AND run_after <= now()) "
+          + "OR (status = 'RUNNING' AND locked_until < now()) "
+          + "ORDER BY run_after LIMIT ? FOR UPDATE SKIP LOCKED) due "
+          + "WHERE j.id = due.id "
+          + "RETURNING j.id, j.job_type, j.request, j.attempts";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AIGenerationJobRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  @Transactional
+  public List<ClaimedJob> claim(String workerId, int limit, long leaseSeconds) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    return jdbcTemplate.query(
+        CLAIM_SQL,
+        (rs, rowNum) ->
+            new ClaimedJob(
+                rs.getObject("id", UUID.class),
+                AIGenerationJob.JobType.valueOf(rs.getString("job_type")),
+                rs.getString("request"),
+                rs.getInt("attempts")),
+        workerId,
+        leaseSeconds,
+        limit);
+  }
+}
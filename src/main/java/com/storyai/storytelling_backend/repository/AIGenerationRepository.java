@@ -0,0 +1,15 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.storyai.storytelling_backend.entity.AIGeneration;
+
+@Repository
+public interface AIGenerationRepository
+    extends JpaRepository<AIGeneration, Long>, AIGenerationRepositoryCustom {
+
+  List<AIGeneration> findBySessionIdOrderByCreatedAtDesc(Long sessionId);
+}
@@ -0,0 +1,12 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.util.Collection;
+
+import com.storyai.storytelling_backend.entity.AIGeneration;
+
+/** Bulk JDBC inserts into ai_generations */
+public interface AIGenerationRepositoryCustom {
+
+  /** Insert the records as one JDBC batch. Returns the number of rows written */
+  int insertAll(Collection<AIGeneration> generations);
+}
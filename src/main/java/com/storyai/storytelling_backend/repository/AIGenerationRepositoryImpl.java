@@ -0,0 +1,63 @@
+package com.storyai.storytelling_backend.repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.storyai.storytelling_backend.entity.AIGeneration;
+
+/** JDBC-backed fragment of {@link AIGenerationRepository} */
+public class AIGenerationRepositoryImpl implements AIGenerationRepositoryCustom {
+
+  private static final String INSERT_SQL =
+      "INSERT INTO ai_generations "
+          + "(session_id, story_id, chapter_id, request_type, provider, ai_model, prompt_hash, "
+          + "input_tokens, output_tokens, tokens_used, latency_ms, cache_outcome, succeeded, "
+          + "created_at) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AIGenerationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  @Transactional
+  public int insertAll(Collection<AIGeneration> generations) {
+    if (generations.isEmpty()) {
+      return 0;
+    }
+
+    List<Object[]> batchArgs = new ArrayList<>(generations.size());
+    for (AIGeneration generation : generations) {
+      batchArgs.add(
+          new Object[] {
+            generation.getSessionId(),
+            generation.getStoryId(),
+            generation.getChapterId(),
+            generation.getRequestType(),
+            generation.getProvider(),
+            generation.getAiModel(),
+            generation.getPromptHash(),
+            generation.getInputTokens(),
+            generation.getOutputTokens(),
+            generation.getTokensUsed(),
+            generation.getLatencyMs(),
+            generation.getCacheOutcome() != null ? generation.getCacheOutcome().name() : null,
+            generation.isSucceeded(),
+            Timestamp.valueOf(generation.getCreatedAt())
+          });
+    }
+
+    int inserted = 0;
+    for (int count : jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs)) {
+      inserted += Math.max(count, 0);
+    }
+    return inserted;
+  }
+}
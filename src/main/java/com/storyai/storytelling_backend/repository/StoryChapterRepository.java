@@ -2,8 +2,10 @@ package com.storyai.storytelling_backend.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.storyai.storytelling_backend.entity.Story;
 import com.storyai.storytelling_backend.entity.StoryChapter;
@@ -16,4 +18,8 @@ public interface StoryChapterRepository extends JpaRepository<StoryChapter, Long
   List<StoryChapter> findByStoryIdOrderByChapterNumber(Long storyId);
 
   Optional<StoryChapter> findByStoryIdAndChapterNumber(Long storyId, Integer chapterNumber);
+
+  /** Numbers of the chapters written for a story */
+  @Query("SELECT c.chapterNumber FROM StoryChapter c WHERE c.story = :story")
+  Set<Integer> findChapterNumbersByStory(Story story);
 }
@@ -4,7 +4,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.storyai.storytelling_backend.entity.Story;
 import com.storyai.storytelling_backend.entity.StorySession;
@@ -20,4 +24,21 @@ public interface StorySessionRepository extends JpaRepository<StorySession, Long
   List<StorySession> findByUserAndIsCompletedFalse(User user);
 
   List<StorySession> findByStoryIdOrderByLastPlayedDesc(Long storyId);
+
+  /**
+   * Rolling context summary of a session, without loading the session. Locks the session row
+   * until the transaction ends, so concurrent updates of the summary on any node take turns.
+   */
+  @Query(
+      value = "SELECT context_summary FROM story_sessions WHERE id = :id FOR UPDATE",
+      nativeQuery = true)
+  Optional<String> findContextSummaryForUpdate(@Param("id") Long id);
+
+  /** Replace only the context summary, leaving session data written concurrently alone */
+  @Modifying
+  @Transactional
+  @Query(
+      value = "UPDATE story_sessions SET context_summary = CAST(:summary AS JSONB) WHERE id = :id",
+      nativeQuery = true)
+  int updateContextSummary(@Param("id") Long id, @Param("summary") String summary);
 }
@@ -0,0 +1,313 @@
+package com.storyai.storytelling_backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.entity.AICache;
+import com.storyai.storytelling_backend.entity.AICacheDictionary;
+import com.storyai.storytelling_backend.repository.AICacheDictionaryRepository;
+
+/**
+ * Compresses ai_cache content with deflate and a preset dictionary trained from existing entries.
+ * Story prose repeats a lot of phrasing across chapters, so a shared dictionary helps even short
+ * entries. Decoding works for any stored row whether or not compression is currently enabled.
+ */
+@Component
+public class AICacheContentCodec {
+
+  public static final String DEFLATE = "deflate";
+
+  private static final Logger logger = LoggerFactory.getLogger(AICacheContentCodec.class);
+  private static final int MAX_DICTIONARY_BYTES = 32 * 1024; // deflate window size
+  private static final int PHRASE_WORDS = 4;
+
+  private final AICacheDictionaryRepository dictionaryRepository;
+  private final boolean enabled;
+  private final int minSizeBytes;
+  private final int level;
+
+  private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+  private volatile Integer activeDictionaryId;
+
+  private final LongAdder rawBytes = new LongAdder();
+  private final LongAdder storedBytes = new LongAdder();
+  private final LongAdder decodeCount = new LongAdder();
+  private final LongAdder decodeNanos = new LongAdder();
+
+  public AICacheContentCodec(
+      AICacheDictionaryRepository dictionaryRepository, AICacheProperties properties) {
+    this.dictionaryRepository = dictionaryRepository;
+    this.enabled = properties.getCompression().isEnabled();
+    this.minSizeBytes = properties.getCompression().getMinSizeBytes();
+    this.level = properties.getCompression().getLevel();
+  }
+
+  /** Pick up the latest trained dictionary once the application is up */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadActiveDictionary() {
+    if (!enabled) {
+      return;
+    }
+    dictionaryRepository
+        .findTopByCodecOrderByIdDesc(DEFLATE)
+        .ifPresent(
+            dictionary -> {
+              dictionaries.put(dictionary.getId(), dictionary.getDictionary());
+              activeDictionaryId = dictionary.getId();
+              logger.info("Using cache compression dictionary {}", dictionary.getId());
+            });
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean hasActiveDictionary() {
+    return activeDictionaryId != null;
+  }
+
+  /** Encode content for storage; returns it unchanged when compression doesn't pay off */
+  public Encoded encode(String content) {
+    byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+    if (!enabled || raw.length < minSizeBytes) {
+      return Encoded.plain(content, raw.length);
+    }
+
+    Integer dictionaryId = activeDictionaryId;
+    byte[] dictionary = dictionaryId != null ? dictionaries.get(dictionaryId) : null;
+    byte[] compressed = deflate(raw, dictionary);
+    if (compressed.length >= raw.length) {
+      return Encoded.plain(content, raw.length);
+    }
+
+    rawBytes.add(raw.length);
+    storedBytes.add(compressed.length);
+    return new Encoded(
+        null, compressed, DEFLATE, dictionary != null ? dictionaryId : null, compressed.length);
+  }
+
+  /** Plain-text content of a stored row */
+  public String decode(AICache cache) {
+    String codec = cache.getCompressionCodec();
+    if (codec == null) {
+      return cache.getContent();
+    }
+    if (!DEFLATE.equals(codec)) {
+      throw new IllegalStateException("Unsupported cache compression codec: " + codec);
+    }
+
+    long start = System.nanoTime();
+    String content = inflate(cache.getContentCompressed(), dictionary(cache.getDictionaryId()));
+    decodeNanos.add(System.nanoTime() - start);
+    decodeCount.increment();
+    return content;
+  }
+
+  /** Train a dictionary from sample contents, persist it and use it for new writes */
+  public Integer trainDictionary(List<String> samples) {
+    byte[] dictionary = buildDictionary(samples);
+    if (dictionary.length == 0) {
+      logger.info(
+          "Not enough repeated phrasing in {} samples to train a dictionary", samples.size());
+      return null;
+    }
+
+    AICacheDictionary saved =
+        dictionaryRepository.save(new AICacheDictionary(DEFLATE, dictionary, samples.size()));
+    dictionaries.put(saved.getId(), dictionary);
+    activeDictionaryId = saved.getId();
+    logger.info(
+        "Trained cache compression dictionary {} ({} bytes from {} samples)",
+        saved.getId(),
+        dictionary.length,
+        samples.size());
+    return saved.getId();
+  }
+
+  /** Raw bytes divided by stored bytes for content compressed since startup */
+  public double getCompressionRatio() {
+    long stored = storedBytes.sum();
+    return stored > 0 ? (double) rawBytes.sum() / stored : 0;
+  }
+
+  public double getAverageDecodeMicros() {
+    long count = decodeCount.sum();
+    return count > 0 ? decodeNanos.sum() / 1000.0 / count : 0;
+  }
+
+  // ========== PRIVATE METHODS ==========
+
+  private byte[] dictionary(Integer dictionaryId) {
+    if (dictionaryId == null) {
+      return null;
+    }
+    return dictionaries.computeIfAbsent(
+        dictionaryId,
+        id ->
+            dictionaryRepository
+                .findById(id)
+                .map(AICacheDictionary::getDictionary)
+                .orElseThrow(
+                    () -> new IllegalStateException("Missing cache dictionary with id: " + id)));
+  }
+
+  private byte[] deflate(byte[] raw, byte[] dictionary) {
+    Deflater deflater = new Deflater(level);
+    try {
+      if (dictionary != null) {
+        deflater.setDictionary(dictionary);
+      }
+      deflater.setInput(raw);
+      deflater.finish();
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private String inflate(byte[] compressed, byte[] dictionary) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 3);
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        int read = inflater.inflate(buffer);
+        if (read > 0) {
+          out.write(buffer, 0, read);
+        } else if (inflater.needsDictionary()) {
+          if (dictionary == null) {
+            throw new IllegalStateException("Compressed cache entry needs a dictionary");
+          }
+          inflater.setDictionary(dictionary);
+        } else if (inflater.needsInput()) {
+          throw new IllegalStateException("Truncated compressed cache entry");
+        }
+      }
+      return out.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt compressed cache entry", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Collect word phrases that recur across the samples. The most valuable phrases go last because
+   * deflate encodes closer back-references more cheaply.
+   */
+  static byte[] buildDictionary(List<String> samples) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (String sample : samples) {
+      List<String> words = Arrays.asList(sample.split("\\s+"));
+      for (int i = 0; i + PHRASE_WORDS <= words.size(); i++) {
+        String phrase = String.join(" ", words.subList(i, i + PHRASE_WORDS)) + " ";
+        counts.merge(phrase, 1, Integer::sum);
+      }
+    }
+
+    List<Map.Entry<String, Integer>> repeated = new ArrayList<>();
+    for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+      if (entry.getValue() > 1) {
+        repeated.add(entry);
+      }
+    }
+    repeated.sort(
+        Comparator.comparingLong(
+                (Map.Entry<String, Integer> e) -> (long) e.getValue() * e.getKey().length())
+            .reversed());
+
+    List<byte[]> chosen = new ArrayList<>();
+    int size = 0;
+    for (Map.Entry<String, Integer> entry : repeated) {
+      byte[] phrase = entry.getKey().getBytes(StandardCharsets.UTF_8);
+      if (size + phrase.length > MAX_DICTIONARY_BYTES) {
+        continue;
+      }
+      chosen.add(phrase);
+      size += phrase.length;
+    }
+    Collections.reverse(chosen);
+
+    ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+    chosen.forEach(dictionary::writeBytes);
+    return dictionary.toByteArray();
+  }
+
+  /** Storage form of one cache entry */
+  public static final class Encoded {
+    private final String content;
+    private final byte[] contentCompressed;
+    private final String codec;
+    private final Integer dictionaryId;
+    private final int storedBytes;
+
+    Encoded(
+        String content,
+        byte[] contentCompressed,
+        String codec,
+        Integer dictionaryId,
+        int storedBytes) {
+      this.content = content;
+      this.contentCompressed = contentCompressed;
+      this.codec = codec;
+      this.dictionaryId = dictionaryId;
+      this.storedBytes = storedBytes;
+    }
+
+    static Encoded plain(String content, int storedBytes) {
+      return new Encoded(content, null, null, null, storedBytes);
+    }
+
+    public boolean isCompressed() {
+      return codec != null;
+    }
+
+    public String getContent() {
+      return content;
+    }
+
+    public byte[] getContentCompressed() {
+      return contentCompressed;
+    }
+
+    public String getCodec() {
+      return codec;
+    }
+
+    public Integer getDictionaryId() {
+      return dictionaryId;
+    }
+
+    /** Bytes this entry occupies in ai_cache */
+    public int getStoredBytes() {
+      return storedBytes;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.storyai.storytelling_backend.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.repository.AICacheRepository;
+import com.storyai.storytelling_backend.repository.AICacheRepositoryCustom.HitDelta;
+
+/**
+ * Write-behind accounting for cache hits. Hits are gathered in striped in-memory counters and
+ * flushed periodically as one batched UPDATE, so the read path never writes to ai_cache. Counts
+ * are approximate: a hit racing with a flush may be dropped, and pending hits are lost if the JVM
+ * dies before the next flush.
+ */
+@Component
+public class AICacheHitRecorder {
+
+  private static final Logger logger = LoggerFactory.getLogger(AICacheHitRecorder.class);
+
+  private final AICacheRepository cacheRepository;
+  private final ConcurrentHashMap<String, PendingHits> pending = new ConcurrentHashMap<>();
+
+  public AICacheHitRecorder(AICacheRepository cacheRepository) {
+    this.cacheRepository = cacheRepository;
+  }
+
+  /** Count one hit for the key; never touches the database */
+  public void recordHit(String cacheKey) {
+    PendingHits hits = pending.computeIfAbsent(cacheKey, key -> new PendingHits());
+    hits.count.increment();
+    hits.lastAccessMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+  }
+
+  /** Number of keys with hits waiting to be flushed */
+  public int pendingKeys() {
+    return pending.size();
+  }
+
+  /** Flush pending hits. Configurable via ai.cache.hits.flush-interval-ms */
+  @Scheduled(
+      fixedDelayString = "${ai.cache.hits.flush-interval-ms:5000}",
+      initialDelayString = "${ai.cache.hits.flush-interval-ms:5000}")
+  public void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    List<HitDelta> deltas = new ArrayList<>(pending.size());
+    for (String cacheKey : pending.keySet()) {
+      PendingHits hits = pending.remove(cacheKey);
+      if (hits == null) {
+        continue;
+      }
+      long count = hits.count.sum();
+      if (count > 0) {
+        deltas.add(new HitDelta(cacheKey, count, toLocalDateTime(hits.lastAccessMillis.get())));
+      }
+    }
+
+    try {
+      int updated = cacheRepository.applyHitDeltas(deltas);
+      logger.debug("Flushed hit counts for {} keys ({} rows updated)", deltas.size(), updated);
+    } catch (Exception e) {
+      // Hit counts are advisory; drop this batch rather than let it pile up
+      logger.warn("Failed to flush {} cache hit deltas", deltas.size(), e);
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+
+  private static LocalDateTime toLocalDateTime(long epochMillis) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+  }
+
+  private static final class PendingHits {
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong lastAccessMillis = new AtomicLong();
+  }
+}
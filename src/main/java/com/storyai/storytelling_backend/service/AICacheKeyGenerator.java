@@ -0,0 +1,166 @@
+package com.storyai.storytelling_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.config.AICacheProperties.KeyScope;
+import com.storyai.storytelling_backend.config.AIProviderConfig;
+
+/**
+ * Content-addressed cache keys. The key is a SHA-256 over the canonicalized prompt plus everything
+ * else that changes the model output (provider, model, temperature, max tokens), so two requests
+ * share a cache entry exactly when they would send the same request to the provider. How widely
+ * entries are shared is controlled by ai.cache.key.scope.
+ *
+ * <p>With ai.provider=router any provider may serve a request, so the answer of one is as good as
+ * the other's: keys are then taken over the request's fields instead, which both providers turn
+ * into their own prompts, and a chapter generated by Claude is a hit for a request routed to
+ * OpenAI.
+ */
+@Component
+public class AICacheKeyGenerator {
+
+  private static final String KEY_VERSION = "v2";
+  private static final String ROUTED = "router";
+
+  private final KeyScope scope;
+  private final boolean routed;
+
+  public AICacheKeyGenerator(AICacheProperties properties, AIProviderConfig providerConfig) {
+    this.scope = properties.getKey().getScope();
+    this.routed = ROUTED.equals(providerConfig.getProvider());
+  }
+
+  public String storyKey(
+      String provider,
+      String model,
+      Double temperature,
+      Integer maxTokens,
+      GenerateStoryRequest request,
+      String prompt) {
+    String scopeId =
+        switch (scope) {
+          case GLOBAL -> null;
+          case STORY -> "st" + request.getStoryId();
+          case SESSION -> "se" + request.getSessionId();
+        };
+    if (routed) {
+      return buildKey(
+          ROUTED,
+          "story",
+          scopeId,
+          null,
+          null,
+          null,
+          fields(
+              request.getGenre(),
+              request.getTheme(),
+              request.getTone(),
+              request.getTargetLength(),
+              request.getContext()));
+    }
+    return buildKey(provider, "story", scopeId, model, temperature, maxTokens, prompt);
+  }
+
+  public String choicesKey(
+      String provider,
+      String model,
+      Double temperature,
+      Integer maxTokens,
+      GenerateChoicesRequest request,
+      String prompt) {
+    String scopeId =
+        switch (scope) {
+          case GLOBAL -> null;
+          case STORY -> "ch" + request.getChapterId();
+          case SESSION -> "se" + request.getSessionId();
+        };
+    if (routed) {
+      return buildKey(
+          ROUTED,
+          "choices",
+          scopeId,
+          null,
+          null,
+          null,
+          fields(
+              request.getCurrentSituation(),
+              request.getNumberOfChoices(),
+              request.getDifficultyLevel(),
+              request.getContext()));
+    }
+    return buildKey(provider, "choices", scopeId, model, temperature, maxTokens, prompt);
+  }
+
+  /** Stable hex digest of a prompt, also usable as a prompt hash outside the cache */
+  public String hashPrompt(String prompt) {
+    return sha256(canonicalize(prompt));
+  }
+
+  /** The request fields the providers build their prompts from, one per line */
+  private static String fields(Object... values) {
+    StringBuilder fields = new StringBuilder();
+    for (Object value : values) {
+      fields.append(value).append('\n');
+    }
+    return fields.toString();
+  }
+
+  /** Normalize the text so formatting-only differences don't split the cache */
+  static String canonicalize(String prompt) {
+    if (prompt == null) {
+      return "";
+    }
+    String normalized = Normalizer.normalize(prompt, Normalizer.Form.NFC).replace("\r\n", "\n");
+    StringBuilder canonical = new StringBuilder(normalized.length());
+    for (String line : normalized.split("\n", -1)) {
+      canonical.append(line.strip()).append('\n');
+    }
+    return canonical.toString().strip();
+  }
+
+  private String buildKey(
+      String provider,
+      String kind,
+      String scopeId,
+      String model,
+      Double temperature,
+      Integer maxTokens,
+      String prompt) {
+    // Unit separators keep field boundaries unambiguous inside the digest
+    String material =
+        String.join(
+            "\u001f",
+            KEY_VERSION,
+            provider,
+            kind,
+            String.valueOf(model),
+            String.valueOf(temperature),
+            String.valueOf(maxTokens),
+            canonicalize(prompt));
+
+    StringBuilder key = new StringBuilder();
+    key.append(provider).append(':').append(kind).append(':');
+    if (scopeId != null) {
+      key.append(scopeId).append(':');
+    }
+    return key.append(sha256(material)).toString();
+  }
+
+  private static String sha256(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * In-memory cache statistics, published through Micrometer. Lookup outcomes and latencies are
+ * counted as they happen; stored entries and bytes are kept as running estimates that the cleanup
+ * job corrects from the database hourly, so reading stats never queries ai_cache.
+ */
+@Component
+public class AICacheMetrics {
+
+  /** How a cache lookup was answered */
+  public enum Outcome {
+    /** Served from the local tier */
+    LOCAL_HIT,
+    /** Served from ai_cache */
+    HIT,
+    /** Expired entry served within the grace window while it is refreshed */
+    STALE_HIT,
+    /** Known miss answered by the local tier without a query */
+    NEGATIVE_HIT,
+    /** Nothing usable in either tier */
+    MISS
+  }
+
+  private final Counter localHits;
+  private final Counter hits;
+  private final Counter staleHits;
+  private final Counter negativeHits;
+  private final Counter misses;
+  private final Counter evictions;
+  private final Timer lookupTimer;
+
+  private final AtomicLong storedEntries = new AtomicLong();
+  private final AtomicLong storedBytes = new AtomicLong();
+
+  public AICacheMetrics(MeterRegistry meterRegistry) {
+    this.localHits = gets(meterRegistry, "hit", "local");
+    this.hits = gets(meterRegistry, "hit", "db");
+    this.staleHits = gets(meterRegistry, "hit", "stale");
+    this.negativeHits = gets(meterRegistry, "miss", "negative");
+    this.misses = gets(meterRegistry, "miss", "db");
+    this.evictions =
+        Counter.builder("ai.cache.evictions")
+            .description("Entries evicted to stay within the byte budget")
+            .register(meterRegistry);
+    this.lookupTimer =
+        Timer.builder("ai.cache.lookup")
+            .description("Time to answer a cache lookup")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+
+    Gauge.builder("ai.cache.entries", storedEntries, AtomicLong::get)
+        .description("Estimated number of stored entries")
+        .register(meterRegistry);
+    Gauge.builder("ai.cache.stored.bytes", storedBytes, AtomicLong::get)
+        .description("Estimated bytes stored in ai_cache")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("ai.cache.hit.ratio", this, AICacheMetrics::getHitRatio)
+        .description("Share of lookups answered from the cache")
+        .register(meterRegistry);
+  }
+
+  public void recordLookup(Outcome outcome, long elapsedNanos) {
+    switch (outcome) {
+      case LOCAL_HIT -> localHits.increment();
+      case HIT -> hits.increment();
+      case STALE_HIT -> staleHits.increment();
+      case NEGATIVE_HIT -> negativeHits.increment();
+      case MISS -> misses.increment();
+    }
+    lookupTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Count entries written; rewrites of an existing key are over-counted until the next refresh */
+  public void recordWrites(int entries, long bytes) {
+    storedEntries.addAndGet(entries);
+    storedBytes.addAndGet(bytes);
+  }
+
+  /** Adjust the byte estimate for an entry rewritten in place, e.g. compressed */
+  public void recordResize(long bytesDelta) {
+    storedBytes.addAndGet(bytesDelta);
+  }
+
+  /**
+   * Count expired entries removed without their sizes being read; their bytes are taken at the
+   * current average entry size until the next refresh
+   */
+  public void recordExpirations(long entries) {
+    long count = storedEntries.get();
+    if (count <= 0) {
+      return;
+    }
+    long removed = Math.min(entries, count);
+    storedEntries.addAndGet(-removed);
+    storedBytes.addAndGet(-(storedBytes.get() / count * removed));
+  }
+
+  public void recordEvictions(int entries, long bytes) {
+    evictions.increment(entries);
+    storedEntries.addAndGet(-entries);
+    storedBytes.addAndGet(-bytes);
+  }
+
+  /** Replace the running estimates with totals read from the database */
+  public void resetStorage(long entries, long bytes) {
+    storedEntries.set(entries);
+    storedBytes.set(bytes);
+  }
+
+  public long getHits() {
+    return (long) (localHits.count() + hits.count() + staleHits.count());
+  }
+
+  public long getStaleHits() {
+    return (long) staleHits.count();
+  }
+
+  public long getLocalHits() {
+    return (long) localHits.count();
+  }
+
+  public long getMisses() {
+    return (long) (negativeHits.count() + misses.count());
+  }
+
+  public long getNegativeHits() {
+    return (long) negativeHits.count();
+  }
+
+  public long getEvictions() {
+    return (long) evictions.count();
+  }
+
+  public long getStoredEntries() {
+    return Math.max(0, storedEntries.get());
+  }
+
+  public long getStoredBytes() {
+    return Math.max(0, storedBytes.get());
+  }
+
+  public double getHitRatio() {
+    long hitCount = getHits();
+    long total = hitCount + getMisses();
+    return total > 0 ? (double) hitCount / total : 0;
+  }
+
+  /** Lookup latency at the given percentile (0.5, 0.95 or 0.99), in microseconds */
+  public double getLookupPercentileMicros(double percentile) {
+    HistogramSnapshot snapshot = lookupTimer.takeSnapshot();
+    for (ValueAtPercentile value : snapshot.percentileValues()) {
+      if (value.percentile() == percentile) {
+        return value.value(TimeUnit.MICROSECONDS);
+      }
+    }
+    return 0;
+  }
+
+  private static Counter gets(MeterRegistry meterRegistry, String result, String tier) {
+    return Counter.builder("ai.cache.gets")
+        .description("Cache lookups by result and the tier that answered")
+        .tag("result", result)
+        .tag("tier", tier)
+        .register(meterRegistry);
+  }
+}
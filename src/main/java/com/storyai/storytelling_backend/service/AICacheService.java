@@ -1,15 +1,27 @@
 package com.storyai.storytelling_backend.service;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.storyai.storytelling_backend.config.AICacheProperties;
 import com.storyai.storytelling_backend.entity.AICache;
 import com.storyai.storytelling_backend.repository.AICacheRepository;
+import com.storyai.storytelling_backend.repository.AICacheRepositoryCustom.CacheEntry;
+import com.storyai.storytelling_backend.repository.AICacheRepositoryCustom.EvictedEntry;
 
 /** Service for caching AI-generated content to reduce API calls and costs */
 @Service
@@ -18,40 +30,120 @@ public class AICacheService {
 
   private static final Logger logger = LoggerFactory.getLogger(AICacheService.class);
   private static final int DEFAULT_CACHE_HOURS = 24 * 7; // 7 DAYS
+  private static final int MIN_DICTIONARY_SAMPLES = 20;
+  private static final int EXPIRED_SWEEP_BATCH_SIZE = 1000;
 
   private final AICacheRepository cacheRepository;
-
-  public AICacheService(AICacheRepository cacheRepository) {
+  private final AILocalCache localCache;
+  private final AICacheHitRecorder hitRecorder;
+  private final AICacheContentCodec contentCodec;
+  private final AICacheMetrics metrics;
+  private final StaleCacheRefresher staleRefresher;
+  private final Duration staleGrace;
+
+  public AICacheService(
+      AICacheRepository cacheRepository,
+      AILocalCache localCache,
+      AICacheHitRecorder hitRecorder,
+      AICacheContentCodec contentCodec,
+      AICacheMetrics metrics,
+      StaleCacheRefresher staleRefresher,
+      AICacheProperties properties) {
     this.cacheRepository = cacheRepository;
+    this.localCache = localCache;
+    this.hitRecorder = hitRecorder;
+    this.contentCodec = contentCodec;
+    this.metrics = metrics;
+    this.staleRefresher = staleRefresher;
+    this.staleGrace = Duration.ofMinutes(properties.getStale().getGraceMinutes());
   }
 
   /** Get cached content if available and not expired */
-  @Transactional(readOnly = true)
+  @Transactional(propagation = Propagation.SUPPORTS)
   public Optional<String> getCachedContent(String cacheKey) {
-    Optional<AICache> cached = cacheRepository.findByCacheKey(cacheKey);
+    return getCachedContent(cacheKey, null);
+  }
+
+  /**
+   * Get cached content if available. The local tier is consulted first and runs outside any
+   * transaction, so a local hit never borrows a JDBC connection. Hits are counted by {@link
+   * AICacheHitRecorder} and written back in batches, so this method never updates a row.
+   *
+   * <p>An entry that expired less than ai.cache.stale.grace-minutes ago is still returned when a
+   * refresh is given; the refresh then runs in the background to replace it.
+   */
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public Optional<String> getCachedContent(String cacheKey, Runnable refresh) {
+    return getCachedValue(cacheKey, refresh).map(CachedValue::getContent);
+  }
+
+  /**
+   * Like {@link #getCachedContent(String, Runnable)}, but also returns the structured form stored
+   * with the content, so callers can skip re-parsing it.
+   */
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public Optional<CachedValue> getCachedValue(String cacheKey, Runnable refresh) {
+    long start = System.nanoTime();
+    Optional<AILocalCache.Entry> local = localCache.get(cacheKey);
+    if (local.isPresent()) {
+      if (local.get().isMiss()) {
+        logger.debug("Local negative cache hit for key: {}", cacheKey);
+        metrics.recordLookup(AICacheMetrics.Outcome.NEGATIVE_HIT, System.nanoTime() - start);
+        return Optional.empty();
+      }
+      logger.debug("Local cache hit for key: {}", cacheKey);
+      hitRecorder.recordHit(cacheKey);
+      metrics.recordLookup(AICacheMetrics.Outcome.LOCAL_HIT, System.nanoTime() - start);
+      AILocalCache.Entry entry = local.get();
+      return Optional.of(
+          new CachedValue(
+              entry.getContent(), entry.getStructured(), entry.getStructuredVersion()));
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    Optional<AICache> cached =
+        cacheRepository.findLiveByCacheKey(cacheKey, now.minus(staleGrace).toLocalDate());
 
     if (cached.isEmpty()) {
       logger.debug("Cache miss for key: {}", cacheKey);
+      localCache.putMiss(cacheKey);
+      metrics.recordLookup(AICacheMetrics.Outcome.MISS, System.nanoTime() - start);
       return Optional.empty();
     }
 
     AICache cache = cached.get();
 
-    // Check if expired
-    if (cache.getExpiresAt() != null && cache.getExpiresAt().isBefore(LocalDateTime.now())) {
+    // Check if expired; the row goes away with its partition
+    if (cache.getExpiresAt() != null && cache.getExpiresAt().isBefore(now)) {
+      if (refresh != null && cache.getExpiresAt().plus(staleGrace).isAfter(now)) {
+        // Not put in the local tier, so readers keep seeing it as stale until the refresh lands
+        String stale = contentCodec.decode(cache);
+        hitRecorder.recordHit(cacheKey);
+        staleRefresher.refresh(cacheKey, refresh);
+        metrics.recordLookup(AICacheMetrics.Outcome.STALE_HIT, System.nanoTime() - start);
+        logger.debug("Serving stale cache entry for key: {}", cacheKey);
+        return Optional.of(
+            new CachedValue(stale, cache.getStructured(), cache.getStructuredVersion()));
+      }
       logger.debug("Cache Expired for the key: {}", cacheKey);
-      cacheRepository.delete(cache);
+      localCache.putMiss(cacheKey);
+      metrics.recordLookup(AICacheMetrics.Outcome.MISS, System.nanoTime() - start);
       return Optional.empty();
     }
 
-    // Update hit count and last access time
-
-    cache.setHitCount(cache.getHitCount() + 1);
-    cache.setLastAccessedAt(LocalDateTime.now());
-    cacheRepository.save(cache);
-
-    logger.debug("Cache hit for key: {}", cacheKey, cache.getHitCount());
-    return Optional.of(cache.getContent());
+    String content = contentCodec.decode(cache);
+    hitRecorder.recordHit(cacheKey);
+    localCache.put(
+        cacheKey,
+        content,
+        cache.getStructured(),
+        cache.getStructuredVersion(),
+        cache.getExpiresAt());
+    metrics.recordLookup(AICacheMetrics.Outcome.HIT, System.nanoTime() - start);
+
+    logger.debug("Cache hit for key: {}", cacheKey);
+    return Optional.of(
+        new CachedValue(content, cache.getStructured(), cache.getStructuredVersion()));
   }
 
   /** Cache content with default expiration time */
@@ -59,59 +151,353 @@ public class AICacheService {
     cacheContent(cacheKey, content, DEFAULT_CACHE_HOURS);
   }
 
-  /** Cache content with custom expiration time */
+  /** Cache freshly generated content, recording how long the provider took for eviction */
+  public void cacheContent(String cacheKey, String content, Duration generationTime) {
+    cacheContent(cacheKey, content, null, null, generationTime);
+  }
+
+  /**
+   * Cache freshly generated content together with its structured form (JSON) at the given schema
+   * version, so later hits can skip parsing the content.
+   */
+  public void cacheContent(
+      String cacheKey,
+      String content,
+      String structured,
+      Short structuredVersion,
+      Duration generationTime) {
+    cacheContent(
+        cacheKey,
+        content,
+        structured,
+        structuredVersion,
+        DEFAULT_CACHE_HOURS,
+        (int) Math.min(Integer.MAX_VALUE, generationTime.toMillis()));
+  }
+
+  /**
+   * Cache content with custom expiration time. A single INSERT ... ON CONFLICT statement, so
+   * concurrent writers for the same key never race on the unique constraint.
+   */
   public void cacheContent(String cacheKey, String content, int expirationHours) {
-    // Check if already exists
-    Optional<AICache> existing = cacheRepository.findByCacheKey(cacheKey);
+    cacheContent(cacheKey, content, null, null, expirationHours, null);
+  }
+
+  private void cacheContent(
+      String cacheKey,
+      String content,
+      String structured,
+      Short structuredVersion,
+      int expirationHours,
+      Integer generationCostMs) {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime expiresAt = now.plusHours(expirationHours);
+
+    AICacheContentCodec.Encoded encoded = contentCodec.encode(content);
+    cacheRepository.upsert(
+        cacheKey,
+        encoded.getContent(),
+        encoded.getContentCompressed(),
+        encoded.getCodec(),
+        encoded.getDictionaryId(),
+        encoded.getStoredBytes(),
+        generationCostMs,
+        structured,
+        structuredVersion != null ? structuredVersion.intValue() : null,
+        now,
+        expiresAt);
+    localCache.put(cacheKey, content, structured, structuredVersion, expiresAt);
+    metrics.recordWrites(1, encoded.getStoredBytes());
+    logger.debug("Cached content for key: {}", cacheKey);
+  }
 
-    AICache cache;
-    if (existing.isPresent()) {
-      cache = existing.get();
-      cache.setCacheKey(content);
-      cache.setExpiresAt(LocalDateTime.now().plusHours(expirationHours));
-      logger.debug("Updated cache for Key: {}", cacheKey);
-    } else {
-      cache = new AICache();
-      cache.setCacheKey(cacheKey);
-      cache.setContent(content);
-      cache.setCreatedAt(LocalDateTime.now());
-      cache.setExpiresAt(LocalDateTime.now().plusHours(expirationHours));
-      cache.setHitCount(0);
-      logger.debug("Created new cache entry for the Key: {}", cacheKey);
+  /**
+   * Lazily upgrade an entry whose structured form was missing or older than version, after the
+   * caller re-parsed its content. Only rows still below that version are touched.
+   */
+  public void upgradeStructured(
+      String cacheKey, String content, String structured, short version) {
+    LocalDateTime now = LocalDateTime.now();
+    int upgraded =
+        cacheRepository.upgradeStructured(
+            cacheKey, structured, version, now.minus(staleGrace).toLocalDate());
+    // The local copy is upgraded even when another instance already upgraded the rows
+    localCache
+        .get(cacheKey)
+        .filter(entry -> !entry.isMiss() && content.equals(entry.getContent()))
+        .ifPresent(
+            entry ->
+                localCache.put(cacheKey, content, structured, version, entry.getExpiresAt()));
+    if (upgraded > 0) {
+      logger.debug("Upgraded structured cache entry for key: {} to v{}", cacheKey, version);
     }
+  }
 
-    cache.setLastAccessedAt(LocalDateTime.now());
-    cacheRepository.save(cache);
+  /** Bulk-load many entries with the same expiration time */
+  public int cacheContentAll(Map<String, String> contentByKey, int expirationHours) {
+    LocalDateTime expiresAt = LocalDateTime.now().plusHours(expirationHours);
+
+    List<CacheEntry> entries = new ArrayList<>(contentByKey.size());
+    contentByKey.forEach(
+        (key, content) -> {
+          AICacheContentCodec.Encoded encoded = contentCodec.encode(content);
+          entries.add(
+              new CacheEntry(
+                  key,
+                  encoded.getContent(),
+                  encoded.getContentCompressed(),
+                  encoded.getCodec(),
+                  encoded.getDictionaryId(),
+                  encoded.getStoredBytes(),
+                  expiresAt));
+        });
+
+    int written = cacheRepository.upsertAll(entries);
+    metrics.recordWrites(
+        written, entries.stream().mapToLong(CacheEntry::getContentBytes).sum());
+    contentByKey.forEach((key, content) -> localCache.put(key, content, expiresAt));
+    logger.debug("Bulk cached {} entries", written);
+    return written;
   }
 
   /** Invalidate (delete) cache content */
   public void invalidateCache(String cacheKey) {
-    cacheRepository
-        .findByCacheKey(cacheKey)
-        .ifPresent(
-            cache -> {
-              cacheRepository.delete(cache);
-              logger.debug("Invalidated cache for key: {}", cacheKey);
-            });
+    localCache.invalidate(cacheKey);
+    if (cacheRepository.deleteByCacheKey(cacheKey) > 0) {
+      logger.debug("Invalidated cache for key: {}", cacheKey);
+    }
+  }
+
+  /**
+   * Make sure a partition exists for every expiry day from today through daysAhead days out, so
+   * new entries don't pile up in the default partition. Returns the number of partitions created.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int ensureExpiryPartitions(int daysAhead) {
+    LocalDate today = LocalDate.now();
+    int created = 0;
+    for (int day = 0; day <= daysAhead; day++) {
+      if (cacheRepository.createExpiryPartition(today.plusDays(day))) {
+        created++;
+      }
+    }
+    if (created > 0) {
+      logger.info("Created {} cache expiry partitions", created);
+    }
+    return created;
+  }
+
+  /**
+   * Detach and drop every partition whose expiry day, plus the stale grace window, is over; all of
+   * its rows have expired and can no longer be served stale. Stops early, leaving the rest to the
+   * next run, if long-running readers keep the table locked. Returns the number of entries dropped.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public long dropExpiredPartitions() {
+    LocalDateTime now = LocalDateTime.now();
+    long dropped = 0;
+    for (LocalDate day : cacheRepository.findExpiryPartitions()) {
+      if (day.plusDays(1).atStartOfDay().plus(staleGrace).isAfter(now)) {
+        break;
+      }
+      long rows;
+      try {
+        rows = cacheRepository.dropExpiryPartition(day);
+      } catch (DataAccessException e) {
+        logger.warn("Could not drop the {} cache partition, trying again next run", day, e);
+        break;
+      }
+      if (rows >= 0) {
+        logger.info("Dropped cache expiry partition for {} ({} entries)", day, rows);
+        dropped += rows;
+      }
+    }
+    metrics.recordExpirations(dropped);
+    return dropped;
   }
 
-  /** Clear all expired cache entries */
+  /** Delete one bounded batch of expired default-partition entries in its own transaction */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int sweepExpiredBatch(int batchSize) {
+    int deleted =
+        cacheRepository.deleteExpiredBatch(LocalDateTime.now().minus(staleGrace), batchSize);
+    metrics.recordExpirations(deleted);
+    return deleted;
+  }
+
+  /**
+   * Clear all expired cache entries: drop expired partitions, then sweep the default partition in
+   * batches that each commit on their own.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public int clearExpiredCache() {
-    int deleted = cacheRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+    int deleted = (int) Math.min(Integer.MAX_VALUE, dropExpiredPartitions());
+    int batch;
+    do {
+      batch = sweepExpiredBatch(EXPIRED_SWEEP_BATCH_SIZE);
+      deleted += batch;
+    } while (batch == EXPIRED_SWEEP_BATCH_SIZE);
     logger.info("cleared {} expired cache entries", deleted);
     return deleted;
   }
 
-  /** Get cache statistics */
+  /**
+   * Evict the lowest-value entries until the table's stored bytes fit within maxBytes. Works in
+   * batches of at most batchSize rows and stops after maxBatches, so a large overshoot is worked
+   * off over several runs instead of in one long statement, each batch committing on its own. The
+   * stored size is read from ai_cache at the start of each run, as every node writes to the table,
+   * and corrects the in-memory estimates. Returns the number of rows evicted.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int evictToBudget(long maxBytes, int batchSize, int maxBatches) {
+    AICacheRepository.StorageTotals totals = cacheRepository.storageTotals();
+    metrics.resetStorage(totals.getEntries(), totals.getBytes());
+    long totalBytes = totals.getBytes();
+    int evicted = 0;
+
+    for (int batch = 0; batch < maxBatches && totalBytes > maxBytes; batch++) {
+      List<EvictedEntry> removed =
+          cacheRepository.evictLowestValue(totalBytes - maxBytes, batchSize);
+      if (removed.isEmpty()) {
+        break;
+      }
+      long freed = 0;
+      for (EvictedEntry entry : removed) {
+        localCache.invalidate(entry.getCacheKey());
+        freed += entry.getContentBytes();
+      }
+      metrics.recordEvictions(removed.size(), freed);
+      totalBytes -= freed;
+      evicted += removed.size();
+    }
+
+    if (evicted > 0) {
+      logger.info("Evicted {} cache entries, {} bytes now stored", evicted, totalBytes);
+    }
+    return evicted;
+  }
+
+  /**
+   * Train the shared compression dictionary from a sample of plain-text entries. Returns false when
+   * there weren't enough samples to train from.
+   */
+  public boolean trainCompressionDictionary(int sampleSize, int minSizeBytes) {
+    List<String> samples =
+        cacheRepository.findUncompressedAfter(0, minSizeBytes, sampleSize).stream()
+            .map(AICache::getContent)
+            .toList();
+    if (samples.size() < MIN_DICTIONARY_SAMPLES) {
+      return false;
+    }
+    return contentCodec.trainDictionary(samples) != null;
+  }
+
+  /**
+   * Compress one batch of plain-text entries stored before compression was enabled. Returns the
+   * last id examined, or 0 once there is nothing left after afterId.
+   */
+  public long compressStoredContent(long afterId, int batchSize, int minSizeBytes) {
+    List<AICache> batch = cacheRepository.findUncompressedAfter(afterId, minSizeBytes, batchSize);
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    int compressed = 0;
+    for (AICache cache : batch) {
+      AICacheContentCodec.Encoded encoded = contentCodec.encode(cache.getContent());
+      if (encoded.isCompressed()
+          && cacheRepository.compressInPlace(
+                  cache.getId(),
+                  cache.getContent(),
+                  encoded.getContentCompressed(),
+                  encoded.getCodec(),
+                  encoded.getDictionaryId())
+              > 0) {
+        metrics.recordResize(encoded.getContentCompressed().length - cache.getContentBytes());
+        compressed++;
+      }
+    }
+    logger.debug("Compressed {} of {} stored cache entries", compressed, batch.size());
+    return batch.get(batch.size() - 1).getId();
+  }
+
+  /**
+   * Load the hottest live entries into the local tier, streaming them through a cursor. Stops at
+   * maxEntries, once the loaded entries would exceed maxBytes of local cache weight, or when the
+   * time budget runs out. Returns the number of entries loaded.
+   */
+  @Transactional(readOnly = true)
+  public int warmLocalCache(int maxEntries, long maxBytes, Duration budget, int fetchSize) {
+    long deadline = System.nanoTime() + budget.toNanos();
+    int timeoutSeconds = (int) Math.max(1, budget.toSeconds());
+    int loaded = 0;
+    long bytes = 0;
+    String stopReason = "no more entries";
+
+    try (Stream<AICache> hottest =
+        cacheRepository.streamHottest(LocalDateTime.now(), maxEntries, fetchSize, timeoutSeconds)) {
+      Iterator<AICache> rows = hottest.iterator();
+      while (rows.hasNext()) {
+        if (System.nanoTime() > deadline) {
+          stopReason = "time budget";
+          break;
+        }
+        AICache cache = rows.next();
+        String content = contentCodec.decode(cache);
+        int weight = AILocalCache.weigh(cache.getCacheKey(), content, cache.getStructured());
+        if (bytes + weight > maxBytes) {
+          stopReason = "memory budget";
+          break;
+        }
+        localCache.put(
+            cache.getCacheKey(),
+            content,
+            cache.getStructured(),
+            cache.getStructuredVersion(),
+            cache.getExpiresAt());
+        bytes += weight;
+        loaded++;
+      }
+    }
+
+    logger.info(
+        "Warmed local cache with {} entries ({} bytes), stopped on {}", loaded, bytes, stopReason);
+    return loaded;
+  }
+
+  /** Correct the in-memory entry and byte estimates with one aggregate query over ai_cache */
   @Transactional(readOnly = true)
+  public void refreshStorageStats() {
+    AICacheRepository.StorageTotals totals = cacheRepository.storageTotals();
+    metrics.resetStorage(totals.getEntries(), totals.getBytes());
+  }
+
+  /**
+   * Get cache statistics from in-memory counters; never queries the database. Hit and miss counts
+   * cover lookups since this instance started; entries and bytes are estimates refreshed by the
+   * cleanup job.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public CacheStats getCacheStats() {
-    long totalEntries = cacheRepository.count();
-    long totalHits = cacheRepository.sumAllHitCounts();
+    long totalEntries = metrics.getStoredEntries();
+    long totalHits = metrics.getHits();
 
     CacheStats stats = new CacheStats();
     stats.setTotalEntries(totalEntries);
     stats.setTotalHits(totalHits);
     stats.setAverageHitsPerEntry(totalEntries > 0 ? (double) totalHits / totalEntries : 0);
+    stats.setLocalHits(metrics.getLocalHits());
+    stats.setStaleHits(metrics.getStaleHits());
+    stats.setMisses(metrics.getMisses());
+    stats.setNegativeHits(metrics.getNegativeHits());
+    stats.setHitRatio(metrics.getHitRatio());
+    stats.setEvictions(metrics.getEvictions());
+    stats.setStoredBytes(metrics.getStoredBytes());
+    stats.setLookupP50Micros(metrics.getLookupPercentileMicros(0.5));
+    stats.setLookupP95Micros(metrics.getLookupPercentileMicros(0.95));
+    stats.setLookupP99Micros(metrics.getLookupPercentileMicros(0.99));
+    stats.setCompressionRatio(contentCodec.getCompressionRatio());
+    stats.setAverageDecodeMicros(contentCodec.getAverageDecodeMicros());
 
     return stats;
   }
@@ -119,14 +505,53 @@ public class AICacheService {
   /** Clear all cache (use with caution!) */
   public void clearAllCache() {
     cacheRepository.deleteAll();
+    localCache.invalidateAll();
+    metrics.resetStorage(0, 0);
     logger.warn("Cleared ALL cache entries");
   }
 
+  /** Cached content with its structured form; structured is null when never stored */
+  public static class CachedValue {
+    private final String content;
+    private final String structured;
+    private final Short structuredVersion;
+
+    public CachedValue(String content, String structured, Short structuredVersion) {
+      this.content = content;
+      this.structured = structured;
+      this.structuredVersion = structuredVersion;
+    }
+
+    public String getContent() {
+      return content;
+    }
+
+    public String getStructured() {
+      return structured;
+    }
+
+    public Short getStructuredVersion() {
+      return structuredVersion;
+    }
+  }
+
   /** INNER CLASS */
   public static class CacheStats {
     private long totalEntries;
     private long totalHits;
     private double averageHitsPerEntry;
+    private long localHits;
+    private long staleHits;
+    private long misses;
+    private long negativeHits;
+    private double hitRatio;
+    private long evictions;
+    private long storedBytes;
+    private double lookupP50Micros;
+    private double lookupP95Micros;
+    private double lookupP99Micros;
+    private double compressionRatio;
+    private double averageDecodeMicros;
 
     public CacheStats() {
       this.totalEntries = 0;
@@ -164,5 +589,101 @@ public class AICacheService {
     public void setAverageHitsPerEntry(double averageHitsPerEntry) {
       this.averageHitsPerEntry = averageHitsPerEntry;
     }
+
+    public long getLocalHits() {
+      return localHits;
+    }
+
+    public void setLocalHits(long localHits) {
+      this.localHits = localHits;
+    }
+
+    public long getStaleHits() {
+      return staleHits;
+    }
+
+    public void setStaleHits(long staleHits) {
+      this.staleHits = staleHits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public void setMisses(long misses) {
+      this.misses = misses;
+    }
+
+    public long getNegativeHits() {
+      return negativeHits;
+    }
+
+    public void setNegativeHits(long negativeHits) {
+      this.negativeHits = negativeHits;
+    }
+
+    public double getHitRatio() {
+      return hitRatio;
+    }
+
+    public void setHitRatio(double hitRatio) {
+      this.hitRatio = hitRatio;
+    }
+
+    public long getEvictions() {
+      return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+      this.evictions = evictions;
+    }
+
+    public long getStoredBytes() {
+      return storedBytes;
+    }
+
+    public void setStoredBytes(long storedBytes) {
+      this.storedBytes = storedBytes;
+    }
+
+    public double getLookupP50Micros() {
+      return lookupP50Micros;
+    }
+
+    public void setLookupP50Micros(double lookupP50Micros) {
+      this.lookupP50Micros = lookupP50Micros;
+    }
+
+    public double getLookupP95Micros() {
+      return lookupP95Micros;
+    }
+
+    public void setLookupP95Micros(double lookupP95Micros) {
+      this.lookupP95Micros = lookupP95Micros;
+    }
+
+    public double getLookupP99Micros() {
+      return lookupP99Micros;
+    }
+
+    public void setLookupP99Micros(double lookupP99Micros) {
+      this.lookupP99Micros = lookupP99Micros;
+    }
+
+    public double getCompressionRatio() {
+      return compressionRatio;
+    }
+
+    public void setCompressionRatio(double compressionRatio) {
+      this.compressionRatio = compressionRatio;
+    }
+
+    public double getAverageDecodeMicros() {
+      return averageDecodeMicros;
+    }
+
+    public void setAverageDecodeMicros(double averageDecodeMicros) {
+      this.averageDecodeMicros = averageDecodeMicros;
+    }
   }
 }
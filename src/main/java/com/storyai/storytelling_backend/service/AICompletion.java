@@ -0,0 +1,29 @@
+package com.storyai.storytelling_backend.service;
+
+/** Text returned by a provider call, with the token usage the provider reported */
+public class AICompletion {
+
+  private final String content;
+  private final Integer inputTokens;
+  private final Integer outputTokens;
+
+  public AICompletion(String content, Integer inputTokens, Integer outputTokens) {
+    this.content = content;
+    this.inputTokens = inputTokens;
+    this.outputTokens = outputTokens;
+  }
+
+  public String getContent() {
+    return content;
+  }
+
+  /** Prompt tokens, or null when the provider didn't report usage */
+  public Integer getInputTokens() {
+    return inputTokens;
+  }
+
+  /** Completion tokens, or null when the provider didn't report usage */
+  public Integer getOutputTokens() {
+    return outputTokens;
+  }
+}
@@ -0,0 +1,222 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bulkhead in front of each AI provider. The number of concurrent calls per provider is capped by
+ * a limit that adapts AIMD style: it grows by one per limit's worth of successful calls made while
+ * the limit was in use, and shrinks by ai.resilience.concurrency.backoff-ratio when a call fails
+ * with a 429, 5xx or I/O error or takes latency-tolerance times longer than usual. Callers beyond
+ * the limit wait in a bounded queue until their deadline; anything more is rejected with {@link
+ * AIServiceUnavailableException}, which the API turns into 503 with Retry-After.
+ */
+@Component
+public class AIConcurrencyLimiter {
+
+  private static final Logger logger = LoggerFactory.getLogger(AIConcurrencyLimiter.class);
+  private static final int MAX_RETRY_AFTER_SECONDS = 30;
+
+  private final AIResilienceProperties.Concurrency properties;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentHashMap<String, ProviderLimit> limits = new ConcurrentHashMap<>();
+
+  public AIConcurrencyLimiter(AIResilienceProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties.getConcurrency();
+    this.meterRegistry = meterRegistry;
+  }
+
+  /** Run a provider call once a slot is free, feeding its outcome back into the limit */
+  public <T> T execute(String provider, Supplier<T> call) {
+    if (!properties.isEnabled()) {
+      return call.get();
+    }
+
+    ProviderLimit limit = limits.computeIfAbsent(provider, this::newLimit);
+    limit.acquire();
+    long start = System.nanoTime();
+    boolean overloaded = false;
+    boolean judged = true;
+    try {
+      return call.get();
+    } catch (RuntimeException e) {
+      overloaded = isOverload(e);
+      // Failures that say nothing about provider load (bad request, bad key) leave the limit alone
+      judged = overloaded;
+      throw e;
+    } finally {
+      limit.release(System.nanoTime() - start, judged, overloaded);
+    }
+  }
+
+  /** Current limit for the provider, or the initial limit before its first call */
+  public int currentLimit(String provider) {
+    ProviderLimit limit = limits.get(provider);
+    return limit != null ? limit.effectiveLimit() : properties.getInitialLimit();
+  }
+
+  /** Whether the failure means the provider is overloaded, looking through wrapping exceptions */
+  static boolean isOverload(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof HttpServerErrorException || cause instanceof ResourceAccessException) {
+        return true;
+      }
+      if (cause instanceof RestClientResponseException responseException
+          && responseException.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private ProviderLimit newLimit(String provider) {
+    ProviderLimit limit = new ProviderLimit(provider);
+    Gauge.builder("ai.provider.concurrency.limit", limit, ProviderLimit::effectiveLimit)
+        .description("Adaptive limit on concurrent calls to the AI provider")
+        .tag("provider", provider)
+        .register(meterRegistry);
+    Gauge.builder("ai.provider.concurrency.in.flight", limit, ProviderLimit::inFlight)
+        .description("Calls to the AI provider in progress")
+        .tag("provider", provider)
+        .register(meterRegistry);
+    Gauge.builder("ai.provider.concurrency.queued", limit, ProviderLimit::waiting)
+        .description("Callers waiting for a slot to call the AI provider")
+        .tag("provider", provider)
+        .register(meterRegistry);
+    return limit;
+  }
+
+  /** Limit, in-flight count and wait queue of one provider */
+  private final class ProviderLimit {
+    private final String provider;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition slotFreed = lock.newCondition();
+    private final Counter rejected;
+
+    private double limit = properties.getInitialLimit();
+    private int inFlight;
+    private int waiting;
+    private double usualLatencyMillis; // moving average of successful calls, 0 until the first
+
+    private ProviderLimit(String provider) {
+      this.provider = provider;
+      this.rejected =
+          Counter.builder("ai.provider.concurrency.rejected")
+              .description("Calls rejected because the AI provider was at its concurrency limit")
+              .tag("provider", provider)
+              .register(meterRegistry);
+    }
+
+    void acquire() {
+      lock.lock();
+      try {
+        // Queue behind earlier waiters even if a slot just freed up
+        if (waiting == 0 && inFlight < effectiveLimit()) {
+          inFlight++;
+          return;
+        }
+        if (waiting >= properties.getMaxQueue()) {
+          throw reject();
+        }
+
+        waiting++;
+        try {
+          long remainingNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMs());
+          while (inFlight >= effectiveLimit()) {
+            if (remainingNanos <= 0) {
+              throw reject();
+            }
+            remainingNanos = slotFreed.awaitNanos(remainingNanos);
+          }
+          inFlight++;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CancellationException("Interrupted while waiting to call " + provider);
+        } finally {
+          waiting--;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void release(long elapsedNanos, boolean judged, boolean overloaded) {
+      double latencyMillis = elapsedNanos / 1_000_000.0;
+      lock.lock();
+      try {
+        boolean slow =
+            usualLatencyMillis > 0
+                && latencyMillis > usualLatencyMillis * properties.getLatencyTolerance();
+        if (judged && (overloaded || slow)) {
+          double reduced = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+          if ((int) reduced < (int) limit) {
+            logger.info(
+                "Lowering {} concurrency limit to {} after an {} call",
+                provider,
+                (int) reduced,
+                overloaded ? "overloaded" : "unusually slow");
+          }
+          limit = reduced;
+        } else if (judged && inFlight * 2 >= effectiveLimit()) {
+          // Only grow while the limit is actually being used
+          limit = Math.min(properties.getMaxLimit(), limit + 1.0 / limit);
+        }
+        if (!overloaded && judged) {
+          usualLatencyMillis =
+              usualLatencyMillis == 0
+                  ? latencyMillis
+                  : usualLatencyMillis + 0.05 * (latencyMillis - usualLatencyMillis);
+        }
+        inFlight--;
+        slotFreed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    int effectiveLimit() {
+      return Math.max(properties.getMinLimit(), (int) limit);
+    }
+
+    int inFlight() {
+      return inFlight;
+    }
+
+    int waiting() {
+      return waiting;
+    }
+
+    private AIServiceUnavailableException reject() {
+      rejected.increment();
+      // A slot frees up roughly once a usual call has completed
+      int retryAfterSeconds =
+          (int)
+              Math.min(
+                  MAX_RETRY_AFTER_SECONDS, Math.max(1, Math.ceil(usualLatencyMillis / 1000.0)));
+      logger.warn("{} is at its concurrency limit of {}, rejecting call", provider, (int) limit);
+      return new AIServiceUnavailableException(
+          "The AI provider is at capacity, try again shortly",
+          "AI_PROVIDER_SATURATED",
+          retryAfterSeconds);
+    }
+  }
+}
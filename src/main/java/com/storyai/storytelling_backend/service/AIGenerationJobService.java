@@ -0,0 +1,179 @@
+package com.storyai.storytelling_backend.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.DTO.CreateGenerationJobRequest;
+import com.storyai.storytelling_backend.DTO.GenerationJobResponse;
+import com.storyai.storytelling_backend.config.AIJobProperties;
+import com.storyai.storytelling_backend.entity.AIGenerationJob;
+import com.storyai.storytelling_backend.entity.AIGenerationJob.Status;
+import com.storyai.storytelling_backend.exception.NotFoundException;
+import com.storyai.storytelling_backend.exception.RateLimitException;
+import com.storyai.storytelling_backend.repository.AIGenerationJobRepository;
+
+/**
+ * Submission of generation jobs and delivery of their results, by polling or server-sent events.
+ * A job's events stream gets a "status" event with the job as it is, then one "done" event once
+ * it succeeded or an "error" event once it failed. The job may run on any node, so watched jobs
+ * are looked up together every ai.generation.jobs.poll-interval-ms rather than waited on.
+ */
+@Service
+public class AIGenerationJobService {
+
+  private static final Logger logger = LoggerFactory.getLogger(AIGenerationJobService.class);
+
+  private final AIJobProperties properties;
+  private final AIGenerationJobRepository jobRepository;
+  private final AIGenerationJobWorker worker;
+  private final ObjectMapper objectMapper;
+  private final Map<UUID, List<SseEmitter>> watchers = new ConcurrentHashMap<>();
+
+  public AIGenerationJobService(
+      AIJobProperties properties,
+      AIGenerationJobRepository jobRepository,
+      AIGenerationJobWorker worker,
+      ObjectMapper objectMapper) {
+    this.properties = properties;
+    this.jobRepository = jobRepository;
+    this.worker = worker;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Queue the generation and return the job at once. A user with ai.generation.jobs
+   * .max-active-per-user jobs queued or running is turned away; the count is read before the
+   * insert, so submissions racing each other can go a few over it.
+   */
+  public GenerationJobResponse submit(CreateGenerationJobRequest request, Long userId) {
+    long active =
+        jobRepository.countByUserIdAndStatusIn(userId, EnumSet.of(Status.QUEUED, Status.RUNNING));
+    if (active >= properties.getMaxActivePerUser()) {
+      logger.warn("User {} already has {} generation jobs pending, rejecting job", userId, active);
+      throw new RateLimitException(
+          "Too many generation jobs pending, try again once some have finished",
+          properties.getRejectedRetryAfterSeconds());
+    }
+
+    String payload;
+    try {
+      payload = objectMapper.writeValueAsString(request.getPayload());
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Unserializable generation request", e);
+    }
+
+    AIGenerationJob job =
+        jobRepository.save(new AIGenerationJob(request.getType(), userId, payload));
+    worker.wakeUp();
+    logger.info("Queued {} generation job {}", job.getJobType(), job.getId());
+    return GenerationJobResponse.from(job);
+  }
+
+  /** The user's job as it is now */
+  public GenerationJobResponse getJob(UUID id, Long userId) {
+    return GenerationJobResponse.from(findJob(id, userId));
+  }
+
+  /** Stream the user's job until it finishes */
+  public SseEmitter watch(UUID id, Long userId) {
+    AIGenerationJob job = findJob(id, userId);
+    SseEmitter emitter =
+        new SseEmitter(Duration.ofSeconds(properties.getEventsTimeoutSeconds()).toMillis());
+    if (!send(emitter, "status", job)) {
+      return emitter;
+    }
+    if (job.getStatus().isFinished()) {
+      finish(emitter, job);
+      return emitter;
+    }
+
+    watchers.computeIfAbsent(id, key -> new CopyOnWriteArrayList<>()).add(emitter);
+    Runnable unwatch = () -> unwatch(id, emitter);
+    emitter.onCompletion(unwatch);
+    emitter.onTimeout(unwatch);
+    emitter.onError(e -> unwatch.run());
+    return emitter;
+  }
+
+  /** Send the outcome of watched jobs that have finished. Configurable via poll-interval-ms */
+  @Scheduled(
+      fixedDelayString = "${ai.generation.jobs.poll-interval-ms:500}",
+      initialDelayString = "${ai.generation.jobs.poll-interval-ms:500}")
+  public void publishFinished() {
+    if (watchers.isEmpty()) {
+      return;
+    }
+
+    List<AIGenerationJob> jobs;
+    try {
+      jobs = jobRepository.findAllById(List.copyOf(watchers.keySet()));
+    } catch (Exception e) {
+      logger.warn("Failed to look up watched generation jobs", e);
+      return;
+    }
+    for (AIGenerationJob job : jobs) {
+      if (job.getStatus().isFinished()) {
+        List<SseEmitter> emitters = watchers.remove(job.getId());
+        if (emitters != null) {
+          emitters.forEach(emitter -> finish(emitter, job));
+        }
+      }
+    }
+  }
+
+  /** Number of jobs with an open events stream on this node */
+  public int watchedCount() {
+    return watchers.size();
+  }
+
+  private AIGenerationJob findJob(UUID id, Long userId) {
+    return jobRepository
+        .findByIdAndUserId(id, userId)
+        .orElseThrow(() -> new NotFoundException("Generation job not found: " + id));
+  }
+
+  private void unwatch(UUID id, SseEmitter emitter) {
+    watchers.computeIfPresent(
+        id,
+        (key, emitters) -> {
+          emitters.remove(emitter);
+          return emitters.isEmpty() ? null : emitters;
+        });
+  }
+
+  private void finish(SseEmitter emitter, AIGenerationJob job) {
+    String event = job.getStatus() == Status.SUCCEEDED ? "done" : "error";
+    if (send(emitter, event, job)) {
+      emitter.complete();
+    }
+  }
+
+  /** Send the job as an event; false if the client has gone */
+  private boolean send(SseEmitter emitter, String event, AIGenerationJob job) {
+    try {
+      emitter.send(
+          SseEmitter.event()
+              .name(event)
+              .data(GenerationJobResponse.from(job), MediaType.APPLICATION_JSON));
+      return true;
+    } catch (IOException | IllegalStateException e) {
+      logger.debug("Client stopped watching generation job {}", job.getId());
+      return false;
+    }
+  }
+}
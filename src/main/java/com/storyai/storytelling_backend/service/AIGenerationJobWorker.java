@@ -0,0 +1,297 @@
+package com.storyai.storytelling_backend.service;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GenerateTurnRequest;
+import com.storyai.storytelling_backend.config.AIJobProperties;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+import com.storyai.storytelling_backend.repository.AIGenerationJobRepository;
+import com.storyai.storytelling_backend.repository.AIGenerationJobRepositoryCustom.ClaimedJob;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs queued generation jobs on ai.generation.jobs.concurrency threads. Workers claim only as
+ * many jobs as they have free threads, right after a submission on this node, after each job they
+ * finish, and every poll-interval-ms for jobs submitted elsewhere. A job the provider sheds (rate
+ * or concurrency limits) goes back in the queue for its Retry-After; any other failure finishes
+ * it. The leases of running jobs are extended every renew-interval-ms, so only jobs of a node that
+ * stopped are claimed again. On shutdown, jobs still running are handed back to the queue for
+ * another node.
+ */
+@Component
+public class AIGenerationJobWorker {
+
+  private static final Logger logger = LoggerFactory.getLogger(AIGenerationJobWorker.class);
+  private static final int MAX_ERROR_CHARS = 500;
+
+  private final AIJobProperties properties;
+  private final AIGenerationJobRepository jobRepository;
+  private final AIStoryGenerator aiGenerator;
+  private final ObjectMapper objectMapper;
+  private final String workerId;
+  private final ThreadPoolExecutor executor;
+  // Serializes claims; a wake-up while one is pending is redundant and dropped
+  private final ThreadPoolExecutor dispatcher;
+  private final AtomicInteger running = new AtomicInteger();
+  private volatile boolean stopping;
+
+  private final Counter succeeded;
+  private final Counter failed;
+  private final Counter requeued;
+
+  public AIGenerationJobWorker(
+      AIJobProperties properties,
+      AIGenerationJobRepository jobRepository,
+      AIStoryGenerator aiGenerator,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.jobRepository = jobRepository;
+    this.aiGenerator = aiGenerator;
+    this.objectMapper = objectMapper;
+    this.workerId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            properties.getConcurrency(),
+            properties.getConcurrency(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getConcurrency()),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "generation-job-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.dispatcher =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1),
+            runnable -> {
+              Thread thread = new Thread(runnable, "generation-job-dispatcher");
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+
+    this.succeeded = jobs(meterRegistry, "succeeded");
+    this.failed = jobs(meterRegistry, "failed");
+    this.requeued = jobs(meterRegistry, "requeued");
+    Gauge.builder("ai.generation.jobs.running", running, AtomicInteger::get)
+        .description("Generation jobs running on this node")
+        .register(meterRegistry);
+  }
+
+  /** Look for jobs to run without waiting for the next poll; never blocks */
+  public void wakeUp() {
+    if (properties.isEnabled() && !stopping) {
+      dispatcher.execute(this::claimAndRun);
+    }
+  }
+
+  /** Configurable via ai.generation.jobs.poll-interval-ms */
+  @Scheduled(
+      fixedDelayString = "${ai.generation.jobs.poll-interval-ms:500}",
+      initialDelayString = "${ai.generation.jobs.poll-interval-ms:500}")
+  public void poll() {
+    wakeUp();
+  }
+
+  /**
+   * Extend the leases of the jobs running on this node. A job can outlast lease-seconds on retries
+   * and limit waits alone; configurable via ai.generation.jobs.renew-interval-ms
+   */
+  @Scheduled(
+      fixedDelayString = "${ai.generation.jobs.renew-interval-ms:60000}",
+      initialDelayString = "${ai.generation.jobs.renew-interval-ms:60000}")
+  public void renewLeases() {
+    if (running.get() == 0) {
+      return;
+    }
+    try {
+      jobRepository.renewLeases(workerId, properties.getLeaseSeconds());
+    } catch (Exception e) {
+      // Retried next interval; the leases last several of them
+      logger.warn("Failed to renew leases of running generation jobs", e);
+    }
+  }
+
+  /** Delete finished jobs past ai.generation.jobs.retention-hours */
+  @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+  public void deleteFinishedJobs() {
+    try {
+      int deleted =
+          jobRepository.deleteFinishedBefore(
+              TimeUnit.HOURS.toSeconds(properties.getRetentionHours()));
+      if (deleted > 0) {
+        logger.info("Deleted {} finished generation jobs", deleted);
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to delete finished generation jobs", e);
+    }
+  }
+
+  /** Run one claimed job to the end and record its outcome */
+  public void execute(ClaimedJob job) {
+    if (job.attempts() > properties.getMaxAttempts()) {
+      // Claimed again after its lease ran out each time, e.g. it keeps crashing its node
+      fail(job, "Generation did not complete after " + properties.getMaxAttempts() + " attempts");
+      return;
+    }
+
+    try {
+      String result = objectMapper.writeValueAsString(generate(job));
+      if (jobRepository.complete(job.id(), workerId, result) > 0) {
+        succeeded.increment();
+      } else {
+        logger.warn("Lease on generation job {} was lost before it finished", job.id());
+      }
+    } catch (AIServiceUnavailableException e) {
+      if (job.attempts() < properties.getMaxAttempts()) {
+        if (jobRepository.requeue(job.id(), workerId, e.getRetryAfterSeconds()) > 0) {
+          requeued.increment();
+        }
+      } else {
+        fail(job, e.getMessage());
+      }
+    } catch (Exception e) {
+      if (stopping) {
+        // Interrupted by shutdown; the job is handed back to the queue
+        return;
+      }
+      logger.error("Generation job {} failed", job.id(), e);
+      fail(job, "Generation failed");
+    }
+  }
+
+  /** Identifies this node's claims in ai_generation_jobs.locked_by */
+  public String getWorkerId() {
+    return workerId;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    stopping = true;
+    dispatcher.shutdownNow();
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      int released = jobRepository.releaseAll(workerId);
+      if (released > 0) {
+        logger.info("Returned {} running generation jobs to the queue", released);
+      }
+    } catch (Exception e) {
+      // Their leases run out and another node claims them
+      logger.warn("Failed to return running generation jobs to the queue", e);
+    }
+  }
+
+  private void claimAndRun() {
+    int free = properties.getConcurrency() - running.get();
+    if (free <= 0 || stopping) {
+      return;
+    }
+
+    List<ClaimedJob> jobs;
+    try {
+      jobs = jobRepository.claim(workerId, free, properties.getLeaseSeconds());
+    } catch (Exception e) {
+      logger.warn("Failed to claim generation jobs", e);
+      return;
+    }
+
+    for (ClaimedJob job : jobs) {
+      running.incrementAndGet();
+      try {
+        executor.execute(
+            () -> {
+              try {
+                execute(job);
+              } finally {
+                running.decrementAndGet();
+                wakeUp();
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        // Only when shutting down; releaseAll hands the job back
+        running.decrementAndGet();
+      }
+    }
+  }
+
+  private Object generate(ClaimedJob job) throws JsonProcessingException {
+    if (!aiGenerator.isAvailable()) {
+      throw new IllegalStateException("AI service is currently unavailable");
+    }
+    return switch (job.jobType()) {
+      case STORY ->
+          aiGenerator.generateStory(
+              objectMapper.readValue(job.request(), GenerateStoryRequest.class));
+      case CHOICES ->
+          aiGenerator.generateChoices(
+              objectMapper.readValue(job.request(), GenerateChoicesRequest.class));
+      case TURN ->
+          aiGenerator.generateTurn(
+              objectMapper.readValue(job.request(), GenerateTurnRequest.class));
+    };
+  }
+
+  private void fail(ClaimedJob job, String error) {
+    String message =
+        error != null && error.length() > MAX_ERROR_CHARS
+            ? error.substring(0, MAX_ERROR_CHARS)
+            : error;
+    try {
+      if (jobRepository.fail(job.id(), workerId, message) > 0) {
+        failed.increment();
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to record failure of generation job {}", job.id(), e);
+    }
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (Exception e) {
+      return "worker";
+    }
+  }
+
+  private static Counter jobs(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("ai.generation.jobs")
+        .description("Generation jobs run on this node, by outcome")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,131 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.entity.AIGeneration;
+import com.storyai.storytelling_backend.repository.AIGenerationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Write-behind ledger of provider calls in ai_generations. Records go into a bounded in-memory
+ * queue and are inserted in JDBC batches by a scheduled flush, so the request path never waits on
+ * the database. When the queue is full new records are dropped and counted rather than blocking.
+ */
+@Component
+public class AIGenerationLedger {
+
+  private static final Logger logger = LoggerFactory.getLogger(AIGenerationLedger.class);
+
+  private final AIGenerationRepository generationRepository;
+  private final BlockingQueue<AIGeneration> queue;
+  private final int batchSize;
+
+  private final Counter written;
+  private final Counter dropped;
+  private final Counter failed;
+
+  public AIGenerationLedger(
+      AIGenerationRepository generationRepository,
+      MeterRegistry meterRegistry,
+      @Value("${ai.generation.ledger.queue-capacity:10000}") int queueCapacity,
+      @Value("${ai.generation.ledger.batch-size:500}") int batchSize) {
+    this.generationRepository = generationRepository;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+
+    this.written = records(meterRegistry, "written");
+    this.dropped = records(meterRegistry, "dropped");
+    this.failed = records(meterRegistry, "failed");
+  }
+
+  /**
+   * Run a provider call and record it: latency, reported token usage and whether it succeeded.
+   * Failures are recorded too, then rethrown.
+   */
+  public AICompletion track(AIGeneration generation, Supplier<AICompletion> call) {
+    long start = System.nanoTime();
+    try {
+      AICompletion completion = call.get();
+      generation.setInputTokens(completion.getInputTokens());
+      generation.setOutputTokens(completion.getOutputTokens());
+      if (completion.getInputTokens() != null || completion.getOutputTokens() != null) {
+        generation.setTokensUsed(
+            nullToZero(completion.getInputTokens()) + nullToZero(completion.getOutputTokens()));
+      }
+      return completion;
+    } catch (RuntimeException e) {
+      generation.setSucceeded(false);
+      throw e;
+    } finally {
+      long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+      generation.setLatencyMs((int) Math.min(Integer.MAX_VALUE, elapsedMillis));
+      record(generation);
+    }
+  }
+
+  /** Queue a record for the next flush; never blocks */
+  public void record(AIGeneration generation) {
+    if (!queue.offer(generation)) {
+      dropped.increment();
+      logger.debug("Generation ledger queue full, dropping record");
+    }
+  }
+
+  /** Number of records waiting to be flushed */
+  public int pendingCount() {
+    return queue.size();
+  }
+
+  /** Insert queued records in batches. Configurable via ai.generation.ledger.flush-interval-ms */
+  @Scheduled(
+      fixedDelayString = "${ai.generation.ledger.flush-interval-ms:1000}",
+      initialDelayString = "${ai.generation.ledger.flush-interval-ms:1000}")
+  public void flush() {
+    List<AIGeneration> batch = new ArrayList<>(batchSize);
+    int drained;
+    do {
+      drained = queue.drainTo(batch, batchSize);
+      if (drained == 0) {
+        break;
+      }
+      try {
+        written.increment(generationRepository.insertAll(batch));
+      } catch (Exception e) {
+        // The ledger is analytics; drop this batch rather than let it pile up
+        failed.increment(batch.size());
+        logger.warn("Failed to write {} generation records", batch.size(), e);
+      }
+      batch.clear();
+    } while (drained == batchSize);
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+
+  private static int nullToZero(Integer value) {
+    return value != null ? value : 0;
+  }
+
+  private static Counter records(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("ai.generation.ledger.records")
+        .description("Generation ledger records by what happened to them")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,174 @@
+package com.storyai.storytelling_backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.storyai.storytelling_backend.config.AICacheProperties;
+
+/**
+ * In-process tier in front of the ai_cache table. Bounded by an approximate byte budget and
+ * evicted with Caffeine's W-TinyLFU policy. Known misses are held briefly as negative entries so
+ * repeated lookups for absent keys don't reach the database either.
+ */
+@Component
+public class AILocalCache {
+
+  private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+  private final boolean enabled;
+  private final Duration maxTtl;
+  private final Duration negativeTtl;
+  private final Cache<String, Entry> cache;
+
+  public AILocalCache(AICacheProperties properties) {
+    AICacheProperties.Local local = properties.getLocal();
+    this.enabled = properties.isEnabled() && local.isEnabled();
+    this.maxTtl = Duration.ofMinutes(local.getExpireAfterWriteMinutes());
+    this.negativeTtl = Duration.ofSeconds(local.getNegativeTtlSeconds());
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(enabled ? local.getMaximumWeightBytes() : 0)
+            .weigher((String key, Entry entry) -> weigh(key, entry))
+            .expireAfter(new EntryExpiry())
+            .build();
+  }
+
+  /** Look up a key. A present entry may be a negative (miss) marker, see {@link Entry#isMiss()} */
+  public Optional<Entry> get(String cacheKey) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(cache.getIfPresent(cacheKey));
+  }
+
+  /** Store content, never keeping it past the database expiry */
+  public void put(String cacheKey, String content, LocalDateTime expiresAt) {
+    put(cacheKey, content, null, null, expiresAt);
+  }
+
+  /** Store content along with its structured form, if any */
+  public void put(
+      String cacheKey,
+      String content,
+      String structured,
+      Short structuredVersion,
+      LocalDateTime expiresAt) {
+    if (!enabled) {
+      return;
+    }
+    if (expiresAt != null && !expiresAt.isAfter(LocalDateTime.now())) {
+      cache.invalidate(cacheKey);
+      return;
+    }
+    cache.put(cacheKey, new Entry(content, structured, structuredVersion, expiresAt));
+  }
+
+  /** Remember that the key is absent from the database */
+  public void putMiss(String cacheKey) {
+    if (enabled && negativeTtl.toNanos() > 0) {
+      cache.put(cacheKey, Entry.MISS);
+    }
+  }
+
+  public void invalidate(String cacheKey) {
+    cache.invalidate(cacheKey);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public long estimatedSize() {
+    return cache.estimatedSize();
+  }
+
+  /** Approximate heap bytes an entry with this key and content takes up */
+  public static int weigh(String key, String content) {
+    return weigh(key, content, null);
+  }
+
+  /** Approximate heap bytes an entry with this key, content and structured form takes up */
+  public static int weigh(String key, String content, String structured) {
+    long chars =
+        (long) key.length()
+            + (content != null ? content.length() : 0)
+            + (structured != null ? structured.length() : 0);
+    return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + chars * 2);
+  }
+
+  private static int weigh(String key, Entry entry) {
+    return weigh(key, entry.content, entry.structured);
+  }
+
+  /** Per-entry lifetime: negative TTL for misses, otherwise capped by both maxTtl and expiresAt */
+  private class EntryExpiry implements Expiry<String, Entry> {
+
+    @Override
+    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+      if (entry.isMiss()) {
+        return negativeTtl.toNanos();
+      }
+      long ttl = maxTtl.toNanos();
+      if (entry.expiresAt != null) {
+        long untilExpiry = Duration.between(LocalDateTime.now(), entry.expiresAt).toNanos();
+        ttl = Math.min(ttl, Math.max(0, untilExpiry));
+      }
+      return ttl;
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, Entry entry, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, entry, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+
+  /** Cached value; a null content marks a known miss */
+  public static final class Entry {
+    static final Entry MISS = new Entry(null, null, null, null);
+
+    private final String content;
+    private final String structured;
+    private final Short structuredVersion;
+    private final LocalDateTime expiresAt;
+
+    Entry(String content, String structured, Short structuredVersion, LocalDateTime expiresAt) {
+      this.content = content;
+      this.structured = structured;
+      this.structuredVersion = structuredVersion;
+      this.expiresAt = expiresAt;
+    }
+
+    public boolean isMiss() {
+      return content == null;
+    }
+
+    public String getContent() {
+      return content;
+    }
+
+    /** Structured form of the content as JSON, or null */
+    public String getStructured() {
+      return structured;
+    }
+
+    public Short getStructuredVersion() {
+      return structuredVersion;
+    }
+
+    public LocalDateTime getExpiresAt() {
+      return expiresAt;
+    }
+  }
+}
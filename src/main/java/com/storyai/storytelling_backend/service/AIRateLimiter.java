@@ -0,0 +1,256 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Token buckets matching the providers' requests-per-minute and tokens-per-minute quotas, one pair
+ * per provider and model. Each call reserves one request and its estimated tokens (prompt plus
+ * max_tokens) before it is sent; a call that would have to wait up to
+ * ai.resilience.rate-limit.max-wait-ms sleeps until its reservation is due, anything longer is
+ * shed with {@link AIServiceUnavailableException}. Quotas start from configuration and are then
+ * learned from the rate-limit headers of OpenAI and Anthropic responses, and a 429's Retry-After
+ * pauses the bucket.
+ */
+@Component
+public class AIRateLimiter {
+
+  private static final Logger logger = LoggerFactory.getLogger(AIRateLimiter.class);
+  private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+  private final AIResilienceProperties.RateLimit properties;
+  private final MeterRegistry meterRegistry;
+  private final LongSupplier nanoClock;
+  private final ConcurrentHashMap<String, Quota> quotas = new ConcurrentHashMap<>();
+
+  @Autowired
+  public AIRateLimiter(AIResilienceProperties properties, MeterRegistry meterRegistry) {
+    this(properties, meterRegistry, System::nanoTime);
+  }
+
+  public AIRateLimiter(
+      AIResilienceProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+    this.properties = properties.getRateLimit();
+    this.meterRegistry = meterRegistry;
+    this.nanoClock = nanoClock;
+  }
+
+  /** Rough token count of a request: about four characters per prompt token, plus the output cap */
+  public static int estimateTokens(String prompt, int maxTokens) {
+    return (prompt.length() + 3) / 4 + maxTokens;
+  }
+
+  /**
+   * Reserve one request and the tokens for a call, waiting for the reservation if it is due within
+   * max-wait-ms. Throws {@link AIServiceUnavailableException} when it isn't.
+   */
+  public void acquire(String provider, String model, int tokens) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+
+    Quota quota = quota(provider, model);
+    long waitNanos;
+    synchronized (quota) {
+      long now = nanoClock.getAsLong();
+      quota.refill(now);
+      // A request larger than the whole quota can still go once the bucket is full
+      double tokenCost = Math.min(tokens, quota.tokens.capacity);
+      waitNanos =
+          Math.max(
+              quota.blockedUntilNanos - now,
+              Math.max(quota.requests.nanosUntil(1), quota.tokens.nanosUntil(tokenCost)));
+      if (waitNanos > TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMs())) {
+        quota.shed.increment();
+        logger.warn("{} {} is over its rate limit, shedding call", provider, model);
+        throw new AIServiceUnavailableException(
+            "The AI provider's rate limit has been reached, try again shortly",
+            "AI_RATE_LIMITED",
+            (int) Math.max(1, Math.ceil(waitNanos / 1e9)));
+      }
+      quota.requests.level -= 1;
+      quota.tokens.level -= tokenCost;
+    }
+
+    if (waitNanos > 0) {
+      quota.queued.increment();
+      try {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Interrupted while waiting for the " + provider + " quota");
+      }
+    }
+  }
+
+  /** Correct a reservation once the provider has reported the tokens a call actually used */
+  public void settle(String provider, String model, int reservedTokens, AICompletion completion) {
+    if (!properties.isEnabled()
+        || completion.getInputTokens() == null
+        || completion.getOutputTokens() == null) {
+      return;
+    }
+    Quota quota = quota(provider, model);
+    synchronized (quota) {
+      quota.refill(nanoClock.getAsLong());
+      int used = completion.getInputTokens() + completion.getOutputTokens();
+      quota.tokens.level =
+          Math.min(quota.tokens.capacity, quota.tokens.level + reservedTokens - used);
+    }
+  }
+
+  /**
+   * Learn quotas from response headers: OpenAI's x-ratelimit-* and Anthropic's
+   * anthropic-ratelimit-* limits replace the configured ones, remaining counts lower the buckets,
+   * and Retry-After pauses them.
+   */
+  public void observe(String provider, String model, HttpHeaders headers) {
+    if (!properties.isEnabled() || headers == null) {
+      return;
+    }
+    Long requestLimit =
+        header(headers, "x-ratelimit-limit-requests", "anthropic-ratelimit-requests-limit");
+    Long tokenLimit =
+        header(headers, "x-ratelimit-limit-tokens", "anthropic-ratelimit-tokens-limit");
+    Long requestsRemaining =
+        header(
+            headers, "x-ratelimit-remaining-requests", "anthropic-ratelimit-requests-remaining");
+    Long tokensRemaining =
+        header(headers, "x-ratelimit-remaining-tokens", "anthropic-ratelimit-tokens-remaining");
+    Long retryAfterSeconds = header(headers, HttpHeaders.RETRY_AFTER);
+
+    Quota quota = quota(provider, model);
+    synchronized (quota) {
+      long now = nanoClock.getAsLong();
+      quota.refill(now);
+      if (requestLimit != null && requestLimit > 0 && requestLimit != quota.requests.capacity) {
+        logger.info("Learned {} {} limit of {} requests/min", provider, model, requestLimit);
+        quota.requests.setPerMinute(requestLimit);
+      }
+      if (tokenLimit != null && tokenLimit > 0 && tokenLimit != quota.tokens.capacity) {
+        logger.info("Learned {} {} limit of {} tokens/min", provider, model, tokenLimit);
+        quota.tokens.setPerMinute(tokenLimit);
+      }
+      if (requestsRemaining != null) {
+        quota.requests.level = Math.min(quota.requests.level, requestsRemaining);
+      }
+      if (tokensRemaining != null) {
+        quota.tokens.level = Math.min(quota.tokens.level, tokensRemaining);
+      }
+      if (retryAfterSeconds != null && retryAfterSeconds > 0) {
+        quota.blockedUntilNanos =
+            Math.max(quota.blockedUntilNanos, now + TimeUnit.SECONDS.toNanos(retryAfterSeconds));
+      }
+    }
+  }
+
+  private Quota quota(String provider, String model) {
+    return quotas.computeIfAbsent(provider + ":" + model, key -> newQuota(provider, model));
+  }
+
+  private Quota newQuota(String provider, String model) {
+    Quota quota =
+        new Quota(
+            properties.getRequestsPerMinute(),
+            properties.getTokensPerMinute(),
+            nanoClock.getAsLong(),
+            Counter.builder("ai.provider.rate.limited")
+                .description("Calls held back by the client-side provider rate limit")
+                .tags("provider", provider, "model", model, "result", "queued")
+                .register(meterRegistry),
+            Counter.builder("ai.provider.rate.limited")
+                .description("Calls held back by the client-side provider rate limit")
+                .tags("provider", provider, "model", model, "result", "shed")
+                .register(meterRegistry));
+    Gauge.builder("ai.provider.rate.quota", quota, q -> q.requests.capacity)
+        .description("Per-minute quota of the AI provider, as configured or learned")
+        .tags("provider", provider, "model", model, "quota", "requests")
+        .register(meterRegistry);
+    Gauge.builder("ai.provider.rate.quota", quota, q -> q.tokens.capacity)
+        .description("Per-minute quota of the AI provider, as configured or learned")
+        .tags("provider", provider, "model", model, "quota", "tokens")
+        .register(meterRegistry);
+    return quota;
+  }
+
+  /** First of the headers present, as a whole number; unparseable values are ignored */
+  private static Long header(HttpHeaders headers, String... names) {
+    for (String name : names) {
+      String value = headers.getFirst(name);
+      if (value == null) {
+        continue;
+      }
+      try {
+        return (long) Double.parseDouble(value.trim());
+      } catch (NumberFormatException e) {
+        logger.debug("Ignoring non-numeric rate limit header {}: {}", name, value);
+      }
+    }
+    return null;
+  }
+
+  /** Request and token buckets of one provider and model; guarded by its own monitor */
+  private static final class Quota {
+    private final Bucket requests;
+    private final Bucket tokens;
+    private final Counter queued;
+    private final Counter shed;
+    private long blockedUntilNanos;
+
+    private Quota(
+        long requestsPerMinute, long tokensPerMinute, long now, Counter queued, Counter shed) {
+      this.requests = new Bucket(requestsPerMinute, now);
+      this.tokens = new Bucket(tokensPerMinute, now);
+      this.blockedUntilNanos = now;
+      this.queued = queued;
+      this.shed = shed;
+    }
+
+    void refill(long now) {
+      requests.refill(now);
+      tokens.refill(now);
+    }
+  }
+
+  /** Refills continuously at capacity per minute; the level goes negative for reservations */
+  private static final class Bucket {
+    private double capacity;
+    private double level;
+    private long lastRefillNanos;
+
+    private Bucket(long perMinute, long now) {
+      this.capacity = perMinute;
+      this.level = perMinute;
+      this.lastRefillNanos = now;
+    }
+
+    void refill(long now) {
+      level = Math.min(capacity, level + (now - lastRefillNanos) * capacity / NANOS_PER_MINUTE);
+      lastRefillNanos = now;
+    }
+
+    long nanosUntil(double amount) {
+      return level >= amount ? 0 : (long) Math.ceil((amount - level) * NANOS_PER_MINUTE / capacity);
+    }
+
+    void setPerMinute(long perMinute) {
+      capacity = perMinute;
+      level = Math.min(level, capacity);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.storyai.storytelling_backend.service;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.NoHttpResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Retries provider calls that failed before the provider did any work: 408, 429, 5xx (including
+ * Anthropic's 529 overloaded) and connections refused or reset before a response. Read timeouts
+ * and other 4xx are not retried. Attempts are spaced by full-jitter exponential backoff, or by
+ * the response's Retry-After when there is one (a Retry-After over
+ * ai.resilience.retry.max-retry-after-ms fails the call at once). A retry budget shared by all
+ * providers keeps retries to about budget-ratio of the calls made, so an outage is not amplified.
+ */
+@Component
+public class AIRetryPolicy {
+
+  private static final Logger logger = LoggerFactory.getLogger(AIRetryPolicy.class);
+  private static final Set<Integer> RETRYABLE_STATUSES = Set.of(408, 429, 500, 502, 503, 504, 529);
+
+  private final AIResilienceProperties.Retry properties;
+  private final MeterRegistry meterRegistry;
+  private final LongSupplier nanoClock;
+  private final LongConsumer sleeper;
+  private final RetryBudget budget;
+
+  @Autowired
+  public AIRetryPolicy(AIResilienceProperties properties, MeterRegistry meterRegistry) {
+    this(properties, meterRegistry, System::nanoTime, AIRetryPolicy::sleep);
+  }
+
+  public AIRetryPolicy(
+      AIResilienceProperties properties,
+      MeterRegistry meterRegistry,
+      LongSupplier nanoClock,
+      LongConsumer sleeper) {
+    this.properties = properties.getRetry();
+    this.meterRegistry = meterRegistry;
+    this.nanoClock = nanoClock;
+    this.sleeper = sleeper;
+    this.budget = new RetryBudget(this.properties, nanoClock.getAsLong());
+    Gauge.builder("ai.provider.retry.budget", budget, RetryBudget::balance)
+        .description("Retries the retry budget currently allows")
+        .register(meterRegistry);
+  }
+
+  /** Run the call, retrying transient failures; attempts are numbered from 1 */
+  public <T> T execute(String provider, IntFunction<T> call) {
+    return execute(provider, call, () -> true);
+  }
+
+  /**
+   * Like {@link #execute(String, IntFunction)}, but a failed attempt is only retried while
+   * canRetry says so, e.g. a stream that has not sent anything to the client yet
+   */
+  public <T> T execute(String provider, IntFunction<T> call, BooleanSupplier canRetry) {
+    if (!properties.isEnabled()) {
+      return call.apply(1);
+    }
+
+    budget.deposit(nanoClock.getAsLong());
+    for (int attempt = 1; ; attempt++) {
+      try {
+        T result = call.apply(attempt);
+        if (attempt > 1) {
+          retries(provider, "recovered").increment();
+        }
+        return result;
+      } catch (RuntimeException e) {
+        Integer status = retryableStatus(e);
+        if (status == null || !canRetry.getAsBoolean()) {
+          throw e;
+        }
+        if (attempt >= properties.getMaxAttempts()) {
+          retries(provider, "exhausted").increment();
+          throw e;
+        }
+
+        Long retryAfterMillis = retryAfterMillis(e);
+        if (retryAfterMillis != null && retryAfterMillis > properties.getMaxRetryAfterMs()) {
+          retries(provider, "retry_after_too_long").increment();
+          throw e;
+        }
+        if (!budget.withdraw(nanoClock.getAsLong())) {
+          retries(provider, "budget_exhausted").increment();
+          logger.warn("Retry budget exhausted, not retrying failed {} call", provider);
+          throw e;
+        }
+
+        long delayMillis = retryAfterMillis != null ? retryAfterMillis : backoffMillis(attempt);
+        retries(provider, "retried").increment();
+        logger.info(
+            "Retrying {} call in {} ms after attempt {} failed ({})",
+            provider,
+            delayMillis,
+            attempt,
+            status == 0 ? "connection" : status);
+        sleeper.accept(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+      }
+    }
+  }
+
+  /** Full jitter: uniform between zero and the capped exponential delay for the attempt */
+  private long backoffMillis(int attempt) {
+    long ceiling =
+        Math.min(
+            properties.getMaxDelayMs(), properties.getBaseDelayMs() << Math.min(attempt - 1, 30));
+    return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+  }
+
+  /**
+   * HTTP status of a failure worth retrying, 0 for a connection failure, or null when it is not
+   * worth retrying; looks through wrapping exceptions
+   */
+  static Integer retryableStatus(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof RestClientResponseException responseException) {
+        int status = responseException.getStatusCode().value();
+        return RETRYABLE_STATUSES.contains(status) ? status : null;
+      }
+      if (cause instanceof ResourceAccessException) {
+        return sentNothing(cause.getCause()) ? 0 : null;
+      }
+    }
+    return null;
+  }
+
+  /** Whether the I/O failure happened before the provider could have started on the request */
+  private static boolean sentNothing(Throwable ioFailure) {
+    if (ioFailure instanceof SocketTimeoutException) {
+      // A read timeout: the provider may still be generating, and billing, the first attempt
+      return false;
+    }
+    return ioFailure instanceof ConnectException
+        || ioFailure instanceof ConnectTimeoutException
+        || ioFailure instanceof NoHttpResponseException
+        || ioFailure instanceof SocketException;
+  }
+
+  /** Retry-After of an error response in milliseconds, if it has a numeric one */
+  private static Long retryAfterMillis(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof RestClientResponseException responseException) {
+        HttpHeaders headers = responseException.getResponseHeaders();
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null) {
+          return null;
+        }
+        try {
+          return Math.max(0, (long) (Double.parseDouble(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+          // An HTTP date; fall back to the backoff
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  private Counter retries(String provider, String outcome) {
+    return Counter.builder("ai.provider.retries")
+        .description("Retry decisions on failed AI provider calls")
+        .tags("provider", provider, "outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private static void sleep(long nanos) {
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting to retry");
+    }
+  }
+
+  /**
+   * Token bucket of retries: every call earns budget-ratio of a retry, time earns
+   * budget-min-per-second, and each retry spends one. Guarded by its own monitor.
+   */
+  private static final class RetryBudget {
+    private final AIResilienceProperties.Retry properties;
+    private double balance;
+    private long updatedNanos;
+
+    private RetryBudget(AIResilienceProperties.Retry properties, long now) {
+      this.properties = properties;
+      this.balance = properties.getBudgetCapacity();
+      this.updatedNanos = now;
+    }
+
+    private synchronized void deposit(long now) {
+      refill(now);
+      balance = Math.min(properties.getBudgetCapacity(), balance + properties.getBudgetRatio());
+    }
+
+    private synchronized boolean withdraw(long now) {
+      refill(now);
+      if (balance < 1) {
+        return false;
+      }
+      balance -= 1;
+      return true;
+    }
+
+    private synchronized double balance() {
+      return balance;
+    }
+
+    private void refill(long now) {
+      double seconds = (now - updatedNanos) / 1e9;
+      updatedNanos = now;
+      balance =
+          Math.min(
+              properties.getBudgetCapacity(),
+              balance + seconds * properties.getBudgetMinPerSecond());
+    }
+  }
+}
@@ -1,9 +1,13 @@
 package com.storyai.storytelling_backend.service;
 
+import java.util.function.Consumer;
+
 import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
 import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GenerateTurnRequest;
 import com.storyai.storytelling_backend.DTO.GeneratedChoicesResponse;
 import com.storyai.storytelling_backend.DTO.GeneratedStoryResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedTurnResponse;
 
 /**
  * Interface for AI story generation services Allows switching between different AI providers
@@ -12,8 +16,30 @@ import com.storyai.storytelling_backend.DTO.GeneratedStoryResponse;
 public interface AIStoryGenerator {
   GeneratedStoryResponse generateStory(GenerateStoryRequest request);
 
+  /**
+   * Generate a story, passing text to onDelta as the provider produces it; the returned response
+   * holds the complete text. Providers without streaming send it as a single delta.
+   */
+  default GeneratedStoryResponse streamStory(
+      GenerateStoryRequest request, Consumer<String> onDelta) {
+    GeneratedStoryResponse response = generateStory(request);
+    onDelta.accept(response.getContent());
+    return response;
+  }
+
   GeneratedChoicesResponse generateChoices(GenerateChoicesRequest request);
 
+  /**
+   * Generate a chapter and the choices after it. Providers that can do it in one call fill both
+   * cache entries, so later generate-story and generate-choice requests for them are hits; this
+   * default makes the two calls in turn.
+   */
+  default GeneratedTurnResponse generateTurn(GenerateTurnRequest request) {
+    GeneratedStoryResponse story = generateStory(request.toStoryRequest());
+    return new GeneratedTurnResponse(
+        story, generateChoices(request.toChoicesRequest(story.getContent())));
+  }
+
   boolean isAvailable();
 
   String getProviderName();
@@ -0,0 +1,134 @@
+package com.storyai.storytelling_backend.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GeneratedStoryResponse;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+
+/**
+ * Relays a streamed story generation to the client as server-sent events: a "delta" event per
+ * piece of text ({"text": ...}), then one "done" event with the complete response, or an "error"
+ * event. Generations run on a bounded pool of ai.generation.stream.concurrency threads. A client
+ * that disconnects stops receiving events, but the generation still finishes and is cached.
+ */
+@Component
+public class AIStoryStreamer {
+
+  private static final Logger logger = LoggerFactory.getLogger(AIStoryStreamer.class);
+  private static final int BUSY_RETRY_AFTER_SECONDS = 5;
+
+  private final AIStoryGenerator aiGenerator;
+  private final ThreadPoolExecutor executor;
+  private final long timeoutMillis;
+
+  public AIStoryStreamer(
+      AIStoryGenerator aiGenerator,
+      @Value("${ai.generation.stream.concurrency:16}") int concurrency,
+      @Value("${ai.generation.stream.timeout-seconds:120}") long timeoutSeconds) {
+    this.aiGenerator = aiGenerator;
+    this.timeoutMillis = Duration.ofSeconds(timeoutSeconds).toMillis();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            concurrency,
+            concurrency,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(concurrency),
+            runnable -> {
+              Thread thread = new Thread(runnable, "story-stream-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Start streaming the story and return the emitter to hand back to Spring MVC. Throws {@link
+   * AIServiceUnavailableException} when every stream slot and queue place is taken.
+   */
+  public SseEmitter stream(GenerateStoryRequest request) {
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    AtomicBoolean open = new AtomicBoolean(true);
+    emitter.onCompletion(() -> open.set(false));
+    emitter.onTimeout(() -> open.set(false));
+    emitter.onError(e -> open.set(false));
+
+    try {
+      executor.execute(() -> run(request, emitter, open));
+    } catch (RejectedExecutionException e) {
+      throw new AIServiceUnavailableException(
+          "Too many stories are being streamed, try again shortly",
+          "AI_STREAM_BUSY",
+          BUSY_RETRY_AFTER_SECONDS);
+    }
+    return emitter;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void run(GenerateStoryRequest request, SseEmitter emitter, AtomicBoolean open) {
+    try {
+      GeneratedStoryResponse response =
+          aiGenerator.streamStory(
+              request,
+              delta ->
+                  send(
+                      emitter,
+                      open,
+                      SseEmitter.event()
+                          .name("delta")
+                          .data(Map.of("text", delta), MediaType.APPLICATION_JSON)));
+      send(
+          emitter,
+          open,
+          SseEmitter.event().name("done").data(response, MediaType.APPLICATION_JSON));
+    } catch (Exception e) {
+      logger.error("Streamed story generation failed for session: {}", request.getSessionId(), e);
+      send(
+          emitter,
+          open,
+          SseEmitter.event()
+              .name("error")
+              .data(Map.of("message", "Story generation failed"), MediaType.APPLICATION_JSON));
+    } finally {
+      if (open.get()) {
+        emitter.complete();
+      }
+    }
+  }
+
+  /** Send an event unless the client has gone away; a failed send marks it gone */
+  private static void send(
+      SseEmitter emitter, AtomicBoolean open, SseEmitter.SseEventBuilder event) {
+    if (!open.get()) {
+      return;
+    }
+    try {
+      emitter.send(event);
+    } catch (IOException | IllegalStateException e) {
+      open.set(false);
+      logger.debug("Client left the story stream, finishing generation without it");
+    }
+  }
+}
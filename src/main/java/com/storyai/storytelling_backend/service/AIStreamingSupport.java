@@ -0,0 +1,84 @@
+package com.storyai.storytelling_backend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Shared plumbing for streaming provider calls: reads the server-sent event stream that OpenAI and
+ * Anthropic return, and reports time-to-first-token per provider as ai.generation.ttft.
+ */
+@Component
+public class AIStreamingSupport {
+
+  private static final String DATA_PREFIX = "data:";
+  private static final String DONE = "[DONE]";
+
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+
+  public AIStreamingSupport(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Pass the JSON payload of each data line to onEvent, until the stream ends or sends [DONE].
+   * Event names, comments and keep-alives are skipped; both providers repeat the event type in the
+   * payload.
+   */
+  public void readEvents(InputStream body, Consumer<JsonNode> onEvent) throws IOException {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (!line.startsWith(DATA_PREFIX)) {
+        continue;
+      }
+      String data = line.substring(DATA_PREFIX.length()).trim();
+      if (DONE.equals(data)) {
+        return;
+      }
+      if (!data.isEmpty()) {
+        onEvent.accept(objectMapper.readTree(data));
+      }
+    }
+  }
+
+  /**
+   * Wrap onDelta so the first non-empty delta records the time since now as time-to-first-token
+   * for the provider.
+   */
+  public Consumer<String> timingFirstToken(String provider, Consumer<String> onDelta) {
+    long start = System.nanoTime();
+    Timer ttft = ttftTimer(provider);
+    boolean[] seen = new boolean[1];
+    return delta -> {
+      if (!seen[0] && !delta.isEmpty()) {
+        seen[0] = true;
+        ttft.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      onDelta.accept(delta);
+    };
+  }
+
+  private Timer ttftTimer(String provider) {
+    return Timer.builder("ai.generation.ttft")
+        .description("Time from a streaming provider call to its first text delta")
+        .tag("provider", provider)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,504 @@
+package com.storyai.storytelling_backend.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GenerateTurnRequest;
+import com.storyai.storytelling_backend.DTO.GeneratedChoicesResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedStoryResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedTurnResponse;
+import com.storyai.storytelling_backend.entity.AIGeneration;
+
+/**
+ * The path every provider request takes: cache lookup (expired entries within the grace window are
+ * served while they refresh), one call per key however many sessions miss at once, rate and
+ * concurrency limits, retries and the ledger around each call, then caching of the result.
+ * Subclasses build the prompts and make the API call itself.
+ *
+ * <p>Story cache keys are derived from the prompt with the context as the request has it, so a
+ * lookup needs no session state. Only a call to the provider gets the compacted context, with the
+ * older events folded into the session's summary by {@link StoryContextCompactor}.
+ */
+public abstract class AbstractAIStoryGenerator implements AIStoryGenerator {
+
+  // Output budget for the choices that follow the chapter in a combined turn
+  private static final int TURN_CHOICES_MAX_TOKENS = 500;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+  private final String provider;
+
+  private final AICacheService cacheService;
+  private final GenerationCoalescer coalescer;
+  private final AICacheKeyGenerator keyGenerator;
+  private final CachedChoicesCodec choicesCodec;
+  private final AIGenerationLedger ledger;
+  private final AIConcurrencyLimiter limiter;
+  private final AIRetryPolicy retryPolicy;
+  private final StoryContextCompactor contextCompactor;
+  protected final AIStreamingSupport streaming;
+  protected final AIRateLimiter rateLimiter;
+
+  protected AbstractAIStoryGenerator(
+      String provider,
+      AICacheService cacheService,
+      GenerationCoalescer coalescer,
+      AICacheKeyGenerator keyGenerator,
+      CachedChoicesCodec choicesCodec,
+      AIGenerationLedger ledger,
+      AIStreamingSupport streaming,
+      AIConcurrencyLimiter limiter,
+      AIRateLimiter rateLimiter,
+      AIRetryPolicy retryPolicy,
+      StoryContextCompactor contextCompactor) {
+    this.provider = provider;
+    this.cacheService = cacheService;
+    this.coalescer = coalescer;
+    this.keyGenerator = keyGenerator;
+    this.choicesCodec = choicesCodec;
+    this.ledger = ledger;
+    this.streaming = streaming;
+    this.limiter = limiter;
+    this.rateLimiter = rateLimiter;
+    this.retryPolicy = retryPolicy;
+    this.contextCompactor = contextCompactor;
+  }
+
+  /** Model the calls go to; part of the cache key, the rate limit and the ledger */
+  protected abstract String model();
+
+  protected abstract double temperature();
+
+  /** Output budget of a chapter */
+  protected abstract int maxTokens();
+
+  /** Output budget of a set of choices */
+  protected abstract int choicesMaxTokens();
+
+  /** Story prompt for the request, with the given story context in place of the request's */
+  protected abstract String buildStoryPrompt(
+      GenerateStoryRequest request, Map<String, Object> context);
+
+  protected abstract String buildChoicesPrompt(GenerateChoicesRequest request);
+
+  /** Send the prompt to the provider and return its answer */
+  protected abstract AICompletion call(String prompt, int tokens);
+
+  /** Like call, but passing each text delta to onDelta as it arrives */
+  protected abstract AICompletion stream(String prompt, int tokens, Consumer<String> onDelta);
+
+  @Override
+  public GeneratedStoryResponse generateStory(GenerateStoryRequest request) {
+    logger.info("Generating story for session: {}", request.getSessionId());
+
+    String cacheKey = storyKey(request);
+    // Expired entries within the grace window are served while this refreshes them
+    Optional<String> cached =
+        cacheService.getCachedContent(
+            cacheKey, () -> generate(cacheKey, request, AIGeneration.CacheOutcome.REFRESH));
+
+    if (cached.isPresent()) {
+      logger.info("Returning cached story content");
+      return storyResponse(cached.get(), true);
+    }
+
+    String content = generate(cacheKey, request, AIGeneration.CacheOutcome.MISS);
+    return storyResponse(content, false);
+  }
+
+  @Override
+  public GeneratedStoryResponse streamStory(
+      GenerateStoryRequest request, Consumer<String> onDelta) {
+    logger.info("Streaming story for session: {}", request.getSessionId());
+
+    String cacheKey = storyKey(request);
+    Optional<String> cached =
+        cacheService.getCachedContent(
+            cacheKey, () -> generate(cacheKey, request, AIGeneration.CacheOutcome.REFRESH));
+
+    if (cached.isPresent()) {
+      logger.info("Returning cached story content");
+      onDelta.accept(cached.get());
+      return storyResponse(cached.get(), true);
+    }
+
+    // Concurrent requests for the key get the leader's text in one piece once it is done
+    AtomicBoolean streamed = new AtomicBoolean();
+    String content =
+        coalescer.execute(
+            flightKey(cacheKey),
+            () -> {
+              streamed.set(true);
+              String prompt = providerStoryPrompt(request);
+              AIGeneration generation =
+                  storyGeneration(request, prompt, AIGeneration.CacheOutcome.MISS);
+              // A failed stream is only retried while none of it has reached the client
+              AtomicBoolean sent = new AtomicBoolean();
+              Consumer<String> timed =
+                  streaming.timingFirstToken(
+                      provider,
+                      delta -> {
+                        sent.set(true);
+                        onDelta.accept(delta);
+                      });
+              AICompletion completion =
+                  complete(
+                      generation,
+                      prompt,
+                      maxTokens(),
+                      () -> stream(prompt, maxTokens(), timed),
+                      () -> !sent.get());
+              cacheService.cacheContent(
+                  cacheKey, completion.getContent(), Duration.ofMillis(generation.getLatencyMs()));
+              return completion.getContent();
+            });
+    if (!streamed.get()) {
+      onDelta.accept(content);
+    }
+    return storyResponse(content, false);
+  }
+
+  @Override
+  public GeneratedChoicesResponse generateChoices(GenerateChoicesRequest request) {
+    logger.info("Generating choices for chapter: {}", request.getChapterId());
+
+    // Build prompt; the cache key is derived from it
+    String prompt = buildChoicesPrompt(request);
+    int numChoices = numberOfChoices(request.getNumberOfChoices());
+
+    String cacheKey =
+        keyGenerator.choicesKey(
+            provider, model(), temperature(), choicesMaxTokens(), request, prompt);
+    // Expired entries within the grace window are served while this refreshes them
+    Optional<AICacheService.CachedValue> cached =
+        cacheService.getCachedValue(
+            cacheKey,
+            () ->
+                generateChoices(
+                    cacheKey,
+                    prompt,
+                    numChoices,
+                    choicesGeneration(request, prompt, AIGeneration.CacheOutcome.REFRESH)));
+
+    if (cached.isPresent()) {
+      logger.info("Returning cached choices");
+      List<GeneratedChoicesResponse.GeneratedChoice> choices =
+          choicesCodec
+              .decode(cached.get().getStructured(), cached.get().getStructuredVersion())
+              .orElseGet(
+                  () -> upgradeCachedChoices(cacheKey, cached.get().getContent(), numChoices));
+      return choicesResponse(choices, true);
+    }
+
+    return choicesResponse(
+        generateChoices(
+            cacheKey,
+            prompt,
+            numChoices,
+            choicesGeneration(request, prompt, AIGeneration.CacheOutcome.MISS)),
+        false);
+  }
+
+  @Override
+  public GeneratedTurnResponse generateTurn(GenerateTurnRequest request) {
+    logger.info("Generating turn for session: {}", request.getSessionId());
+
+    GenerateStoryRequest storyRequest = request.toStoryRequest();
+    String storyKey = storyKey(storyRequest);
+    Optional<String> cachedStory =
+        cacheService.getCachedContent(
+            storyKey, () -> generate(storyKey, storyRequest, AIGeneration.CacheOutcome.REFRESH));
+
+    if (cachedStory.isPresent()) {
+      // Only the choices may be missing; the usual path finds or generates them
+      logger.info("Returning cached story content");
+      return new GeneratedTurnResponse(
+          storyResponse(cachedStory.get(), true),
+          generateChoices(request.toChoicesRequest(cachedStory.get())));
+    }
+
+    int numChoices = numberOfChoices(request.getNumberOfChoices());
+    int tokens = maxTokens() + TURN_CHOICES_MAX_TOKENS;
+    // Keyed apart from the story so story-only callers never receive the combined output
+    String output =
+        coalescer.execute(
+            flightKey("turn:" + storyKey),
+            () -> {
+              String prompt =
+                  StoryTurnFormat.prompt(
+                      providerStoryPrompt(storyRequest),
+                      numChoices,
+                      request.getDifficultyLevel());
+              AIGeneration generation = turnGeneration(request, prompt);
+              AICompletion completion =
+                  complete(generation, prompt, tokens, () -> call(prompt, tokens));
+              cacheTurn(
+                  storyKey,
+                  request,
+                  completion.getContent(),
+                  numChoices,
+                  Duration.ofMillis(generation.getLatencyMs()));
+              return completion.getContent();
+            });
+
+    StoryTurnFormat.Turn turn = StoryTurnFormat.split(output);
+    List<GeneratedChoicesResponse.GeneratedChoice> choices = readChoices(turn.choices());
+    if (choices.isEmpty()) {
+      // The model left the choices out; ask for them on their own
+      logger.warn("No choices in turn output for session: {}", request.getSessionId());
+      return new GeneratedTurnResponse(
+          storyResponse(turn.chapter(), false),
+          generateChoices(request.toChoicesRequest(turn.chapter())));
+    }
+    return new GeneratedTurnResponse(
+        storyResponse(turn.chapter(), false),
+        choicesResponse(padChoices(choices, numChoices), false));
+  }
+
+  /** Call the provider once per key, even when many sessions miss at the same time, and cache it */
+  private String generate(
+      String cacheKey, GenerateStoryRequest request, AIGeneration.CacheOutcome outcome) {
+    return coalescer.execute(
+        flightKey(cacheKey),
+        () -> {
+          String prompt = providerStoryPrompt(request);
+          AIGeneration generation = storyGeneration(request, prompt, outcome);
+          AICompletion completion =
+              complete(generation, prompt, maxTokens(), () -> call(prompt, maxTokens()));
+          cacheService.cacheContent(
+              cacheKey, completion.getContent(), Duration.ofMillis(generation.getLatencyMs()));
+          return completion.getContent();
+        });
+  }
+
+  /**
+   * Coalescer key of a generation: its cache key, kept apart per provider. Routed cache keys are
+   * shared by the providers, and a hedged or failed-over call must not join the other one's call.
+   */
+  private String flightKey(String cacheKey) {
+    return provider + "|" + cacheKey;
+  }
+
+  /** Cache key of a story, from its prompt with the request's context as it is */
+  private String storyKey(GenerateStoryRequest request) {
+    String prompt = buildStoryPrompt(request, request.getContext());
+    return keyGenerator.storyKey(provider, model(), temperature(), maxTokens(), request, prompt);
+  }
+
+  /** The story prompt sent to the provider, with the older context folded into the summary */
+  private String providerStoryPrompt(GenerateStoryRequest request) {
+    return buildStoryPrompt(
+        request, contextCompactor.compact(request.getSessionId(), request.getContext()));
+  }
+
+  /** Like generate, but also stores the parsed choices so cache hits don't parse again */
+  private List<GeneratedChoicesResponse.GeneratedChoice> generateChoices(
+      String cacheKey, String prompt, int numChoices, AIGeneration generation) {
+    String structured =
+        coalescer.execute(
+            flightKey(cacheKey),
+            () -> {
+              AICompletion completion =
+                  complete(
+                      generation,
+                      prompt,
+                      choicesMaxTokens(),
+                      () -> call(prompt, choicesMaxTokens()));
+              String encoded =
+                  choicesCodec.encode(parseChoices(completion.getContent(), numChoices));
+              cacheService.cacheContent(
+                  cacheKey,
+                  completion.getContent(),
+                  encoded,
+                  CachedChoicesCodec.SCHEMA_VERSION,
+                  Duration.ofMillis(generation.getLatencyMs()));
+              return encoded;
+            });
+    return choicesCodec.decode(structured, CachedChoicesCodec.SCHEMA_VERSION).orElseThrow();
+  }
+
+  /**
+   * Make a call within the rate and concurrency limits, recording it in the ledger, and retry it
+   * if it fails transiently
+   */
+  private AICompletion complete(
+      AIGeneration generation, String prompt, int tokens, Supplier<AICompletion> call) {
+    return complete(generation, prompt, tokens, call, () -> true);
+  }
+
+  private AICompletion complete(
+      AIGeneration generation,
+      String prompt,
+      int tokens,
+      Supplier<AICompletion> call,
+      BooleanSupplier canRetry) {
+    int reservedTokens = AIRateLimiter.estimateTokens(prompt, tokens);
+    return retryPolicy.execute(
+        provider,
+        attempt -> {
+          // A retry is a call of its own to the quota, the limiter and the ledger
+          AIGeneration record = attempt == 1 ? generation : generation.retry();
+          rateLimiter.acquire(provider, model(), reservedTokens);
+          AICompletion completion = limiter.execute(provider, () -> ledger.track(record, call));
+          rateLimiter.settle(provider, model(), reservedTokens, completion);
+          return completion;
+        },
+        canRetry);
+  }
+
+  /**
+   * Cache the chapter of a combined turn under its story key, and its choices under the key a
+   * generate-choice request for that chapter would use. Output without choices caches only the
+   * chapter, so placeholders are never served as the chapter's choices.
+   */
+  private void cacheTurn(
+      String storyKey, GenerateTurnRequest request, String output, int numChoices, Duration cost) {
+    StoryTurnFormat.Turn turn = StoryTurnFormat.split(output);
+    cacheService.cacheContent(storyKey, turn.chapter(), cost);
+    List<GeneratedChoicesResponse.GeneratedChoice> choices = readChoices(turn.choices());
+    if (choices.isEmpty()) {
+      return;
+    }
+
+    GenerateChoicesRequest choicesRequest = request.toChoicesRequest(turn.chapter());
+    String choicesPrompt = buildChoicesPrompt(choicesRequest);
+    String choicesKey =
+        keyGenerator.choicesKey(
+            provider, model(), temperature(), choicesMaxTokens(), choicesRequest, choicesPrompt);
+    cacheService.cacheContent(
+        choicesKey,
+        turn.choices(),
+        choicesCodec.encode(padChoices(choices, numChoices)),
+        CachedChoicesCodec.SCHEMA_VERSION,
+        cost);
+  }
+
+  /** Parse an entry cached before its choices were stored structured, and store them */
+  private List<GeneratedChoicesResponse.GeneratedChoice> upgradeCachedChoices(
+      String cacheKey, String content, int numChoices) {
+    List<GeneratedChoicesResponse.GeneratedChoice> choices = parseChoices(content, numChoices);
+    try {
+      cacheService.upgradeStructured(
+          cacheKey, content, choicesCodec.encode(choices), CachedChoicesCodec.SCHEMA_VERSION);
+    } catch (Exception e) {
+      logger.warn("Failed to upgrade cached choices for key: {}", cacheKey, e);
+    }
+    return choices;
+  }
+
+  /** Ledger record for a story generation */
+  private AIGeneration storyGeneration(
+      GenerateStoryRequest request, String prompt, AIGeneration.CacheOutcome outcome) {
+    AIGeneration generation =
+        new AIGeneration("story", provider, model(), keyGenerator.hashPrompt(prompt), outcome);
+    generation.setSessionId(request.getSessionId());
+    generation.setStoryId(request.getStoryId());
+    return generation;
+  }
+
+  /** Ledger record for a combined chapter-and-choices generation */
+  private AIGeneration turnGeneration(GenerateTurnRequest request, String prompt) {
+    AIGeneration generation =
+        new AIGeneration(
+            "turn",
+            provider,
+            model(),
+            keyGenerator.hashPrompt(prompt),
+            AIGeneration.CacheOutcome.MISS);
+    generation.setSessionId(request.getSessionId());
+    generation.setStoryId(request.getStoryId());
+    generation.setChapterId(request.getChapterId());
+    return generation;
+  }
+
+  /** Ledger record for a choices generation */
+  private AIGeneration choicesGeneration(
+      GenerateChoicesRequest request, String prompt, AIGeneration.CacheOutcome outcome) {
+    AIGeneration generation =
+        new AIGeneration("choices", provider, model(), keyGenerator.hashPrompt(prompt), outcome);
+    generation.setSessionId(request.getSessionId());
+    generation.setChapterId(request.getChapterId());
+    return generation;
+  }
+
+  /** The choices in the content, padded or cut to the expected count */
+  private static List<GeneratedChoicesResponse.GeneratedChoice> parseChoices(
+      String content, int expectedCount) {
+    return padChoices(readChoices(content), expectedCount);
+  }
+
+  /** CHOICE / CONSEQUENCE blocks, each optionally followed by a TONE line */
+  private static List<GeneratedChoicesResponse.GeneratedChoice> readChoices(String content) {
+    List<GeneratedChoicesResponse.GeneratedChoice> choices = new ArrayList<>();
+    String currentChoice = null;
+    GeneratedChoicesResponse.GeneratedChoice last = null;
+
+    for (String line : content.split("\n")) {
+      line = line.trim();
+      if (line.startsWith("CHOICE:")) {
+        currentChoice = line.substring(7).trim();
+        last = null;
+      } else if (line.startsWith("CONSEQUENCE:") && currentChoice != null) {
+        last =
+            new GeneratedChoicesResponse.GeneratedChoice(
+                currentChoice, line.substring(12).trim());
+        choices.add(last);
+        currentChoice = null;
+      } else if (line.startsWith("TONE:") && last != null) {
+        last.setEmotionalTone(line.substring(5).trim());
+        last = null;
+      }
+    }
+    return choices;
+  }
+
+  private static List<GeneratedChoicesResponse.GeneratedChoice> padChoices(
+      List<GeneratedChoicesResponse.GeneratedChoice> parsed, int expectedCount) {
+    List<GeneratedChoicesResponse.GeneratedChoice> choices = new ArrayList<>(parsed);
+    // Ensure we have the expected number of choices
+    while (choices.size() < expectedCount) {
+      choices.add(
+          new GeneratedChoicesResponse.GeneratedChoice(
+              "Continue forward", "The story continues..."));
+    }
+    return new ArrayList<>(choices.subList(0, expectedCount));
+  }
+
+  private static int numberOfChoices(Integer requested) {
+    return requested != null ? requested : 3;
+  }
+
+  private GeneratedStoryResponse storyResponse(String content, boolean cached) {
+    GeneratedStoryResponse response = new GeneratedStoryResponse();
+    response.setContent(content);
+    response.setWordCount(countWords(content));
+    response.setAiProvider(getProviderName() + (cached ? " (cached)" : ""));
+    response.setCached(cached);
+    return response;
+  }
+
+  private GeneratedChoicesResponse choicesResponse(
+      List<GeneratedChoicesResponse.GeneratedChoice> choices, boolean cached) {
+    GeneratedChoicesResponse response = new GeneratedChoicesResponse();
+    response.setChoices(choices);
+    response.setAiProvider(getProviderName() + (cached ? " (cached)" : ""));
+    response.setCached(cached);
+    return response;
+  }
+
+  private static int countWords(String text) {
+    if (text == null || text.isEmpty()) return 0;
+    return text.split("\\s+").length;
+  }
+}
@@ -0,0 +1,78 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.DTO.GeneratedChoicesResponse;
+
+/**
+ * Structured form of cached choices, stored in ai_cache.structured next to the raw model output.
+ * Each layout has a schema version; entries written with an older (or no) version are not decoded,
+ * so callers re-parse the raw content and upgrade the entry in place.
+ *
+ * <p>Version 1: {@code {"choices": [{"choiceText", "consequence", "emotionalTone",
+ * "difficulty"}]}}
+ */
+@Component
+public class CachedChoicesCodec {
+
+  private static final Logger logger = LoggerFactory.getLogger(CachedChoicesCodec.class);
+
+  /** Current layout; bump it when the structure changes */
+  public static final short SCHEMA_VERSION = 1;
+
+  private final ObjectMapper objectMapper;
+
+  public CachedChoicesCodec(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /** Serialize choices in the current layout */
+  public String encode(List<GeneratedChoicesResponse.GeneratedChoice> choices) {
+    try {
+      return objectMapper.writeValueAsString(new Layout(choices));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize cached choices", e);
+    }
+  }
+
+  /** Choices from a stored structure, or empty when it is missing, outdated or unreadable */
+  public Optional<List<GeneratedChoicesResponse.GeneratedChoice>> decode(
+      String structured, Short version) {
+    if (structured == null || version == null || version != SCHEMA_VERSION) {
+      return Optional.empty();
+    }
+    try {
+      Layout layout = objectMapper.readValue(structured, Layout.class);
+      return Optional.ofNullable(layout.getChoices());
+    } catch (JsonProcessingException e) {
+      logger.warn("Unreadable cached choices, falling back to the raw content", e);
+      return Optional.empty();
+    }
+  }
+
+  /** Version 1 layout */
+  static class Layout {
+    private List<GeneratedChoicesResponse.GeneratedChoice> choices;
+
+    Layout() {}
+
+    Layout(List<GeneratedChoicesResponse.GeneratedChoice> choices) {
+      this.choices = choices;
+    }
+
+    public List<GeneratedChoicesResponse.GeneratedChoice> getChoices() {
+      return choices;
+    }
+
+    public void setChoices(List<GeneratedChoicesResponse.GeneratedChoice> choices) {
+      this.choices = choices;
+    }
+  }
+}
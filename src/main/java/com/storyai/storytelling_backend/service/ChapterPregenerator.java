@@ -0,0 +1,240 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.DTO.GenerateTurnRequest;
+import com.storyai.storytelling_backend.DTO.GeneratedTurnResponse;
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.entity.Story;
+import com.storyai.storytelling_backend.entity.StoryChapter;
+import com.storyai.storytelling_backend.entity.StorySession;
+import com.storyai.storytelling_backend.entity.UserChoice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Generates the continuation of each choice of a chapter while the player is still reading it, so
+ * the one they pick is already in the AI cache (or in flight, and joined) when they choose. At most
+ * ai.cache.speculation.max-branches-per-session branches are pending per session and
+ * ai.cache.speculation.concurrency run at once overall; anything beyond the small queue is
+ * dropped. Committing a choice cancels the other branches of the session that haven't started.
+ * {@link #continuation} reads a branch's result back.
+ */
+@Component
+public class ChapterPregenerator {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChapterPregenerator.class);
+
+  private final AIStoryGenerator aiGenerator;
+  private final AICacheProperties.Speculation properties;
+  private final ThreadPoolExecutor executor;
+  // Session id -> choice id -> pending branch; guarded by itself
+  private final Map<Long, Map<Long, FutureTask<?>>> branches = new HashMap<>();
+
+  private final Counter succeeded;
+  private final Counter failed;
+  private final Counter rejected;
+  private final Counter overBudget;
+  private final Counter cancelled;
+
+  public ChapterPregenerator(
+      AIStoryGenerator aiGenerator, AICacheProperties properties, MeterRegistry meterRegistry) {
+    this.aiGenerator = aiGenerator;
+    this.properties = properties.getSpeculation();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            this.properties.getConcurrency(),
+            this.properties.getConcurrency(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(this.properties.getQueueSize()),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "chapter-pregen-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    this.succeeded = speculations(meterRegistry, "success");
+    this.failed = speculations(meterRegistry, "failure");
+    this.rejected = speculations(meterRegistry, "rejected");
+    this.overBudget = speculations(meterRegistry, "over_budget");
+    this.cancelled = speculations(meterRegistry, "cancelled");
+  }
+
+  /**
+   * The generation a chapter's choice leads to. A generate-turn request built the same way shares
+   * the speculative generation's cache key.
+   */
+  public static GenerateTurnRequest continuationRequest(
+      StorySession session, StoryChapter chapter, UserChoice choice) {
+    Story story = session.getStory();
+    GenerateTurnRequest request = new GenerateTurnRequest();
+    request.setStoryId(story.getId());
+    request.setSessionId(session.getId());
+    request.setGenre(story.getGenre());
+    if (story.getDifficultyLevel() != null) {
+      request.setDifficultyLevel(story.getDifficultyLevel().name().toLowerCase(Locale.ROOT));
+    }
+
+    Map<String, Object> context = new LinkedHashMap<>();
+    context.put("story", story.getTitle());
+    context.put("previousChapter", chapter.getContent());
+    context.put("playerChoice", choice.getChoiceText());
+    if (choice.getConsequence() != null) {
+      context.put("consequence", choice.getConsequence());
+    }
+    request.setContext(context);
+    return request;
+  }
+
+  /**
+   * The continuation of a choice, built with {@link #continuationRequest}: a cache hit once its
+   * branch has finished, joined while it runs, and generated now if it is still queued or was
+   * never speculated. A queued branch is taken off the queue, as this call does its work.
+   */
+  public GeneratedTurnResponse continuation(
+      Long sessionId, Long choiceId, GenerateTurnRequest request) {
+    FutureTask<?> branch;
+    synchronized (branches) {
+      Map<Long, FutureTask<?>> pending = branches.get(sessionId);
+      branch = pending == null ? null : pending.get(choiceId);
+    }
+    if (branch != null && executor.remove(branch)) {
+      branch.cancel(false);
+    }
+    return aiGenerator.generateTurn(request);
+  }
+
+  /**
+   * Schedule the continuation of each choice that isn't already pending, within the session's
+   * budget; never blocks the caller. Requests are built here, as the entities may be lazy.
+   */
+  public void speculate(StorySession session, StoryChapter chapter, List<UserChoice> choices) {
+    if (!properties.isEnabled() || choices.isEmpty() || !aiGenerator.isAvailable()) {
+      return;
+    }
+
+    Long sessionId = session.getId();
+    for (UserChoice choice : choices) {
+      Long choiceId = choice.getId();
+      FutureTask<Void> task;
+      synchronized (branches) {
+        Map<Long, FutureTask<?>> pending =
+            branches.computeIfAbsent(sessionId, id -> new HashMap<>());
+        if (pending.containsKey(choiceId)) {
+          continue;
+        }
+        if (pending.size() >= properties.getMaxBranchesPerSession()) {
+          overBudget.increment();
+          continue;
+        }
+        task = branch(sessionId, choiceId, continuationRequest(session, chapter, choice));
+        pending.put(choiceId, task);
+      }
+
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        forget(sessionId, choiceId, task);
+        rejected.increment();
+        logger.debug("Speculation queue full, skipping choice {}", choiceId);
+      }
+    }
+  }
+
+  /**
+   * The player picked a choice: cancel the session's other branches that are still queued. Running
+   * ones finish, since their generation may be shared with other sessions through the coalescer
+   * and the cache key; the chosen one keeps running, so a request for it joins the generation.
+   */
+  public void commit(Long sessionId, Long choiceId) {
+    Map<Long, FutureTask<?>> pending;
+    synchronized (branches) {
+      pending = branches.remove(sessionId);
+    }
+    if (pending == null) {
+      return;
+    }
+
+    pending.forEach(
+        (id, branch) -> {
+          // Taken off the queue only if no worker has picked it up yet
+          if (!id.equals(choiceId) && executor.remove(branch)) {
+            branch.cancel(false);
+            cancelled.increment();
+          }
+        });
+  }
+
+  /** Number of branches queued or running for a session */
+  public int pendingCount(Long sessionId) {
+    synchronized (branches) {
+      Map<Long, FutureTask<?>> pending = branches.get(sessionId);
+      return pending == null ? 0 : pending.size();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private FutureTask<Void> branch(Long sessionId, Long choiceId, GenerateTurnRequest request) {
+    return new FutureTask<>(() -> generate(choiceId, request), null) {
+      @Override
+      protected void done() {
+        forget(sessionId, choiceId, this);
+      }
+    };
+  }
+
+  private void generate(Long choiceId, GenerateTurnRequest request) {
+    try {
+      aiGenerator.generateTurn(request);
+      succeeded.increment();
+      logger.debug("Pre-generated continuation of choice {}", choiceId);
+    } catch (Exception e) {
+      if (Thread.currentThread().isInterrupted()) {
+        // Shutting down
+        return;
+      }
+      failed.increment();
+      logger.warn("Failed to pre-generate continuation of choice {}", choiceId, e);
+    }
+  }
+
+  private void forget(Long sessionId, Long choiceId, FutureTask<?> branch) {
+    synchronized (branches) {
+      Map<Long, FutureTask<?>> pending = branches.get(sessionId);
+      if (pending != null && pending.remove(choiceId, branch) && pending.isEmpty()) {
+        branches.remove(sessionId);
+      }
+    }
+  }
+
+  private static Counter speculations(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("ai.speculation")
+        .description("Speculative generations of the continuation of a choice")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
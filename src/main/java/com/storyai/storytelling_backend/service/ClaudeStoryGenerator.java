@@ -6,26 +6,23 @@ import com.storyai.storytelling_backend.DTO.*;
 import com.storyai.storytelling_backend.config.AIProviderConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * Claude (Anthropic) implementation of AI story generation
  * Uses Claude Sonnet or Opus models for content generation
  */
 @Service
-@ConditionalOnProperty(
-  prefix = "ai",
-  name = "ai.provider",
-  havingValue = "claude")
-
-public class ClaudeStoryGenerator implements AIStoryGenerator {
+// Also created for the router, which holds both providers
+@ConditionalOnExpression("'${ai.provider:openai}' matches 'claude|router'")
+public class ClaudeStoryGenerator extends AbstractAIStoryGenerator {
 
   private static final Logger logger = LoggerFactory.getLogger(ClaudeStoryGenerator.class);
   private static final String CLAUDE_API_URL = "https://api.anthropic.com/v1/messages";
@@ -38,15 +35,25 @@ public class ClaudeStoryGenerator implements AIStoryGenerator {
 
   private final RestTemplate restTemplate;
   private final ObjectMapper objectMapper;
-  private final AICacheService cacheService;
 
   public ClaudeStoryGenerator(RestTemplate restTemplate,
                             ObjectMapper objectMapper,
                             AICacheService cacheService,
+                            GenerationCoalescer coalescer,
+                            AICacheKeyGenerator keyGenerator,
+                            CachedChoicesCodec choicesCodec,
+                            AIGenerationLedger ledger,
+                            AIStreamingSupport streaming,
+                            AIConcurrencyLimiter limiter,
+                            AIRateLimiter rateLimiter,
+                            AIRetryPolicy retryPolicy,
+                            StoryContextCompactor contextCompactor,
                             AIProviderConfig config) {
+    super("claude", cacheService, coalescer, keyGenerator, choicesCodec, ledger, streaming,
+      limiter, rateLimiter, retryPolicy, contextCompactor);
     this.restTemplate = restTemplate;
     this.objectMapper = objectMapper;
-    this.cacheService = cacheService;
+
     this.config = config.getClaude();
     this.apiKey = this.config.getApiKey();
     this.model = this.config.getModel() != null ? this.config.getModel() : "claude-sonnet-4-5-20250929";
@@ -55,109 +62,44 @@ public class ClaudeStoryGenerator implements AIStoryGenerator {
   }
 
   @Override
-  public GeneratedStoryResponse generateStory(GenerateStoryRequest request) {
-    logger.info("Generating story with Claude for session: {}", request.getSessionId());
-
-    // Check cache
-    String cacheKey = buildStoryCacheKey(request);
-    Optional<String> cached = cacheService.getCachedContent(cacheKey);
-
-    if (cached.isPresent()) {
-      logger.info("Returning cached story content");
-      return buildCachedStoryResponse(cached.get());
-    }
-
-    // Build prompt
-    String prompt = buildStoryPrompt(request);
-
-    // Call Claude API
-    String content = callClaude(prompt);
-
-    // Cache result
-    cacheService.cacheContent(cacheKey, content);
-
-    GeneratedStoryResponse response = new GeneratedStoryResponse();
-    response.setContent(content);
-    response.setWordCount(countWords(content));
-    response.setAiProvider("Claude - " + model);
-    response.setCached(false);
-
-    return response;
+  public boolean isAvailable() {
+    return apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-api-key-here");
   }
 
   @Override
-  public GeneratedChoicesResponse generateChoices(GenerateChoicesRequest request) {
-    logger.info("Generating choices with Claude for chapter: {}", request.getChapterId());
-
-    // Check cache
-    String cacheKey = buildChoicesCacheKey(request);
-    Optional<String> cached = cacheService.getCachedContent(cacheKey);
-
-    if (cached.isPresent()) {
-      logger.info("Returning cached choices");
-      return parseCachedChoices(cached.get());
-    }
-
-    // Build prompt
-    String prompt = buildChoicesPrompt(request);
-
-    // Call Claude API
-    String content = callClaude(prompt);
-
-    // Parse choices
-    List<GeneratedChoicesResponse.GeneratedChoice> choices = parseChoices(content,
-      request.getNumberOfChoices() != null ? request.getNumberOfChoices() : 3);
-
-    // Cache result
-    cacheService.cacheContent(cacheKey, content);
-
-    GeneratedChoicesResponse response = new GeneratedChoicesResponse();
-    response.setChoices(choices);
-    response.setAiProvider("Claude - " + model);
-    response.setCached(false);
+  public String getProviderName() {
+    return "Claude - " + model;
+  }
 
-    return response;
+  @Override
+  protected String model() {
+    return model;
   }
 
   @Override
-  public boolean isAvailable() {
-    return apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-api-key-here");
+  protected double temperature() {
+    return temperature;
   }
 
   @Override
-  public String getProviderName() {
-    return "Claude - " + model;
+  protected int maxTokens() {
+    return maxTokens;
   }
 
-  // ========== PRIVATE METHODS ==========
+  @Override
+  protected int choicesMaxTokens() {
+    return maxTokens;
+  }
 
-  private String callClaude(String prompt) {
+  @Override
+  protected AICompletion call(String prompt, int tokens) {
     if (!isAvailable()) {
       throw new IllegalStateException("Claude API key not configured");
     }
 
     try {
-      // Build request body (Claude's format)
-      Map<String, Object> requestBody = new HashMap<>();
-      requestBody.put("model", model);
-      requestBody.put("max_tokens", maxTokens);
-      requestBody.put("temperature", temperature);
-
-      // Claude uses a messages array format
-      List<Map<String, String>> messages = new ArrayList<>();
-      messages.add(Map.of(
-        "role", "user",
-        "content", prompt
-      ));
-      requestBody.put("messages", messages);
-
-      // Set headers (Claude-specific)
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(MediaType.APPLICATION_JSON);
-      headers.set("x-api-key", apiKey);
-      headers.set("anthropic-version", "2023-06-01");
-
-      HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+      HttpEntity<Map<String, Object>> entity =
+        new HttpEntity<>(buildRequestBody(prompt, tokens), buildHeaders());
 
       // Make request
       ResponseEntity<String> response = restTemplate.exchange(
@@ -166,24 +108,113 @@ public class ClaudeStoryGenerator implements AIStoryGenerator {
         entity,
         String.class
       );
+      rateLimiter.observe("claude", model, response.getHeaders());
 
       // Parse response (Claude's format)
       JsonNode root = objectMapper.readTree(response.getBody());
       JsonNode content = root.path("content");
 
       if (content.isArray() && content.size() > 0) {
-        return content.get(0).path("text").asText();
+        JsonNode usage = root.path("usage");
+        return new AICompletion(
+          content.get(0).path("text").asText(),
+          tokenCount(usage, "input_tokens"),
+          tokenCount(usage, "output_tokens"));
       }
 
       throw new RuntimeException("Unexpected response format from Claude API");
 
     } catch (Exception e) {
+      observeRateLimit(e);
       logger.error("Error calling Claude API", e);
       throw new RuntimeException("Failed to generate content from Claude", e);
     }
   }
 
-  private String buildStoryPrompt(GenerateStoryRequest request) {
+  /** Like call, but streamed over SSE, passing each text delta to onDelta as it arrives */
+  @Override
+  protected AICompletion stream(String prompt, int tokens, Consumer<String> onDelta) {
+    if (!isAvailable()) {
+      throw new IllegalStateException("Claude API key not configured");
+    }
+
+    Map<String, Object> requestBody = buildRequestBody(prompt, tokens);
+    requestBody.put("stream", true);
+
+    try {
+      return restTemplate.execute(
+        CLAUDE_API_URL,
+        HttpMethod.POST,
+        request -> {
+          request.getHeaders().putAll(buildHeaders());
+          objectMapper.writeValue(request.getBody(), requestBody);
+        },
+        response -> {
+          rateLimiter.observe("claude", model, response.getHeaders());
+          StringBuilder text = new StringBuilder();
+          Integer[] usage = new Integer[2];
+          streaming.readEvents(response.getBody(), event -> {
+            switch (event.path("type").asText()) {
+              case "message_start" ->
+                usage[0] = tokenCount(event.path("message").path("usage"), "input_tokens");
+              case "content_block_delta" -> {
+                String delta = event.path("delta").path("text").asText("");
+                if (!delta.isEmpty()) {
+                  text.append(delta);
+                  onDelta.accept(delta);
+                }
+              }
+              case "message_delta" -> usage[1] = tokenCount(event.path("usage"), "output_tokens");
+              case "error" -> throw new IllegalStateException(
+                "Claude stream error: " + event.path("error").path("message").asText());
+              default -> {
+                // ping, content_block_start/stop, message_stop
+              }
+            }
+          });
+          return new AICompletion(text.toString(), usage[0], usage[1]);
+        });
+    } catch (Exception e) {
+      observeRateLimit(e);
+      logger.error("Error streaming from Claude API", e);
+      throw new RuntimeException("Failed to stream content from Claude", e);
+    }
+  }
+
+  /** Rate limit headers of an error response, e.g. a 429's Retry-After */
+  private void observeRateLimit(Exception e) {
+    if (e instanceof RestClientResponseException responseException) {
+      rateLimiter.observe("claude", model, responseException.getResponseHeaders());
+    }
+  }
+
+  private Map<String, Object> buildRequestBody(String prompt, int tokens) {
+    // Claude's format: a messages array
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("model", model);
+    requestBody.put("max_tokens", tokens);
+    requestBody.put("temperature", temperature);
+
+    List<Map<String, String>> messages = new ArrayList<>();
+    messages.add(Map.of(
+      "role", "user",
+      "content", prompt
+    ));
+    requestBody.put("messages", messages);
+    return requestBody;
+  }
+
+  private HttpHeaders buildHeaders() {
+    // Claude-specific headers
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("x-api-key", apiKey);
+    headers.set("anthropic-version", "2023-06-01");
+    return headers;
+  }
+
+  @Override
+  protected String buildStoryPrompt(GenerateStoryRequest request, Map<String, Object> context) {
     StringBuilder prompt = new StringBuilder();
     prompt.append("You are a masterful storyteller creating an interactive fiction experience.\n\n");
     prompt.append("Generate an engaging story chapter with these specifications:\n\n");
@@ -199,9 +230,9 @@ public class ClaudeStoryGenerator implements AIStoryGenerator {
       prompt.append("Target length: approximately ").append(request.getTargetLength()).append(" words\n");
     }
 
-    if (request.getContext() != null && !request.getContext().isEmpty()) {
+    if (context != null && !context.isEmpty()) {
       prompt.append("\nStory context and previous events:\n");
-      request.getContext().forEach((key, value) ->
+      context.forEach((key, value) ->
         prompt.append("- ").append(key).append(": ").append(value).append("\n")
       );
     }
@@ -216,7 +247,8 @@ public class ClaudeStoryGenerator implements AIStoryGenerator {
     return prompt.toString();
   }
 
-  private String buildChoicesPrompt(GenerateChoicesRequest request) {
+  @Override
+  protected String buildChoicesPrompt(GenerateChoicesRequest request) {
     int numChoices = request.getNumberOfChoices() != null ? request.getNumberOfChoices() : 3;
 
     StringBuilder prompt = new StringBuilder();
@@ -246,91 +278,8 @@ public class ClaudeStoryGenerator implements AIStoryGenerator {
     return prompt.toString();
   }
 
-  private List<GeneratedChoicesResponse.GeneratedChoice> parseChoices(String content, int expectedCount) {
-    List<GeneratedChoicesResponse.GeneratedChoice> choices = new ArrayList<>();
-
-    String[] lines = content.split("\n");
-    String currentChoice = null;
-    String currentConsequence = null;
-    String currentTone = null;
-
-    for (String line : lines) {
-      line = line.trim();
-
-      if (line.startsWith("CHOICE:")) {
-        currentChoice = line.substring(7).trim();
-      } else if (line.startsWith("CONSEQUENCE:")) {
-        currentConsequence = line.substring(12).trim();
-      } else if (line.startsWith("TONE:")) {
-        currentTone = line.substring(5).trim();
-
-        // We have all parts, create the choice
-        if (currentChoice != null && currentConsequence != null) {
-          GeneratedChoicesResponse.GeneratedChoice choice =
-            new GeneratedChoicesResponse.GeneratedChoice(currentChoice, currentConsequence);
-          choice.setEmotionalTone(currentTone);
-          choices.add(choice);
-
-          // Reset for next choice
-          currentChoice = null;
-          currentConsequence = null;
-          currentTone = null;
-        }
-      }
-    }
-
-    // Add any remaining choice that might not have tone
-    if (currentChoice != null && currentConsequence != null) {
-      choices.add(new GeneratedChoicesResponse.GeneratedChoice(currentChoice, currentConsequence));
-    }
-
-    // Ensure we have expected count with fallbacks if needed
-    while (choices.size() < expectedCount) {
-      choices.add(new GeneratedChoicesResponse.GeneratedChoice(
-        "Continue forward",
-        "The story continues..."
-      ));
-    }
-
-    return choices.stream().limit(expectedCount).collect(Collectors.toList());
-  }
-
-  private String buildStoryCacheKey(GenerateStoryRequest request) {
-    return String.format("claude:story:%d:%d:%s",
-      request.getStoryId(),
-      request.getSessionId(),
-      Objects.hash(request.getGenre(), request.getTheme(), request.getTone())
-    );
-  }
-
-  private String buildChoicesCacheKey(GenerateChoicesRequest request) {
-    return String.format("claude:choices:%d:%d:%s",
-      request.getChapterId(),
-      request.getSessionId(),
-      Objects.hash(request.getCurrentSituation())
-    );
-  }
-
-  private GeneratedStoryResponse buildCachedStoryResponse(String content) {
-    GeneratedStoryResponse response = new GeneratedStoryResponse();
-    response.setContent(content);
-    response.setWordCount(countWords(content));
-    response.setAiProvider("Claude - " + model + " (cached)");
-    response.setCached(true);
-    return response;
-  }
-
-  private GeneratedChoicesResponse parseCachedChoices(String content) {
-    List<GeneratedChoicesResponse.GeneratedChoice> choices = parseChoices(content, 3);
-    GeneratedChoicesResponse response = new GeneratedChoicesResponse();
-    response.setChoices(choices);
-    response.setAiProvider("Claude - " + model + " (cached)");
-    response.setCached(true);
-    return response;
-  }
-
-  private int countWords(String text) {
-    if (text == null || text.isEmpty()) return 0;
-    return text.split("\\s+").length;
+  /** Token count reported under usage, or null when the provider left it out */
+  private static Integer tokenCount(JsonNode usage, String field) {
+    return usage.hasNonNull(field) ? usage.get(field).asInt() : null;
   }
 }
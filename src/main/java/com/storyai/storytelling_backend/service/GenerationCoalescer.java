@@ -0,0 +1,86 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+
+/**
+ * Single-flight registry for AI generations. The first caller for a key runs the generation; any
+ * concurrent caller for the same key waits on that result instead of calling the provider again.
+ * Waiters give up after a timeout and see the leader's failure if it fails.
+ */
+@Component
+public class GenerationCoalescer {
+
+  private static final Logger logger = LoggerFactory.getLogger(GenerationCoalescer.class);
+
+  private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight =
+      new ConcurrentHashMap<>();
+  private final long waitTimeoutMillis;
+
+  public GenerationCoalescer(
+      @Value("${ai.generation.coalesce.wait-timeout-seconds:90}") long waitTimeoutSeconds) {
+    this.waitTimeoutMillis = TimeUnit.SECONDS.toMillis(waitTimeoutSeconds);
+  }
+
+  /** Run the generation for the key, or join one already in flight */
+  public String execute(String key, Supplier<String> generation) {
+    CompletableFuture<String> leader = new CompletableFuture<>();
+    CompletableFuture<String> existing = inFlight.putIfAbsent(key, leader);
+
+    if (existing != null) {
+      logger.debug("Joining in-flight generation for key: {}", key);
+      return await(key, existing);
+    }
+
+    try {
+      String result = generation.get();
+      leader.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      leader.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, leader);
+    }
+  }
+
+  /** Number of generations currently in flight */
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+
+  private String await(String key, CompletableFuture<String> leader) {
+    try {
+      return leader.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      logger.warn("Timed out waiting for in-flight generation for key: {}", key);
+      throw AIServiceUnavailableException.generationPending(
+          (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitTimeoutMillis) / 3));
+    } catch (InterruptedException e) {
+      // Only this waiter is cancelled; the leader keeps running for everyone else
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for generation of " + key);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new RuntimeException("Generation failed for key " + key, cause);
+    }
+  }
+}
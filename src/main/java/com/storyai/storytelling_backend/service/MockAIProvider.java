@@ -0,0 +1,179 @@
+package com.storyai.storytelling_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import com.storyai.storytelling_backend.config.AIMockProperties;
+
+/**
+ * Stands in for a provider API without the network: deterministic text seeded from ai.mock.seed
+ * and the prompt, delivered after a fixed or lognormal time to first token at a steady token rate,
+ * with injected 503s and bursts of 429s carrying Retry-After, so the stack around it can be
+ * measured offline.
+ */
+public class MockAIProvider {
+
+  private static final String[] SUBJECTS = {
+    "The wind", "A distant bell", "Your companion", "The old map", "A shadow", "The lantern",
+    "Someone ahead", "The narrow path"
+  };
+  private static final String[] VERBS = {
+    "whispers of", "points toward", "hides", "reveals", "circles", "trembles near", "guards",
+    "echoes across"
+  };
+  private static final String[] OBJECTS = {
+    "the broken gate", "a forgotten oath", "the silver river", "an empty throne",
+    "the sealed door", "a trail of ash", "the northern ridge", "a stranger's promise"
+  };
+  private static final String[] CODAS = {
+    "and nothing feels certain anymore.", "as the light begins to fade.",
+    "while your heart beats faster.", "though no one dares to speak.",
+    "and the air grows colder.", "as if it had been waiting for you."
+  };
+  private static final String[] ACTIONS = {
+    "Investigate", "Sneak past", "Confront the keeper of", "Bargain for", "Turn away from",
+    "Study"
+  };
+  private static final String[] CONSEQUENCES = {
+    "You may learn the truth, at a price.", "Safety now, but the trail may go cold.",
+    "An ally could become an enemy.", "The way forward opens, for a while.",
+    "Something follows you.", "Old secrets surface."
+  };
+  private static final String[] TONES = {"brave", "cautious", "clever", "aggressive", "diplomatic"};
+
+  private final AIMockProperties properties;
+  private final LongSupplier nanoClock;
+  private final long startNanos;
+  // Latency and error draws; the text has its own per-prompt generator
+  private final Random random;
+
+  public MockAIProvider(AIMockProperties properties) {
+    this(properties, System::nanoTime);
+  }
+
+  public MockAIProvider(AIMockProperties properties, LongSupplier nanoClock) {
+    this.properties = properties;
+    this.nanoClock = nanoClock;
+    this.startNanos = nanoClock.getAsLong();
+    this.random = new Random(properties.getSeed());
+  }
+
+  /** About the given number of words of prose, the same for the same seed and prompt */
+  public String prose(String prompt, String genre, int words) {
+    Random text = textRandom(prompt);
+    StringBuilder prose = new StringBuilder();
+    if (genre != null) {
+      prose.append("The ").append(genre.toLowerCase(Locale.ROOT)).append(" tale continues. ");
+    }
+    int written = 0;
+    for (int sentences = 1; written < words; sentences++) {
+      String sentence =
+          String.join(
+              " ", pick(text, SUBJECTS), pick(text, VERBS), pick(text, OBJECTS), pick(text, CODAS));
+      prose.append(sentence).append(sentences % 5 == 0 ? "\n\n" : " ");
+      written += sentence.split(" ").length;
+    }
+    return prose.toString().strip();
+  }
+
+  /** CHOICE / CONSEQUENCE / TONE blocks, the same for the same seed and prompt */
+  public String choices(String prompt, int count) {
+    Random text = textRandom(prompt);
+    StringBuilder choices = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      choices.append("CHOICE: ").append(pick(text, ACTIONS)).append(' ');
+      choices.append(pick(text, OBJECTS)).append('\n');
+      choices.append("CONSEQUENCE: ").append(pick(text, CONSEQUENCES)).append('\n');
+      choices.append("TONE: ").append(pick(text, TONES)).append("\n\n");
+    }
+    return choices.toString().strip();
+  }
+
+  /**
+   * Answer a call with the text: fail if an error is due, wait for the first token, then hand the
+   * text to onDelta (if any) a word at a time at the configured token rate.
+   */
+  public AICompletion complete(String prompt, String text, Consumer<String> onDelta) {
+    failIfInjected();
+    sleepNanos(TimeUnit.MILLISECONDS.toNanos(firstTokenMillis()));
+
+    double tokensPerSecond = properties.getLatency().getTokensPerSecond();
+    // About four characters to a token
+    double nanosPerChar = tokensPerSecond > 0 ? 1e9 / (tokensPerSecond * 4) : 0;
+    if (onDelta == null) {
+      sleepNanos((long) (text.length() * nanosPerChar));
+    } else {
+      for (String word : text.split("(?<=\\s)")) {
+        sleepNanos((long) (word.length() * nanosPerChar));
+        onDelta.accept(word);
+      }
+    }
+    return new AICompletion(
+        text, AIRateLimiter.estimateTokens(prompt, 0), AIRateLimiter.estimateTokens(text, 0));
+  }
+
+  private void failIfInjected() {
+    AIMockProperties.Errors errors = properties.getErrors();
+    long period = errors.getBurstEverySeconds();
+    if (period > 0) {
+      long second = TimeUnit.NANOSECONDS.toSeconds(nanoClock.getAsLong() - startNanos);
+      if (second % period >= period - errors.getBurstSeconds()) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(errors.getRetryAfterSeconds()));
+        throw HttpClientErrorException.create(
+            HttpStatus.TOO_MANY_REQUESTS,
+            "Too Many Requests",
+            headers,
+            new byte[0],
+            StandardCharsets.UTF_8);
+      }
+    }
+    if (errors.getServerErrorRate() > 0 && random.nextDouble() < errors.getServerErrorRate()) {
+      throw HttpServerErrorException.create(
+          HttpStatus.SERVICE_UNAVAILABLE,
+          "Service Unavailable",
+          HttpHeaders.EMPTY,
+          new byte[0],
+          StandardCharsets.UTF_8);
+    }
+  }
+
+  private long firstTokenMillis() {
+    AIMockProperties.Latency latency = properties.getLatency();
+    if (latency.getProfile() == AIMockProperties.LatencyProfile.LOGNORMAL) {
+      double draw = Math.exp(latency.getSigma() * random.nextGaussian());
+      return Math.round(latency.getMedianMs() * draw);
+    }
+    return latency.getFixedMs();
+  }
+
+  private Random textRandom(String prompt) {
+    return new Random(properties.getSeed() * 31 + prompt.hashCode());
+  }
+
+  private static String pick(Random random, String[] options) {
+    return options[random.nextInt(options.length)];
+  }
+
+  private static void sleepNanos(long nanos) {
+    if (nanos <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted during a mock provider call");
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
+
+import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.config.AIMockProperties;
+
+/**
+ * Offline provider for load and integration tests, selected with ai.provider=mock. Requests take
+ * the same path as with a real provider (cache, coalescing, rate and concurrency limits, ledger);
+ * only the API call is answered by {@link MockAIProvider}, which writes what the prompt asks for.
+ * Needs no API key.
+ */
+@Service
+@ConditionalOnProperty(name = "ai.provider", havingValue = "mock")
+public class MockStoryGenerator extends AbstractAIStoryGenerator {
+
+  private static final Logger logger = LoggerFactory.getLogger(MockStoryGenerator.class);
+  // The output depends only on the seed and prompt
+  private static final double TEMPERATURE = 0.0;
+  private static final int CHOICES_MAX_TOKENS = 500;
+  private static final int DEFAULT_WORDS = 300;
+  // Lines of the prompts below that say what to write
+  private static final Pattern GENRE = Pattern.compile("^Genre: (.*)$", Pattern.MULTILINE);
+  private static final Pattern TARGET_LENGTH =
+      Pattern.compile("^Target length: (\\d+) words$", Pattern.MULTILINE);
+  private static final Pattern CHOICES = Pattern.compile("^Choices: (\\d+)$", Pattern.MULTILINE);
+
+  private final MockAIProvider provider;
+  private final String model;
+  private final int maxTokens;
+
+  public MockStoryGenerator(
+      AIMockProperties properties,
+      AICacheService cacheService,
+      GenerationCoalescer coalescer,
+      AICacheKeyGenerator keyGenerator,
+      CachedChoicesCodec choicesCodec,
+      AIGenerationLedger ledger,
+      AIStreamingSupport streaming,
+      AIConcurrencyLimiter limiter,
+      AIRateLimiter rateLimiter,
+      AIRetryPolicy retryPolicy,
+      StoryContextCompactor contextCompactor) {
+    super(
+        "mock",
+        cacheService,
+        coalescer,
+        keyGenerator,
+        choicesCodec,
+        ledger,
+        streaming,
+        limiter,
+        rateLimiter,
+        retryPolicy,
+        contextCompactor);
+    this.provider = new MockAIProvider(properties);
+    this.model = properties.getModel();
+    this.maxTokens = properties.getMaxTokens();
+    logger.warn("Using the mock AI provider; generated content is placeholder text");
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return true;
+  }
+
+  @Override
+  public String getProviderName() {
+    return "Mock - " + model;
+  }
+
+  @Override
+  protected String model() {
+    return model;
+  }
+
+  @Override
+  protected double temperature() {
+    return TEMPERATURE;
+  }
+
+  @Override
+  protected int maxTokens() {
+    return maxTokens;
+  }
+
+  @Override
+  protected int choicesMaxTokens() {
+    return CHOICES_MAX_TOKENS;
+  }
+
+  @Override
+  protected AICompletion call(String prompt, int tokens) {
+    return answer(prompt, null);
+  }
+
+  @Override
+  protected AICompletion stream(String prompt, int tokens, Consumer<String> onDelta) {
+    return answer(prompt, onDelta);
+  }
+
+  @Override
+  protected String buildStoryPrompt(GenerateStoryRequest request, Map<String, Object> context) {
+    StringBuilder prompt = new StringBuilder();
+    prompt.append("Genre: ").append(request.getGenre()).append("\n");
+    if (request.getTheme() != null) {
+      prompt.append("Theme: ").append(request.getTheme()).append("\n");
+    }
+    if (request.getTone() != null) {
+      prompt.append("Tone: ").append(request.getTone()).append("\n");
+    }
+    if (request.getTargetLength() != null) {
+      prompt.append("Target length: ").append(request.getTargetLength()).append(" words\n");
+    }
+
+    if (context != null && !context.isEmpty()) {
+      prompt.append("\nStory context:\n");
+      context.forEach(
+          (key, value) -> prompt.append("- ").append(key).append(": ").append(value).append("\n"));
+    }
+    prompt.append("\nBegin the chapter:");
+    return prompt.toString();
+  }
+
+  @Override
+  protected String buildChoicesPrompt(GenerateChoicesRequest request) {
+    int numChoices = request.getNumberOfChoices() != null ? request.getNumberOfChoices() : 3;
+    StringBuilder prompt = new StringBuilder();
+    prompt.append("Situation:\n").append(request.getCurrentSituation()).append("\n\n");
+    prompt.append("Choices: ").append(numChoices).append("\n");
+    if (request.getDifficultyLevel() != null) {
+      prompt.append("Difficulty level: ").append(request.getDifficultyLevel()).append("\n");
+    }
+    return prompt.toString();
+  }
+
+  private AICompletion answer(String prompt, Consumer<String> onDelta) {
+    try {
+      return provider.complete(prompt, text(prompt), onDelta);
+    } catch (RestClientResponseException e) {
+      // Injected 429s carry Retry-After, as the real providers' do
+      rateLimiter.observe("mock", model, e.getResponseHeaders());
+      throw new RuntimeException("Failed to generate content from the mock provider", e);
+    }
+  }
+
+  /** Choices, a chapter, or a chapter followed by choices, whichever the prompt asks for */
+  private String text(String prompt) {
+    Matcher choices = CHOICES.matcher(prompt);
+    if (choices.find()) {
+      return provider.choices(prompt, Integer.parseInt(choices.group(1)));
+    }
+
+    Matcher genre = GENRE.matcher(prompt);
+    Matcher targetLength = TARGET_LENGTH.matcher(prompt);
+    int words = targetLength.find() ? Integer.parseInt(targetLength.group(1)) : DEFAULT_WORDS;
+    // About three words to four tokens
+    String chapter =
+        provider.prose(
+            prompt, genre.find() ? genre.group(1) : null, Math.min(words, maxTokens * 3 / 4));
+
+    int turnChoices = StoryTurnFormat.requestedChoices(prompt);
+    if (turnChoices == 0) {
+      return chapter;
+    }
+    return chapter
+        + "\n\n"
+        + StoryTurnFormat.CHOICES_MARKER
+        + "\n"
+        + provider.choices(prompt, turnChoices);
+  }
+}
@@ -6,30 +6,27 @@ import com.storyai.storytelling_backend.DTO.*;
 import com.storyai.storytelling_backend.config.AIProviderConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * OpenAI implementation of AI story generation
  * Uses GPT-4 or GPT-3.5-turbo for content generation
  */
 @Service
-@ConditionalOnProperty(
-  prefix = "ai",
-  name = "provider",
-  havingValue = "openai",
-  matchIfMissing = true
-)
-public class OpenAIStoryGenerator implements AIStoryGenerator {
+// Also created for the router, which holds both providers
+@ConditionalOnExpression("'${ai.provider:openai}' matches 'openai|router'")
+public class OpenAIStoryGenerator extends AbstractAIStoryGenerator {
 
   private static final Logger logger = LoggerFactory.getLogger(OpenAIStoryGenerator.class);
   private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
+  private static final int CHOICES_MAX_TOKENS = 500;
 
   private final AIProviderConfig.OpenAIConfig config;
   private final String apiKey;
@@ -39,15 +36,24 @@ public class OpenAIStoryGenerator implements AIStoryGenerator {
 
   private final RestTemplate restTemplate;
   private final ObjectMapper objectMapper;
-  private final AICacheService cacheService;
 
   public OpenAIStoryGenerator(RestTemplate restTemplate,
                             ObjectMapper objectMapper,
                             AICacheService cacheService,
+                            GenerationCoalescer coalescer,
+                            AICacheKeyGenerator keyGenerator,
+                            CachedChoicesCodec choicesCodec,
+                            AIGenerationLedger ledger,
+                            AIStreamingSupport streaming,
+                            AIConcurrencyLimiter limiter,
+                            AIRateLimiter rateLimiter,
+                            AIRetryPolicy retryPolicy,
+                            StoryContextCompactor contextCompactor,
                             AIProviderConfig config) {
+    super("openai", cacheService, coalescer, keyGenerator, choicesCodec, ledger, streaming,
+      limiter, rateLimiter, retryPolicy, contextCompactor);
     this.restTemplate = restTemplate;
     this.objectMapper = objectMapper;
-    this.cacheService = cacheService;
 
     if (config.getOpenai() == null) {
       throw new IllegalStateException("OpenAI configuration is missing.");
@@ -67,106 +73,44 @@ public class OpenAIStoryGenerator implements AIStoryGenerator {
   }
 
   @Override
-  public GeneratedStoryResponse generateStory(GenerateStoryRequest request) {
-    logger.info("Generating story for session: {}", request.getSessionId());
-
-    // Check cache first
-    String cacheKey = buildStoryCacheKey(request);
-    Optional<String> cached = cacheService.getCachedContent(cacheKey);
-
-    if (cached.isPresent()) {
-      logger.info("Returning cached story content");
-      return buildCachedStoryResponse(cached.get());
-    }
-
-    // Build prompt
-    String prompt = buildStoryPrompt(request);
-
-    // Call OpenAI API
-    String content = callOpenAI(prompt, maxTokens);
-
-    // Cache the result
-    cacheService.cacheContent(cacheKey, content);
-
-    // Build response
-    GeneratedStoryResponse response = new GeneratedStoryResponse();
-    response.setContent(content);
-    response.setWordCount(countWords(content));
-    response.setAiProvider("OpenAI - " + model);
-    response.setCached(false);
-
-    return response;
+  public boolean isAvailable() {
+    return apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-api-key-here");
   }
 
   @Override
-  public GeneratedChoicesResponse generateChoices(GenerateChoicesRequest request) {
-    logger.info("Generating choices for chapter: {}", request.getChapterId());
-
-    // Check cache
-    String cacheKey = buildChoicesCacheKey(request);
-    Optional<String> cached = cacheService.getCachedContent(cacheKey);
-
-    if (cached.isPresent()) {
-      logger.info("Returning cached choices");
-      return parseCachedChoices(cached.get());
-    }
-
-    // Build prompt
-    String prompt = buildChoicesPrompt(request);
-
-    // Call OpenAI API
-    String content = callOpenAI(prompt, 500);
-
-    // Parse choices from response
-    List<GeneratedChoicesResponse.GeneratedChoice> choices = parseChoices(content,
-      request.getNumberOfChoices() != null ? request.getNumberOfChoices() : 3);
-
-    // Cache the result
-    cacheService.cacheContent(cacheKey, content);
-
-    GeneratedChoicesResponse response = new GeneratedChoicesResponse();
-    response.setChoices(choices);
-    response.setAiProvider("OpenAI - " + model);
-    response.setCached(false);
+  public String getProviderName() {
+    return "OpenAI - " + model;
+  }
 
-    return response;
+  @Override
+  protected String model() {
+    return model;
   }
 
   @Override
-  public boolean isAvailable() {
-    return apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-api-key-here");
+  protected double temperature() {
+    return temperature;
   }
 
   @Override
-  public String getProviderName() {
-    return "OpenAI - " + model;
+  protected int maxTokens() {
+    return maxTokens;
   }
 
-  // ========== PRIVATE METHODS ==========
+  @Override
+  protected int choicesMaxTokens() {
+    return CHOICES_MAX_TOKENS;
+  }
 
-  private String callOpenAI(String prompt, Integer tokens) {
+  @Override
+  protected AICompletion call(String prompt, int tokens) {
     if (!isAvailable()) {
       throw new IllegalStateException("OpenAI API key not configured");
     }
 
     try {
-      // Build request body
-      Map<String, Object> requestBody = new HashMap<>();
-      requestBody.put("model", model);
-      requestBody.put("max_tokens", tokens);
-      requestBody.put("temperature", temperature);
-
-      List<Map<String, String>> messages = new ArrayList<>();
-      messages.add(Map.of("role", "system", "content", "You are a creative storyteller specializing in interactive fiction."));
-      messages.add(Map.of("role", "user", "content", prompt));
-      requestBody.put("messages", messages);
-
-      // Set headers
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(MediaType.APPLICATION_JSON);
-      headers.setBearerAuth(apiKey);
-
-      HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+      HttpEntity<Map<String, Object>> entity =
+        new HttpEntity<>(buildRequestBody(prompt, tokens), buildHeaders());
 
       // Make request
       ResponseEntity<String> response = restTemplate.exchange(
@@ -175,18 +119,100 @@ public class OpenAIStoryGenerator implements AIStoryGenerator {
         entity,
         String.class
       );
+      rateLimiter.observe("openai", model, response.getHeaders());
 
       // Parse response
       JsonNode root = objectMapper.readTree(response.getBody());
-      return root.path("choices").get(0).path("message").path("content").asText();
+      JsonNode usage = root.path("usage");
+      return new AICompletion(
+        root.path("choices").get(0).path("message").path("content").asText(),
+        tokenCount(usage, "prompt_tokens"),
+        tokenCount(usage, "completion_tokens"));
 
     } catch (Exception e) {
+      observeRateLimit(e);
       logger.error("Error calling OpenAI API", e);
       throw new RuntimeException("Failed to generate content from OpenAI", e);
     }
   }
 
-  private String buildStoryPrompt(GenerateStoryRequest request) {
+  /** Like call, but with stream: true, passing each text delta to onDelta as it arrives */
+  @Override
+  protected AICompletion stream(String prompt, int tokens, Consumer<String> onDelta) {
+    if (!isAvailable()) {
+      throw new IllegalStateException("OpenAI API key not configured");
+    }
+
+    Map<String, Object> requestBody = buildRequestBody(prompt, tokens);
+    requestBody.put("stream", true);
+    // The last chunk then carries the token usage
+    requestBody.put("stream_options", Map.of("include_usage", true));
+
+    try {
+      return restTemplate.execute(
+        OPENAI_API_URL,
+        HttpMethod.POST,
+        request -> {
+          request.getHeaders().putAll(buildHeaders());
+          objectMapper.writeValue(request.getBody(), requestBody);
+        },
+        response -> {
+          rateLimiter.observe("openai", model, response.getHeaders());
+          StringBuilder text = new StringBuilder();
+          JsonNode[] usage = {objectMapper.missingNode()};
+          streaming.readEvents(response.getBody(), event -> {
+            JsonNode choices = event.path("choices");
+            if (choices.size() > 0) {
+              String delta = choices.get(0).path("delta").path("content").asText("");
+              if (!delta.isEmpty()) {
+                text.append(delta);
+                onDelta.accept(delta);
+              }
+            }
+            if (event.hasNonNull("usage")) {
+              usage[0] = event.get("usage");
+            }
+          });
+          return new AICompletion(text.toString(),
+            tokenCount(usage[0], "prompt_tokens"),
+            tokenCount(usage[0], "completion_tokens"));
+        });
+    } catch (Exception e) {
+      observeRateLimit(e);
+      logger.error("Error streaming from OpenAI API", e);
+      throw new RuntimeException("Failed to stream content from OpenAI", e);
+    }
+  }
+
+  /** Rate limit headers of an error response, e.g. a 429's Retry-After */
+  private void observeRateLimit(Exception e) {
+    if (e instanceof RestClientResponseException responseException) {
+      rateLimiter.observe("openai", model, responseException.getResponseHeaders());
+    }
+  }
+
+  private Map<String, Object> buildRequestBody(String prompt, Integer tokens) {
+    Map<String, Object> requestBody = new HashMap<>();
+    requestBody.put("model", model);
+    requestBody.put("max_tokens", tokens);
+    requestBody.put("temperature", temperature);
+
+    List<Map<String, String>> messages = new ArrayList<>();
+    messages.add(Map.of("role", "system", "content", "You are a creative storyteller specializing in interactive fiction."));
+    messages.add(Map.of("role", "user", "content", prompt));
+    requestBody.put("messages", messages);
+    return requestBody;
+  }
+
+  private HttpHeaders buildHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.setBearerAuth(apiKey);
+    return headers;
+  }
+
+  @Override
+  protected String buildStoryPrompt(GenerateStoryRequest request, Map<String, Object> context) {
     StringBuilder prompt = new StringBuilder();
     prompt.append("Generate an engaging story chapter with the following specifications:\n\n");
     prompt.append("Genre: ").append(request.getGenre()).append("\n");
@@ -201,9 +227,9 @@ public class OpenAIStoryGenerator implements AIStoryGenerator {
       prompt.append("Target length: approximately ").append(request.getTargetLength()).append(" words\n");
     }
 
-    if (request.getContext() != null && !request.getContext().isEmpty()) {
+    if (context != null && !context.isEmpty()) {
       prompt.append("\nStory context:\n");
-      request.getContext().forEach((key, value) ->
+      context.forEach((key, value) ->
         prompt.append("- ").append(key).append(": ").append(value).append("\n")
       );
     }
@@ -212,7 +238,8 @@ public class OpenAIStoryGenerator implements AIStoryGenerator {
     return prompt.toString();
   }
 
-  private String buildChoicesPrompt(GenerateChoicesRequest request) {
+  @Override
+  protected String buildChoicesPrompt(GenerateChoicesRequest request) {
     int numChoices = request.getNumberOfChoices() != null ? request.getNumberOfChoices() : 3;
 
     StringBuilder prompt = new StringBuilder();
@@ -231,70 +258,8 @@ public class OpenAIStoryGenerator implements AIStoryGenerator {
     return prompt.toString();
   }
 
-  private List<GeneratedChoicesResponse.GeneratedChoice> parseChoices(String content, int expectedCount) {
-    List<GeneratedChoicesResponse.GeneratedChoice> choices = new ArrayList<>();
-
-    String[] lines = content.split("\n");
-    String currentChoice = null;
-
-    for (String line : lines) {
-      line = line.trim();
-      if (line.startsWith("CHOICE:")) {
-        currentChoice = line.substring(7).trim();
-      } else if (line.startsWith("CONSEQUENCE:") && currentChoice != null) {
-        String consequence = line.substring(12).trim();
-        choices.add(new GeneratedChoicesResponse.GeneratedChoice(currentChoice, consequence));
-        currentChoice = null;
-      }
-    }
-
-    // Ensure we have the expected number of choices
-    while (choices.size() < expectedCount) {
-      choices.add(new GeneratedChoicesResponse.GeneratedChoice(
-        "Continue the journey",
-        "The story continues..."
-      ));
-    }
-
-    return choices.stream().limit(expectedCount).collect(Collectors.toList());
-  }
-
-  private String buildStoryCacheKey(GenerateStoryRequest request) {
-    return String.format("story:%d:%d:%s",
-      request.getStoryId(),
-      request.getSessionId(),
-      Objects.hash(request.getGenre(), request.getTheme(), request.getTone())
-    );
-  }
-
-  private String buildChoicesCacheKey(GenerateChoicesRequest request) {
-    return String.format("choices:%d:%d:%s",
-      request.getChapterId(),
-      request.getSessionId(),
-      Objects.hash(request.getCurrentSituation())
-    );
-  }
-
-  private GeneratedStoryResponse buildCachedStoryResponse(String content) {
-    GeneratedStoryResponse response = new GeneratedStoryResponse();
-    response.setContent(content);
-    response.setWordCount(countWords(content));
-    response.setAiProvider("OpenAI - " + model + " (cached)");
-    response.setCached(true);
-    return response;
-  }
-
-  private GeneratedChoicesResponse parseCachedChoices(String content) {
-    List<GeneratedChoicesResponse.GeneratedChoice> choices = parseChoices(content, 3);
-    GeneratedChoicesResponse response = new GeneratedChoicesResponse();
-    response.setChoices(choices);
-    response.setAiProvider("OpenAI - " + model + " (cached)");
-    response.setCached(true);
-    return response;
-  }
-
-  private int countWords(String text) {
-    if (text == null || text.isEmpty()) return 0;
-    return text.split("\\s+").length;
+  /** Token count reported under usage, or null when the provider left it out */
+  private static Integer tokenCount(JsonNode usage, String field) {
+    return usage.hasNonNull(field) ? usage.get(field).asInt() : null;
   }
 }
@@ -0,0 +1,176 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+
+/**
+ * Rolling health of one AI provider for the router: p95 latency and error rate over the last
+ * ai.resilience.routing.window-size calls, and a circuit breaker. The breaker opens when the error
+ * rate reaches failure-rate-threshold (after minimum-calls) or after consecutive-failures in a
+ * row; once open-seconds have passed a single probe call is let through, and its outcome closes or
+ * reopens the breaker.
+ */
+public class ProviderHealth {
+
+  public enum State {
+    CLOSED,
+    HALF_OPEN,
+    OPEN
+  }
+
+  private final String provider;
+  private final AIResilienceProperties.Routing properties;
+  private final LongSupplier nanoClock;
+
+  // Ring buffers of the latest calls; latency is NaN for failures
+  private final double[] latencies;
+  private final boolean[] failures;
+  private int next;
+  private int size;
+  private int consecutiveFailures;
+
+  private State state = State.CLOSED;
+  private long openedAtNanos;
+  private boolean probeInFlight;
+
+  public ProviderHealth(String provider, AIResilienceProperties.Routing properties) {
+    this(provider, properties, System::nanoTime);
+  }
+
+  public ProviderHealth(
+      String provider, AIResilienceProperties.Routing properties, LongSupplier nanoClock) {
+    this.provider = provider;
+    this.properties = properties;
+    this.nanoClock = nanoClock;
+    this.latencies = new double[properties.getWindowSize()];
+    this.failures = new boolean[properties.getWindowSize()];
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  /** Whether a call may go to the provider now; in half-open state this claims the one probe */
+  public synchronized boolean tryAcquire() {
+    if (state == State.OPEN) {
+      long openNanos = TimeUnit.SECONDS.toNanos(properties.getOpenSeconds());
+      if (nanoClock.getAsLong() - openedAtNanos < openNanos) {
+        return false;
+      }
+      state = State.HALF_OPEN;
+      probeInFlight = false;
+    }
+    if (state == State.HALF_OPEN) {
+      if (probeInFlight) {
+        return false;
+      }
+      probeInFlight = true;
+    }
+    return true;
+  }
+
+  /** Whether the breaker would let a call through, without claiming a probe */
+  public synchronized boolean isCallPermitted() {
+    return switch (state) {
+      case CLOSED -> true;
+      case HALF_OPEN -> !probeInFlight;
+      case OPEN ->
+          nanoClock.getAsLong() - openedAtNanos
+              >= TimeUnit.SECONDS.toNanos(properties.getOpenSeconds());
+    };
+  }
+
+  public synchronized void recordSuccess(long latencyNanos) {
+    if (state == State.HALF_OPEN) {
+      // The probe succeeded: start over with a clean window
+      state = State.CLOSED;
+      probeInFlight = false;
+      next = 0;
+      size = 0;
+    }
+    add(latencyNanos / 1_000_000.0, false);
+    consecutiveFailures = 0;
+  }
+
+  public synchronized void recordFailure() {
+    add(Double.NaN, true);
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN
+        || consecutiveFailures >= properties.getConsecutiveFailures()
+        || (size >= properties.getMinimumCalls()
+            && errorRate() >= properties.getFailureRateThreshold())) {
+      open();
+    }
+  }
+
+  /** A call that says nothing about provider health: a cache hit, or shed by our own limits */
+  public synchronized void recordInconclusive() {
+    if (state == State.HALF_OPEN) {
+      probeInFlight = false;
+    }
+  }
+
+  /**
+   * Lower is better: p95 latency in milliseconds, inflated by the error rate. A provider with an
+   * empty window scores 0, so it gets tried; one whose window holds only failures scores worst.
+   */
+  public synchronized double score() {
+    if (size == 0) {
+      return 0;
+    }
+    double p95 = p95LatencyMillis();
+    if (Double.isNaN(p95)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return p95 * (1 + properties.getErrorPenalty() * errorRate());
+  }
+
+  /** p95 latency of successful calls in the window, or NaN when there are none */
+  public synchronized double p95LatencyMillis() {
+    double[] sorted = new double[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (!failures[i]) {
+        sorted[count++] = latencies[i];
+      }
+    }
+    if (count == 0) {
+      return Double.NaN;
+    }
+    Arrays.sort(sorted, 0, count);
+    return sorted[Math.min(count - 1, (int) Math.ceil(count * 0.95) - 1)];
+  }
+
+  public synchronized double errorRate() {
+    if (size == 0) {
+      return 0;
+    }
+    int failed = 0;
+    for (int i = 0; i < size; i++) {
+      if (failures[i]) {
+        failed++;
+      }
+    }
+    return (double) failed / size;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAtNanos = nanoClock.getAsLong();
+    probeInFlight = false;
+  }
+
+  private void add(double latencyMillis, boolean failed) {
+    latencies[next] = latencyMillis;
+    failures[next] = failed;
+    next = (next + 1) % latencies.length;
+    size = Math.min(size + 1, latencies.length);
+  }
+}
@@ -0,0 +1,372 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GenerateTurnRequest;
+import com.storyai.storytelling_backend.DTO.GeneratedChoicesResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedStoryResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedTurnResponse;
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Generator used when ai.provider=router: holds the OpenAI and Claude generators and sends each
+ * request to the healthy provider with the best {@link ProviderHealth#score()} (rolling p95 latency
+ * inflated by error rate). Providers whose circuit breaker is open are skipped. A failed call fails
+ * over to the next provider, unless a stream already sent text. With
+ * ai.resilience.routing.hedge-after-ms set, a story or choices call still running after that long
+ * is also sent to the next provider and the first success wins; the slower call still completes
+ * and is cached.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "ai", name = "provider", havingValue = "router")
+public class RoutingStoryGenerator implements AIStoryGenerator {
+
+  private static final Logger logger = LoggerFactory.getLogger(RoutingStoryGenerator.class);
+
+  private final List<Route> routes = new ArrayList<>();
+  private final AIResilienceProperties.Routing properties;
+  private final ThreadPoolExecutor hedgeExecutor;
+
+  private final MeterRegistry meterRegistry;
+  private final Counter failovers;
+  private final Counter hedges;
+
+  @Autowired
+  public RoutingStoryGenerator(
+      OpenAIStoryGenerator openAI,
+      ClaudeStoryGenerator claude,
+      AIResilienceProperties properties,
+      MeterRegistry meterRegistry) {
+    this(providers(openAI, claude), properties, meterRegistry);
+  }
+
+  /** Route between the given generators, keyed by provider name; ties go to the first */
+  public RoutingStoryGenerator(
+      Map<String, AIStoryGenerator> providers,
+      AIResilienceProperties properties,
+      MeterRegistry meterRegistry) {
+    this.properties = properties.getRouting();
+    this.meterRegistry = meterRegistry;
+    providers.forEach(
+        (name, generator) ->
+            routes.add(new Route(name, generator, new ProviderHealth(name, this.properties))));
+
+    AtomicInteger threadCount = new AtomicInteger();
+    int hedgeConcurrency = this.properties.getHedgeConcurrency();
+    this.hedgeExecutor =
+        new ThreadPoolExecutor(
+            hedgeConcurrency,
+            hedgeConcurrency,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(hedgeConcurrency),
+            runnable -> {
+              Thread thread = new Thread(runnable, "ai-hedge-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    this.failovers =
+        Counter.builder("ai.routing.failovers")
+            .description("Requests retried on another AI provider after a failure")
+            .register(meterRegistry);
+    this.hedges =
+        Counter.builder("ai.routing.hedges")
+            .description("Slow requests also sent to a second AI provider")
+            .register(meterRegistry);
+    for (Route route : routes) {
+      Gauge.builder("ai.routing.circuit.state", route.health, h -> h.getState().ordinal())
+          .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+          .tag("provider", route.name)
+          .register(meterRegistry);
+      Gauge.builder("ai.routing.latency.p95", route.health, ProviderHealth::p95LatencyMillis)
+          .description("Rolling p95 latency of successful provider calls, in milliseconds")
+          .tag("provider", route.name)
+          .baseUnit("milliseconds")
+          .register(meterRegistry);
+    }
+  }
+
+  @Override
+  public GeneratedStoryResponse generateStory(GenerateStoryRequest request) {
+    return route(
+        generator -> generator.generateStory(request),
+        response -> Boolean.TRUE.equals(response.getCached()),
+        true,
+        () -> true);
+  }
+
+  @Override
+  public GeneratedStoryResponse streamStory(
+      GenerateStoryRequest request, Consumer<String> onDelta) {
+    // Once text has reached the client another provider can't take over
+    AtomicBoolean sent = new AtomicBoolean();
+    Consumer<String> tracking =
+        delta -> {
+          sent.set(true);
+          onDelta.accept(delta);
+        };
+    return route(
+        generator -> generator.streamStory(request, tracking),
+        response -> Boolean.TRUE.equals(response.getCached()),
+        false,
+        () -> !sent.get());
+  }
+
+  @Override
+  public GeneratedChoicesResponse generateChoices(GenerateChoicesRequest request) {
+    return route(
+        generator -> generator.generateChoices(request),
+        response -> Boolean.TRUE.equals(response.getCached()),
+        true,
+        () -> true);
+  }
+
+  @Override
+  public GeneratedTurnResponse generateTurn(GenerateTurnRequest request) {
+    return route(
+        generator -> generator.generateTurn(request),
+        response -> Boolean.TRUE.equals(response.getStory().getCached()),
+        true,
+        () -> true);
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return routes.stream().anyMatch(route -> route.generator.isAvailable());
+  }
+
+  @Override
+  public String getProviderName() {
+    return routes.stream()
+        .filter(route -> route.generator.isAvailable())
+        .map(route -> route.generator.getProviderName())
+        .collect(Collectors.joining(", ", "Router (", ")"));
+  }
+
+  /** Health of each provider, in configuration order */
+  public List<ProviderHealth> getProviderHealth() {
+    return routes.stream().map(route -> route.health).toList();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    hedgeExecutor.shutdownNow();
+  }
+
+  /** Try providers best score first, failing over while canFailOver allows */
+  private <T> T route(
+      Function<AIStoryGenerator, T> call,
+      Predicate<T> cached,
+      boolean hedgeable,
+      BooleanSupplier canFailOver) {
+    List<Route> candidates = rankedRoutes();
+    Set<Route> tried = ConcurrentHashMap.newKeySet();
+    RuntimeException lastFailure = null;
+
+    for (int i = 0; i < candidates.size(); i++) {
+      Route route = candidates.get(i);
+      if (tried.contains(route) || !route.health.tryAcquire()) {
+        continue;
+      }
+      if (lastFailure != null) {
+        failovers.increment();
+      }
+      tried.add(route);
+
+      Route backup = null;
+      if (hedgeable && properties.getHedgeAfterMs() > 0 && i + 1 < candidates.size()) {
+        backup = candidates.get(i + 1);
+      }
+      try {
+        return backup != null
+            ? hedged(route, backup, call, cached, tried)
+            : attempt(route, call, cached);
+      } catch (RuntimeException e) {
+        lastFailure = e;
+        if (!canFailOver.getAsBoolean()) {
+          throw e;
+        }
+        logger.warn("AI provider {} failed, trying the next one", route.name, e);
+      }
+    }
+
+    if (lastFailure != null) {
+      throw lastFailure;
+    }
+    throw new AIServiceUnavailableException(
+        "No AI provider is currently available",
+        "AI_PROVIDERS_UNAVAILABLE",
+        (int) Math.max(1, properties.getOpenSeconds()));
+  }
+
+  /** Call one provider and feed the outcome into its health */
+  private <T> T attempt(Route route, Function<AIStoryGenerator, T> call, Predicate<T> cached) {
+    long start = System.nanoTime();
+    try {
+      T result = call.apply(route.generator);
+      if (cached.test(result)) {
+        route.health.recordInconclusive();
+      } else {
+        route.health.recordSuccess(System.nanoTime() - start);
+      }
+      calls(route.name, "success").increment();
+      return result;
+    } catch (AIServiceUnavailableException e) {
+      // Shed by our own limits rather than failed by the provider
+      route.health.recordInconclusive();
+      calls(route.name, "shed").increment();
+      throw e;
+    } catch (RuntimeException e) {
+      route.health.recordFailure();
+      calls(route.name, "failure").increment();
+      throw e;
+    }
+  }
+
+  /**
+   * Run the call on the primary; if it hasn't finished after hedge-after-ms, also on the backup,
+   * and return whichever succeeds first. Fails only when both fail.
+   */
+  private <T> T hedged(
+      Route primary,
+      Route backup,
+      Function<AIStoryGenerator, T> call,
+      Predicate<T> cached,
+      Set<Route> tried) {
+    CompletableFuture<T> first;
+    try {
+      first = CompletableFuture.supplyAsync(() -> attempt(primary, call, cached), hedgeExecutor);
+    } catch (RejectedExecutionException e) {
+      return attempt(primary, call, cached);
+    }
+
+    try {
+      return first.get(properties.getHedgeAfterMs(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // Still running: hedge below
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for " + primary.name);
+    }
+
+    if (!backup.health.tryAcquire()) {
+      return await(first);
+    }
+    CompletableFuture<T> second;
+    try {
+      second = CompletableFuture.supplyAsync(() -> attempt(backup, call, cached), hedgeExecutor);
+    } catch (RejectedExecutionException e) {
+      backup.health.recordInconclusive();
+      return await(first);
+    }
+    tried.add(backup);
+    hedges.increment();
+    logger.debug("Hedging slow {} call to {}", primary.name, backup.name);
+
+    CompletableFuture<T> winner = new CompletableFuture<>();
+    AtomicInteger failuresLeft = new AtomicInteger(2);
+    for (CompletableFuture<T> attempt : List.of(first, second)) {
+      attempt.whenComplete(
+          (result, failure) -> {
+            if (failure == null) {
+              winner.complete(result);
+            } else if (failuresLeft.decrementAndGet() == 0) {
+              winner.completeExceptionally(failure);
+            }
+          });
+    }
+    return await(winner);
+  }
+
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for an AI provider");
+    }
+  }
+
+  private static RuntimeException unwrap(Throwable failure) {
+    while (failure instanceof CompletionException && failure.getCause() != null) {
+      failure = failure.getCause();
+    }
+    if (failure instanceof RuntimeException runtimeException) {
+      return runtimeException;
+    }
+    if (failure instanceof Error error) {
+      throw error;
+    }
+    return new RuntimeException("AI provider call failed", failure);
+  }
+
+  /** Configured providers that could take a call now, best score first */
+  private List<Route> rankedRoutes() {
+    return routes.stream()
+        .filter(route -> route.generator.isAvailable() && route.health.isCallPermitted())
+        .sorted(Comparator.comparingDouble(route -> route.health.score()))
+        .toList();
+  }
+
+  private Counter calls(String provider, String result) {
+    return Counter.builder("ai.routing.calls")
+        .description("Calls routed to each AI provider")
+        .tag("provider", provider)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private static Map<String, AIStoryGenerator> providers(
+      OpenAIStoryGenerator openAI, ClaudeStoryGenerator claude) {
+    Map<String, AIStoryGenerator> providers = new LinkedHashMap<>();
+    providers.put("openai", openAI);
+    providers.put("claude", claude);
+    return providers;
+  }
+
+  private record Route(String name, AIStoryGenerator generator, ProviderHealth health) {}
+}
@@ -0,0 +1,105 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.storyai.storytelling_backend.config.AICacheProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Regenerates stale cache entries in the background while the stale copy is being served. At most
+ * ai.cache.stale.refresh-concurrency refreshes run at once, each key is refreshed at most once at a
+ * time, and requests beyond the small queue are dropped; a later read of the stale entry simply
+ * asks again.
+ */
+@Component
+public class StaleCacheRefresher {
+
+  private static final Logger logger = LoggerFactory.getLogger(StaleCacheRefresher.class);
+
+  private final ThreadPoolExecutor executor;
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  private final Counter succeeded;
+  private final Counter failed;
+  private final Counter rejected;
+
+  public StaleCacheRefresher(AICacheProperties properties, MeterRegistry meterRegistry) {
+    AICacheProperties.Stale stale = properties.getStale();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            stale.getRefreshConcurrency(),
+            stale.getRefreshConcurrency(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(stale.getRefreshQueueSize()),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    this.succeeded = refreshes(meterRegistry, "success");
+    this.failed = refreshes(meterRegistry, "failure");
+    this.rejected = refreshes(meterRegistry, "rejected");
+  }
+
+  /** Schedule a refresh of the key unless one is already pending; never blocks the caller */
+  public void refresh(String cacheKey, Runnable regeneration) {
+    if (!pending.add(cacheKey)) {
+      return;
+    }
+
+    try {
+      executor.execute(
+          () -> {
+            try {
+              regeneration.run();
+              succeeded.increment();
+              logger.debug("Refreshed stale cache entry for key: {}", cacheKey);
+            } catch (Exception e) {
+              failed.increment();
+              logger.warn("Failed to refresh stale cache entry for key: {}", cacheKey, e);
+            } finally {
+              pending.remove(cacheKey);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      pending.remove(cacheKey);
+      rejected.increment();
+      logger.debug("Refresh queue full, skipping refresh for key: {}", cacheKey);
+    }
+  }
+
+  /** Number of refreshes queued or running */
+  public int pendingCount() {
+    return pending.size();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static Counter refreshes(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("ai.cache.refresh")
+        .description("Background refreshes of stale cache entries")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
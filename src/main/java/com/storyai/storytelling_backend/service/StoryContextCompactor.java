@@ -0,0 +1,181 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.config.AIContextProperties;
+import com.storyai.storytelling_backend.repository.StorySessionRepository;
+
+/**
+ * Keeps the story context of a prompt roughly the same size however long the playthrough. List
+ * values in the context (previous choices, events, ...) are the part that grows: only their
+ * latest ai.context.recent-items are sent as they are, and older items are folded, once each, into
+ * a rolling summary stored with the session (story_sessions.context_summary). Folding locks the
+ * session row, so generations for one session on any node fold each item once.
+ *
+ * <p>The "summary" is extractive, not written by a model: each folded item becomes one line cut to
+ * ai.context.summary-item-chars, and beyond ai.context.max-summary-chars the oldest lines are
+ * dropped. Details past the cut and the earliest items of a long playthrough are lost rather than
+ * condensed; a model-written summary would cost a provider call per fold.
+ */
+@Component
+public class StoryContextCompactor {
+
+  /** Context entry that carries the summary in the prompt */
+  public static final String SUMMARY_KEY = "storySoFar";
+
+  private static final Logger logger = LoggerFactory.getLogger(StoryContextCompactor.class);
+
+  private final AIContextProperties properties;
+  private final StorySessionRepository sessionRepository;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+
+  public StoryContextCompactor(
+      AIContextProperties properties,
+      StorySessionRepository sessionRepository,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager) {
+    this.properties = properties;
+    this.sessionRepository = sessionRepository;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    // A transaction of its own, so the row lock is held only while folding
+    this.transactionTemplate.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * The context to put in the prompt: recent list items, cut-down long values and the session's
+   * summary of everything older. Returns the context unchanged when there is nothing to compact.
+   */
+  public Map<String, Object> compact(Long sessionId, Map<String, Object> context) {
+    if (!properties.isEnabled() || context == null || context.isEmpty()) {
+      return context;
+    }
+
+    int recentItems = properties.getRecentItems();
+    boolean overflowing =
+        context.values().stream()
+            .anyMatch(value -> value instanceof List<?> list && list.size() > recentItems);
+
+    Summary summary = overflowing ? fold(sessionId, context) : null;
+
+    Map<String, Object> compacted = new LinkedHashMap<>();
+    if (summary != null && !summary.lines().isEmpty()) {
+      compacted.put(SUMMARY_KEY, String.join("; ", summary.lines()));
+    }
+    context.forEach(
+        (key, value) -> {
+          if (value instanceof List<?> list && list.size() > recentItems) {
+            compacted.put(key, list.subList(list.size() - recentItems, list.size()));
+          } else if (value instanceof String text) {
+            compacted.put(key, abbreviate(text, properties.getMaxValueChars()));
+          } else {
+            compacted.put(key, value);
+          }
+        });
+    return compacted;
+  }
+
+  /** Fold the items that have dropped out of the recent window into the session's summary */
+  private Summary fold(Long sessionId, Map<String, Object> context) {
+    if (sessionId == null) {
+      // Nowhere to keep it; summarize this request's older items only
+      return fold(Summary.empty(), context);
+    }
+
+    try {
+      return transactionTemplate.execute(
+          status -> {
+            Summary stored = load(sessionId);
+            Summary folded = fold(stored, context);
+            if (!folded.equals(stored)) {
+              save(sessionId, folded);
+            }
+            return folded;
+          });
+    } catch (Exception e) {
+      // The prompt is still compact; the items are folded again next time
+      logger.warn("Failed to update context summary of session {}", sessionId, e);
+      return fold(Summary.empty(), context);
+    }
+  }
+
+  private Summary fold(Summary summary, Map<String, Object> context) {
+    Map<String, Integer> folded = new LinkedHashMap<>(summary.folded());
+    List<String> lines = new ArrayList<>(summary.lines());
+
+    context.forEach(
+        (key, value) -> {
+          if (!(value instanceof List<?> list)) {
+            return;
+          }
+          int foldUpTo = list.size() - properties.getRecentItems();
+          // A list that shrank was reset by the client; fold it again from where it is
+          int alreadyFolded = Math.min(folded.getOrDefault(key, 0), Math.max(foldUpTo, 0));
+          for (int i = alreadyFolded; i < foldUpTo; i++) {
+            lines.add(
+                abbreviate(key + ": " + list.get(i), properties.getSummaryItemChars()));
+          }
+          if (foldUpTo > 0) {
+            folded.put(key, foldUpTo);
+          }
+        });
+
+    int length = lines.stream().mapToInt(line -> line.length() + 2).sum();
+    while (length > properties.getMaxSummaryChars() && !lines.isEmpty()) {
+      length -= lines.remove(0).length() + 2;
+    }
+    return new Summary(folded, lines);
+  }
+
+  private Summary load(Long sessionId) {
+    return sessionRepository
+        .findContextSummaryForUpdate(sessionId)
+        .map(this::read)
+        .orElseGet(Summary::empty);
+  }
+
+  private Summary read(String json) {
+    try {
+      Summary summary = objectMapper.readValue(json, Summary.class);
+      return new Summary(
+          summary.folded() != null ? summary.folded() : Map.of(),
+          summary.lines() != null ? summary.lines() : List.of());
+    } catch (JsonProcessingException e) {
+      logger.warn("Discarding unreadable context summary", e);
+      return Summary.empty();
+    }
+  }
+
+  private void save(Long sessionId, Summary summary) {
+    try {
+      sessionRepository.updateContextSummary(sessionId, objectMapper.writeValueAsString(summary));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Context summary is not serializable", e);
+    }
+  }
+
+  private static String abbreviate(String text, int maxChars) {
+    return text.length() <= maxChars ? text : text.substring(0, Math.max(0, maxChars - 3)) + "...";
+  }
+
+  /** How many items of each list have been folded, and the summary lines, oldest first */
+  record Summary(Map<String, Integer> folded, List<String> lines) {
+    static Summary empty() {
+      return new Summary(Map.of(), List.of());
+    }
+  }
+}
@@ -3,10 +3,14 @@ package com.storyai.storytelling_backend.service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.storyai.storytelling_backend.DTO.*;
 import com.storyai.storytelling_backend.entity.*;
@@ -22,18 +26,25 @@ public class StorySessionService {
   private final UserChoiceRepository choiceRepository;
   private final StoryRepository storyRepository;
   private final UserRepository userRepository;
+  private final ChapterPregenerator chapterPregenerator;
+  private final TransactionTemplate readOnlyTransaction;
 
   public StorySessionService(
       StorySessionRepository storySessionRepository,
       StoryChapterRepository chapterRepository,
       UserChoiceRepository choiceRepository,
       StoryRepository storyRepository,
-      UserRepository userRepository) {
+      UserRepository userRepository,
+      ChapterPregenerator chapterPregenerator,
+      PlatformTransactionManager transactionManager) {
     this.storySessionRepository = storySessionRepository;
     this.chapterRepository = chapterRepository;
     this.choiceRepository = choiceRepository;
     this.storyRepository = storyRepository;
     this.userRepository = userRepository;
+    this.chapterPregenerator = chapterPregenerator;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
   }
 
   // New Story Session User
@@ -145,9 +156,35 @@ public class StorySessionService {
             .collect(Collectors.toList());
 
     response.setAvailableChoices(choiceOptions);
+
+    // While the player reads, generate what the choices without a written chapter lead to
+    if (!response.isComplete() && !choices.isEmpty()) {
+      Set<Integer> written = chapterRepository.findChapterNumbersByStory(session.getStory());
+      chapterPregenerator.speculate(
+          session,
+          chapter,
+          choices.stream()
+              .filter(
+                  choice ->
+                      choice.getNextChapterNumber() != null
+                          && !written.contains(choice.getNextChapterNumber()))
+              .collect(Collectors.toList()));
+    }
     return response;
   }
 
+  /**
+   * The AI continuation of a choice of the current chapter that leads to an unwritten chapter,
+   * usually already pre-generated while the player read. Runs without a transaction, so no
+   * connection is held while the provider writes.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public GeneratedTurnResponse getContinuation(Long sessionId, Long choiceId) {
+    GenerateTurnRequest request =
+        readOnlyTransaction.execute(status -> continuationRequest(sessionId, choiceId));
+    return chapterPregenerator.continuation(sessionId, choiceId, request);
+  }
+
   // Make a choice and advance the story
 
   public CurrentChapterResponse makeChoice(Long sessionId, MakeChoiceRequest request) {
@@ -184,6 +221,9 @@ public class StorySessionService {
     choice.setChosenAt(LocalDateTime.now());
     choiceRepository.save(choice);
 
+    // The other choices' continuations are no longer needed
+    chapterPregenerator.commit(sessionId, choice.getId());
+
     // Advance to next chapter
     Integer nextChapterNumber = choice.getNextChapterNumber();
     if (nextChapterNumber != null) {
@@ -201,6 +241,34 @@ public class StorySessionService {
     return getCurrentChapter(sessionId);
   }
 
+  private GenerateTurnRequest continuationRequest(Long sessionId, Long choiceId) {
+    StorySession session =
+        storySessionRepository
+            .findById(sessionId)
+            .orElseThrow(() -> new NotFoundException("Session not found with id: " + sessionId));
+    UserChoice choice =
+        choiceRepository
+            .findById(choiceId)
+            .orElseThrow(() -> new NotFoundException("Choice not found with id: " + choiceId));
+
+    Integer currentChapterNumber =
+        session.getCurrentChapter() != null ? session.getCurrentChapter() : 1;
+    StoryChapter currentChapter =
+        chapterRepository
+            .findByStoryAndChapterNumber(session.getStory(), currentChapterNumber)
+            .orElseThrow(() -> new NotFoundException("Current chapter not found"));
+    if (!choice.getChapter().getId().equals(currentChapter.getId())) {
+      throw new IllegalStateException("Choice does not belong to current chapter");
+    }
+    if (choice.getNextChapterNumber() == null
+        || chapterRepository
+            .findByStoryAndChapterNumber(session.getStory(), choice.getNextChapterNumber())
+            .isPresent()) {
+      throw new IllegalStateException("Choice does not lead to an unwritten chapter");
+    }
+    return ChapterPregenerator.continuationRequest(session, currentChapter, choice);
+  }
+
   /** Get choice history for a session */
   @Transactional(readOnly = true)
   public ChoiceHistoryResponse getChoiceHistory(Long sessionId) {
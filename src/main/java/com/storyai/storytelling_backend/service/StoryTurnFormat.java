@@ -0,0 +1,64 @@
+package com.storyai.storytelling_backend.service;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prompt suffix and output layout for a combined turn: the model writes the chapter, a line with
+ * only {@value #CHOICES_MARKER}, then the choices in the usual CHOICE / CONSEQUENCE / TONE form,
+ * so each part can be parsed and cached as if it came from its own call.
+ */
+public final class StoryTurnFormat {
+
+  public static final String CHOICES_MARKER = "---CHOICES---";
+
+  private static final String BEGIN_CHAPTER = "Begin the chapter:";
+  private static final Pattern REQUESTED_CHOICES =
+      Pattern.compile("only " + Pattern.quote(CHOICES_MARKER) + " and then (\\d+) distinct");
+
+  private StoryTurnFormat() {}
+
+  /** The story prompt, extended to ask for the choices after the chapter */
+  public static String prompt(String storyPrompt, int numChoices, String difficultyLevel) {
+    String base = storyPrompt.strip();
+    boolean endsWithCue = base.endsWith(BEGIN_CHAPTER);
+    if (endsWithCue) {
+      base = base.substring(0, base.length() - BEGIN_CHAPTER.length()).strip();
+    }
+
+    StringBuilder prompt = new StringBuilder(base);
+    prompt.append("\n\nAfter the chapter, write a line containing only ").append(CHOICES_MARKER);
+    prompt.append(" and then ").append(numChoices);
+    prompt.append(" distinct, meaningful choices for the player at the end of the chapter.\n");
+    if (difficultyLevel != null) {
+      prompt.append("Difficulty level: ").append(difficultyLevel).append("\n");
+    }
+    prompt.append("Format each choice exactly as follows:\n");
+    prompt.append("CHOICE: [Clear, action-oriented choice text]\n");
+    prompt.append("CONSEQUENCE: [Brief hint about potential outcome]\n");
+    prompt.append("TONE: [Emotional tone: brave/cautious/clever/aggressive/diplomatic]\n");
+    if (endsWithCue) {
+      prompt.append("\n").append(BEGIN_CHAPTER);
+    }
+    return prompt.toString();
+  }
+
+  /** Number of choices a prompt made by {@link #prompt} asks for, or 0 for any other prompt */
+  public static int requestedChoices(String prompt) {
+    Matcher matcher = REQUESTED_CHOICES.matcher(prompt);
+    return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+  }
+
+  /** Chapter and choices text of a combined output; without the marker it is all chapter */
+  public static Turn split(String output) {
+    int marker = output.indexOf(CHOICES_MARKER);
+    if (marker < 0) {
+      return new Turn(output.strip(), "");
+    }
+    return new Turn(
+        output.substring(0, marker).strip(),
+        output.substring(marker + CHOICES_MARKER.length()).strip());
+  }
+
+  public record Turn(String chapter, String choices) {}
+}
@@ -0,0 +1,37 @@
+-- ========================================
+-- Migration V12: Compressed storage for ai_cache content
+-- ========================================
+
+-- Rows now hold either plain TEXT content or a compressed payload
+ALTER TABLE ai_cache ALTER COLUMN content DROP NOT NULL;
+
+ALTER TABLE ai_cache
+ADD COLUMN IF NOT EXISTS content_compressed BYTEA;
+
+ALTER TABLE ai_cache
+ADD COLUMN IF NOT EXISTS compression_codec VARCHAR(16);
+
+ALTER TABLE ai_cache
+ADD COLUMN IF NOT EXISTS dictionary_id INTEGER;
+
+ALTER TABLE ai_cache
+ADD CONSTRAINT chk_ai_cache_content_present
+CHECK (content IS NOT NULL OR content_compressed IS NOT NULL);
+
+-- Payload is already compressed; skip TOAST's own pglz attempt
+ALTER TABLE ai_cache ALTER COLUMN content_compressed SET STORAGE EXTERNAL;
+
+-- Shared dictionaries trained from existing entries
+CREATE TABLE IF NOT EXISTS ai_cache_dictionaries (
+    id SERIAL PRIMARY KEY,
+    codec VARCHAR(16) NOT NULL,
+    dictionary BYTEA NOT NULL,
+    sample_count INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Lets the background migration find rows still stored as plain text
+CREATE INDEX IF NOT EXISTS idx_ai_cache_uncompressed
+ON ai_cache(id) WHERE compression_codec IS NULL;
+
+COMMENT ON TABLE ai_cache_dictionaries IS 'Preset dictionaries for compressing ai_cache content';
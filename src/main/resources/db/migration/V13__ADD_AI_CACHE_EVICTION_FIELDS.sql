@@ -0,0 +1,15 @@
+-- ========================================
+-- Migration V13: Size and cost tracking for ai_cache eviction
+-- ========================================
+
+-- Stored size of the row's content (compressed size when compressed)
+ALTER TABLE ai_cache
+ADD COLUMN IF NOT EXISTS content_bytes INTEGER NOT NULL DEFAULT 0;
+
+-- How long the provider took to generate the content, if known
+ALTER TABLE ai_cache
+ADD COLUMN IF NOT EXISTS generation_cost_ms INTEGER;
+
+UPDATE ai_cache
+SET content_bytes = COALESCE(octet_length(content_compressed), octet_length(content), 0)
+WHERE content_bytes = 0;
@@ -0,0 +1,73 @@
+-- ========================================
+-- Migration V14: Range-partition ai_cache by expiry day
+-- ========================================
+
+-- Rows land in a daily partition by the date they expire, so cleanup can drop whole
+-- partitions instead of deleting rows. Unique keys on a partitioned table must include
+-- the partition key, so cache_key is unique per expiry day; lookups take the newest
+-- live row for a key.
+
+ALTER TABLE ai_cache RENAME TO ai_cache_unpartitioned;
+ALTER SEQUENCE ai_cache_id_seq OWNED BY NONE;
+
+CREATE TABLE ai_cache (
+    id BIGINT NOT NULL DEFAULT nextval('ai_cache_id_seq'),
+    cache_key VARCHAR(255) NOT NULL,
+    content TEXT,
+    content_compressed BYTEA,
+    compression_codec VARCHAR(16),
+    dictionary_id INTEGER,
+    content_bytes INTEGER NOT NULL DEFAULT 0,
+    generation_cost_ms INTEGER,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP,
+    last_accessed_at TIMESTAMP,
+    hit_count INT NOT NULL DEFAULT 0,
+    -- Date part of expires_at; 9999-12-31 for entries that never expire
+    expiry_bucket DATE NOT NULL,
+    CONSTRAINT ai_cache_partitioned_pkey PRIMARY KEY (id, expiry_bucket),
+    CONSTRAINT uq_ai_cache_key_bucket UNIQUE (cache_key, expiry_bucket),
+    CONSTRAINT chk_ai_cache_partitioned_content_present
+        CHECK (content IS NOT NULL OR content_compressed IS NOT NULL)
+) PARTITION BY RANGE (expiry_bucket);
+
+ALTER SEQUENCE ai_cache_id_seq OWNED BY ai_cache.id;
+ALTER TABLE ai_cache ALTER COLUMN content_compressed SET STORAGE EXTERNAL;
+
+-- Catches expiry days without a partition yet (far-future and non-expiring entries)
+CREATE TABLE ai_cache_default PARTITION OF ai_cache DEFAULT;
+
+-- Daily partitions for the next two weeks; the cleanup job keeps this window rolling
+DO $$
+DECLARE
+    day DATE;
+BEGIN
+    FOR i IN 0..14 LOOP
+        day := CURRENT_DATE + i;
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF ai_cache FOR VALUES FROM (%L) TO (%L)',
+            'ai_cache_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+    END LOOP;
+END $$;
+
+-- indexes (created on every partition)
+CREATE INDEX IF NOT EXISTS idx_ai_cache_part_expires_at ON ai_cache(expires_at);
+CREATE INDEX IF NOT EXISTS idx_ai_cache_part_last_accessed ON ai_cache(last_accessed_at);
+CREATE INDEX IF NOT EXISTS idx_ai_cache_part_uncompressed
+ON ai_cache(id) WHERE compression_codec IS NULL;
+
+-- Carry over live entries only; expired ones would be dropped anyway
+INSERT INTO ai_cache (
+    id, cache_key, content, content_compressed, compression_codec, dictionary_id,
+    content_bytes, generation_cost_ms, created_at, expires_at, last_accessed_at, hit_count,
+    expiry_bucket)
+SELECT
+    id, cache_key, content, content_compressed, compression_codec, dictionary_id,
+    content_bytes, generation_cost_ms, created_at, expires_at, last_accessed_at, hit_count,
+    COALESCE(CAST(expires_at AS DATE), DATE '9999-12-31')
+FROM ai_cache_unpartitioned
+WHERE expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP;
+
+DROP TABLE ai_cache_unpartitioned;
+
+COMMENT ON TABLE ai_cache IS 'Caches AI-generated content to reduce API calls and costs';
@@ -0,0 +1,7 @@
+-- ========================================
+-- Migration V15: Index for reading the hottest ai_cache entries
+-- ========================================
+
+-- Lets startup warm-up read the top entries by hit count without sorting the whole table
+CREATE INDEX IF NOT EXISTS idx_ai_cache_hotness
+ON ai_cache(hit_count DESC, last_accessed_at DESC NULLS LAST);
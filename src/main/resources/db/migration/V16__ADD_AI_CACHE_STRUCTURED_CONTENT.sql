@@ -0,0 +1,13 @@
+-- ========================================
+-- Migration V16: Structured form of cached content
+-- ========================================
+
+-- Parsed form of the content (e.g. generated choices), so cache hits skip re-parsing.
+-- Added on the partitioned parent, so every partition gets the columns.
+ALTER TABLE ai_cache
+ADD COLUMN IF NOT EXISTS structured JSONB;
+
+-- Schema version of structured; rows with an older or missing version are re-parsed from
+-- content and upgraded lazily on read
+ALTER TABLE ai_cache
+ADD COLUMN IF NOT EXISTS structured_version SMALLINT;
@@ -0,0 +1,28 @@
+-- ========================================
+-- Migration V17: ai_generations as an append-only ledger of provider calls
+-- ========================================
+
+-- One row per provider call, so the same prompt may appear many times
+ALTER TABLE ai_generations DROP CONSTRAINT IF EXISTS ai_generations_prompt_hash_key;
+
+-- Analytics rows outlive their session and never block a batch on a missing one
+ALTER TABLE ai_generations DROP CONSTRAINT IF EXISTS ai_generations_session_id_fkey;
+
+-- Content already lives in ai_cache
+ALTER TABLE ai_generations ALTER COLUMN generated_content DROP NOT NULL;
+
+ALTER TABLE ai_generations ALTER COLUMN ai_model TYPE VARCHAR(100);
+
+ALTER TABLE ai_generations
+ADD COLUMN IF NOT EXISTS story_id BIGINT,
+ADD COLUMN IF NOT EXISTS chapter_id BIGINT,
+ADD COLUMN IF NOT EXISTS request_type VARCHAR(20),
+ADD COLUMN IF NOT EXISTS provider VARCHAR(20),
+ADD COLUMN IF NOT EXISTS input_tokens INTEGER,
+ADD COLUMN IF NOT EXISTS output_tokens INTEGER,
+ADD COLUMN IF NOT EXISTS latency_ms INTEGER,
+ADD COLUMN IF NOT EXISTS cache_outcome VARCHAR(20),
+ADD COLUMN IF NOT EXISTS succeeded BOOLEAN NOT NULL DEFAULT TRUE;
+
+CREATE INDEX IF NOT EXISTS idx_ai_generations_story ON ai_generations(story_id);
+CREATE INDEX IF NOT EXISTS idx_ai_generations_model_created ON ai_generations(ai_model, created_at);
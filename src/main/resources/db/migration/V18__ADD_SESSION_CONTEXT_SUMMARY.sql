@@ -0,0 +1,8 @@
+-- ========================================
+-- Migration V18: Rolling summary of a session's story context
+-- ========================================
+
+-- Older context events folded into a bounded summary, so prompts stay the same size however
+-- long the playthrough. Kept apart from session_data, which clients replace wholesale.
+ALTER TABLE story_sessions
+ADD COLUMN IF NOT EXISTS context_summary JSONB;
@@ -0,0 +1,35 @@
+-- ========================================
+-- Migration V19: queue of asynchronous generation jobs
+-- ========================================
+
+-- Workers on every node claim jobs with FOR UPDATE SKIP LOCKED; a claim is a lease
+-- (locked_until), and a job whose lease ran out is claimed again by another worker.
+-- run_after and locked_until are compared across nodes, hence time zone aware
+CREATE TABLE IF NOT EXISTS ai_generation_jobs (
+    id UUID PRIMARY KEY,
+    user_id BIGINT REFERENCES users(id) ON DELETE CASCADE,
+    job_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    request JSONB NOT NULL,
+    result JSONB,
+    error VARCHAR(500),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    run_after TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_by VARCHAR(100),
+    locked_until TIMESTAMPTZ,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+-- The two ways a job becomes claimable; small because finished jobs are not in them
+CREATE INDEX IF NOT EXISTS idx_ai_generation_jobs_queued
+    ON ai_generation_jobs(run_after) WHERE status = 'QUEUED';
+CREATE INDEX IF NOT EXISTS idx_ai_generation_jobs_leased
+    ON ai_generation_jobs(locked_until) WHERE status = 'RUNNING';
+
+CREATE INDEX IF NOT EXISTS idx_ai_generation_jobs_finished
+    ON ai_generation_jobs(finished_at) WHERE finished_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_ai_generation_jobs_user ON ai_generation_jobs(user_id);
+
+COMMENT ON TABLE ai_generation_jobs IS 'Generation requests answered asynchronously by workers';
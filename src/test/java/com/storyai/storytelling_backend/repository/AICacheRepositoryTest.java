@@ -0,0 +1,312 @@
+package com.storyai.storytelling_backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.storyai.storytelling_backend.entity.AICache;
+import com.storyai.storytelling_backend.repository.AICacheRepositoryCustom.CacheEntry;
+
+/** Runs against a real Postgres with the Flyway schema, since ai_cache is partitioned */
+@DataJpaTest(
+    properties = {
+      "spring.flyway.user=test",
+      "spring.flyway.password=test",
+      "spring.jpa.hibernate.ddl-auto=none"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AICacheRepositoryTest {
+
+  @Container @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  @Autowired private AICacheRepository cacheRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
+  @Autowired private DataSource dataSource;
+
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    cacheRepository.deleteAll();
+  }
+
+  @Test
+  void upsertInsertsThenReplacesContentKeepingHitCount() {
+    LocalDateTime now = LocalDateTime.now();
+    cacheRepository.upsert(
+        "story:key", "first", null, null, null, 5, null, null, null, now, now.plusHours(1));
+    cacheRepository.applyHitDeltas(
+        List.of(new AICacheRepositoryCustom.HitDelta("story:key", 3, now)));
+
+    cacheRepository.upsert(
+        "story:key", "second", null, null, null, 6, 1200, null, null, now, now.plusHours(2));
+
+    AICache cache = cacheRepository.findLiveByCacheKey("story:key", LocalDate.now()).orElseThrow();
+    assertThat(cache.getContent()).isEqualTo("second");
+    assertThat(cache.getHitCount()).isEqualTo(3);
+    assertThat(cache.getContentBytes()).isEqualTo(6);
+    assertThat(cache.getGenerationCostMs()).isEqualTo(1200);
+    assertThat(cacheRepository.count()).isEqualTo(1);
+  }
+
+  @Test
+  void concurrentWritersForSameKeyLeaveOneRow() throws Exception {
+    int writers = 16;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(writers);
+
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int i = 0; i < writers; i++) {
+        String content = "content-" + i;
+        Callable<Integer> writer =
+            () -> {
+              start.await();
+              LocalDateTime now = LocalDateTime.now();
+              return cacheRepository.upsert(
+                  "story:contended",
+                  content,
+                  null,
+                  null,
+                  null,
+                  content.length(),
+                  null,
+                  null,
+                  null,
+                  now,
+                  now.plusHours(1));
+            };
+        results.add(pool.submit(writer));
+      }
+      start.countDown();
+
+      for (Future<Integer> result : results) {
+        assertThat(result.get(30, TimeUnit.SECONDS)).isEqualTo(1);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertThat(cacheRepository.count()).isEqualTo(1);
+    assertThat(
+            cacheRepository
+                .findLiveByCacheKey("story:contended", LocalDate.now())
+                .orElseThrow()
+                .getContent())
+        .startsWith("content-");
+  }
+
+  @Test
+  void structuredFormIsUpgradedOnlyFromOlderVersions() {
+    LocalDateTime now = LocalDateTime.now();
+    cacheRepository.upsert(
+        "choices:key", "CHOICE: a", null, null, null, 9, null, null, null, now, now.plusHours(1));
+
+    assertThat(
+            cacheRepository.upgradeStructured(
+                "choices:key", "{\"choices\": []}", (short) 1, LocalDate.now()))
+        .isEqualTo(1);
+    assertThat(
+            cacheRepository.upgradeStructured(
+                "choices:key", "{\"choices\": [{}]}", (short) 1, LocalDate.now()))
+        .isZero();
+
+    AICache cache =
+        cacheRepository.findLiveByCacheKey("choices:key", LocalDate.now()).orElseThrow();
+    assertThat(cache.getStructured()).isEqualTo("{\"choices\": []}");
+    assertThat(cache.getStructuredVersion()).isEqualTo((short) 1);
+
+    // Rewriting the content replaces its structured form too
+    cacheRepository.upsertAll(
+        List.of(new CacheEntry("choices:key", "CHOICE: b", now.plusHours(1))));
+    cache = cacheRepository.findLiveByCacheKey("choices:key", LocalDate.now()).orElseThrow();
+    assertThat(cache.getStructured()).isNull();
+    assertThat(cache.getStructuredVersion()).isNull();
+  }
+
+  @Test
+  void upsertAllWritesManyRowsAndCollapsesDuplicateKeys() {
+    LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+    List<CacheEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      entries.add(new CacheEntry("story:bulk:" + i, "content-" + i, expiresAt));
+    }
+    entries.add(new CacheEntry("story:bulk:0", "latest", expiresAt));
+
+    cacheRepository.upsertAll(entries);
+
+    assertThat(cacheRepository.count()).isEqualTo(1200);
+    assertThat(
+            cacheRepository
+                .findLiveByCacheKey("story:bulk:0", LocalDate.now())
+                .orElseThrow()
+                .getContent())
+        .isEqualTo("latest");
+  }
+
+  @Test
+  void evictLowestValueRemovesCheapColdEntriesFirst() {
+    LocalDateTime now = LocalDateTime.now();
+    String large = "x".repeat(1000);
+    LocalDateTime expiresAt = now.plusHours(1);
+    cacheRepository.upsert(
+        "story:cheap", large, null, null, null, 1000, 10, null, null, now, expiresAt);
+    cacheRepository.upsert(
+        "story:costly", large, null, null, null, 1000, 20000, null, null, now, expiresAt);
+    cacheRepository.upsert(
+        "story:popular", large, null, null, null, 1000, 10, null, null, now, expiresAt);
+    cacheRepository.applyHitDeltas(
+        List.of(new AICacheRepositoryCustom.HitDelta("story:popular", 5000, now)));
+
+    List<AICacheRepositoryCustom.EvictedEntry> evicted =
+        cacheRepository.evictLowestValue(500, 10);
+
+    assertThat(evicted).extracting("cacheKey").containsExactly("story:cheap");
+    assertThat(cacheRepository.storageTotals().getBytes()).isEqualTo(2000);
+  }
+
+  @Test
+  void evictLowestValueRanksOnlyTheLeastRecentlyReadEntries() {
+    LocalDateTime now = LocalDateTime.now();
+    String large = "x".repeat(1000);
+    LocalDateTime expiresAt = now.plusHours(1);
+    for (int i = 0; i < 4; i++) {
+      cacheRepository.upsert(
+          "story:cold:" + i, large, null, null, null, 1000, 20000, null, null,
+          now.minusHours(2), expiresAt);
+    }
+    // Cheapest overall, but read too recently to fall in the window
+    cacheRepository.upsert(
+        "story:fresh", large, null, null, null, 1000, 10, null, null, now, expiresAt);
+
+    List<AICacheRepositoryCustom.EvictedEntry> evicted =
+        cacheRepository.evictLowestValue(500, 1);
+
+    assertThat(evicted).singleElement().extracting("cacheKey").asString().startsWith("story:cold");
+    assertThat(cacheRepository.existsByCacheKey("story:fresh")).isTrue();
+  }
+
+  @Test
+  void deleteExpiredBatchRemovesAtMostLimitExpiredRows() {
+    // Expired before today, so these land in the default partition
+    LocalDateTime now = LocalDateTime.now();
+    List<CacheEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      entries.add(new CacheEntry("story:expired:" + i, "old", now.minusDays(1)));
+    }
+    entries.add(new CacheEntry("story:live", "new", now.plusHours(1)));
+    cacheRepository.upsertAll(entries);
+
+    assertThat(cacheRepository.deleteExpiredBatch(now, 3)).isEqualTo(3);
+    assertThat(cacheRepository.deleteExpiredBatch(now, 3)).isEqualTo(2);
+    assertThat(cacheRepository.deleteExpiredBatch(now, 3)).isZero();
+    assertThat(cacheRepository.existsByCacheKey("story:live")).isTrue();
+  }
+
+  @Test
+  void rewriteInAnotherExpiryDayReplacesTheOlderCopy() {
+    LocalDateTime now = LocalDateTime.now();
+    cacheRepository.upsert(
+        "story:dup", "stale", null, null, null, 5, null, null, null, now, now.minusDays(1));
+    cacheRepository.upsert(
+        "story:dup", "fresh", null, null, null, 5, null, null, null, now, now.plusDays(2));
+    cacheRepository.upsertAll(List.of(new CacheEntry("story:dup", "bulk", now.plusDays(3))));
+
+    AICache live = cacheRepository.findLiveByCacheKey("story:dup", LocalDate.now()).orElseThrow();
+    assertThat(live.getContent()).isEqualTo("bulk");
+    assertThat(cacheRepository.count()).isEqualTo(1);
+  }
+
+  @Test
+  void partitionsAreCreatedFromDefaultRowsAndDropped() {
+    LocalDate farDay = LocalDate.now().plusDays(60);
+    LocalDateTime expiresAt = farDay.atTime(12, 0);
+    cacheRepository.upsertAll(List.of(new CacheEntry("story:far", "later", expiresAt)));
+
+    assertThat(cacheRepository.createExpiryPartition(farDay)).isTrue();
+    assertThat(cacheRepository.createExpiryPartition(farDay)).isFalse();
+    assertThat(cacheRepository.findExpiryPartitions()).contains(farDay);
+    assertThat(cacheRepository.existsByCacheKey("story:far")).isTrue();
+
+    assertThat(cacheRepository.dropExpiryPartition(farDay)).isEqualTo(1);
+    assertThat(cacheRepository.dropExpiryPartition(farDay)).isEqualTo(-1);
+    assertThat(cacheRepository.existsByCacheKey("story:far")).isFalse();
+  }
+
+  @Test
+  void partitionDropGivesUpWhileTheTableIsInUse() throws Exception {
+    LocalDate farDay = LocalDate.now().plusDays(61);
+    assertThat(cacheRepository.createExpiryPartition(farDay)).isTrue();
+
+    try (Connection reader = dataSource.getConnection()) {
+      reader.setAutoCommit(false);
+      reader.createStatement().executeQuery("SELECT count(*) FROM ai_cache").close();
+
+      assertThatThrownBy(() -> cacheRepository.dropExpiryPartition(farDay))
+          .isInstanceOf(DataAccessException.class)
+          .hasMessageContaining("lock timeout");
+      reader.rollback();
+    }
+
+    assertThat(cacheRepository.dropExpiryPartition(farDay)).isZero();
+  }
+
+  @Test
+  void streamHottestReturnsLiveEntriesByHitCount() {
+    LocalDateTime now = LocalDateTime.now();
+    cacheRepository.upsertAll(
+        List.of(
+            new CacheEntry("story:cold", "cold", now.plusHours(1)),
+            new CacheEntry("story:hot", "hot", now.plusHours(1)),
+            new CacheEntry("story:warm", "warm", now.plusHours(1)),
+            new CacheEntry("story:expired", "expired", now.minusMinutes(1))));
+    cacheRepository.applyHitDeltas(
+        List.of(
+            new AICacheRepositoryCustom.HitDelta("story:hot", 50, now),
+            new AICacheRepositoryCustom.HitDelta("story:warm", 5, now),
+            new AICacheRepositoryCustom.HitDelta("story:expired", 500, now)));
+
+    List<String> keys =
+        transactionTemplate.execute(
+            status -> {
+              try (Stream<AICache> hottest = cacheRepository.streamHottest(now, 2, 1, 5)) {
+                return hottest.map(AICache::getCacheKey).toList();
+              }
+            });
+
+    assertThat(keys).containsExactly("story:hot", "story:warm");
+  }
+}
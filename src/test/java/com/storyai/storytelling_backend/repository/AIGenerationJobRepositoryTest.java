@@ -0,0 +1,185 @@
+package com.storyai.storytelling_backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.storyai.storytelling_backend.entity.AIGenerationJob;
+import com.storyai.storytelling_backend.entity.AIGenerationJob.JobType;
+import com.storyai.storytelling_backend.entity.AIGenerationJob.Status;
+import com.storyai.storytelling_backend.repository.AIGenerationJobRepositoryCustom.ClaimedJob;
+
+/** Runs against a real Postgres with the Flyway schema, since claims rely on SKIP LOCKED */
+@DataJpaTest(
+    properties = {
+      "spring.flyway.user=test",
+      "spring.flyway.password=test",
+      "spring.jpa.hibernate.ddl-auto=none"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AIGenerationJobRepositoryTest {
+
+  @Container @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  @Autowired private AIGenerationJobRepository jobRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    jobRepository.deleteAll();
+  }
+
+  @Test
+  void concurrentWorkersNeverClaimTheSameJob() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      queue();
+    }
+    int workers = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(workers);
+
+    List<UUID> claimed = new ArrayList<>();
+    try {
+      List<Future<List<ClaimedJob>>> results = new ArrayList<>();
+      for (int i = 0; i < workers; i++) {
+        String workerId = "worker-" + i;
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  return jobRepository.claim(workerId, 5, 60);
+                }));
+      }
+      start.countDown();
+      for (Future<List<ClaimedJob>> result : results) {
+        result.get(30, TimeUnit.SECONDS).forEach(job -> claimed.add(job.id()));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertThat(claimed).hasSize(20).doesNotHaveDuplicates();
+    assertThat(jobRepository.findAll())
+        .allSatisfy(
+            job -> {
+              assertThat(job.getStatus()).isEqualTo(Status.RUNNING);
+              assertThat(job.getAttempts()).isEqualTo(1);
+            });
+  }
+
+  @Test
+  void claimSkipsJobsLockedByAnotherClaimInsteadOfWaiting() throws Exception {
+    queue();
+    queue();
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+
+    try {
+      Set<UUID> claimed = new HashSet<>();
+      new TransactionTemplate(transactionManager)
+          .executeWithoutResult(
+              status -> {
+                // Held until this transaction ends
+                jobRepository.claim("slow", 1, 60).forEach(job -> claimed.add(job.id()));
+                try {
+                  List<ClaimedJob> other =
+                      pool.submit(() -> jobRepository.claim("fast", 10, 60))
+                          .get(10, TimeUnit.SECONDS);
+                  assertThat(other).hasSize(1);
+                  other.forEach(job -> claimed.add(job.id()));
+                } catch (Exception e) {
+                  throw new IllegalStateException(e);
+                }
+              });
+      assertThat(claimed).hasSize(2);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void expiredLeaseIsClaimedAgainAndFencesOutTheFormerHolder() {
+    UUID id = queue();
+    jobRepository.claim("crashed", 10, 0);
+
+    List<ClaimedJob> reclaimed = jobRepository.claim("healthy", 10, 60);
+
+    assertThat(reclaimed).singleElement().extracting(ClaimedJob::attempts).isEqualTo(2);
+    assertThat(jobRepository.complete(id, "crashed", "{\"content\": \"late\"}")).isZero();
+    assertThat(jobRepository.complete(id, "healthy", "{\"content\": \"text\"}")).isEqualTo(1);
+
+    AIGenerationJob job = jobRepository.findById(id).orElseThrow();
+    assertThat(job.getStatus()).isEqualTo(Status.SUCCEEDED);
+    assertThat(job.getResult()).contains("text");
+    assertThat(job.getFinishedAt()).isNotNull();
+    assertThat(jobRepository.claim("healthy", 10, 60)).isEmpty();
+  }
+
+  @Test
+  void requeuedJobWaitsForItsDelayAndReleasedJobsKeepTheirAttempts() {
+    UUID delayed = queue();
+    jobRepository.claim("worker", 10, 60);
+    assertThat(jobRepository.requeue(delayed, "worker", 3600)).isEqualTo(1);
+    assertThat(jobRepository.claim("worker", 10, 60)).isEmpty();
+
+    UUID interrupted = queue();
+    jobRepository.claim("worker", 10, 60);
+    assertThat(jobRepository.releaseAll("worker")).isEqualTo(1);
+
+    assertThat(jobRepository.claim("other", 10, 60))
+        .singleElement()
+        .satisfies(
+            job -> {
+              assertThat(job.id()).isEqualTo(interrupted);
+              assertThat(job.attempts()).isEqualTo(1);
+            });
+  }
+
+  @Test
+  void renewalExtendsOnlyTheLeasesTheWorkerStillHolds() {
+    UUID held = queue();
+    jobRepository.claim("worker", 1, 0);
+    assertThat(jobRepository.renewLeases("worker", 60)).isEqualTo(1);
+    assertThat(jobRepository.claim("other", 10, 60)).isEmpty();
+
+    // Lost to another worker after running out, then renewed too late
+    UUID lost = queue();
+    jobRepository.claim("stalled", 1, 0);
+    assertThat(jobRepository.claim("other", 10, 60))
+        .extracting(ClaimedJob::id)
+        .containsExactly(lost);
+    assertThat(jobRepository.renewLeases("stalled", 60)).isZero();
+    assertThat(jobRepository.complete(held, "worker", "{\"content\": \"text\"}")).isEqualTo(1);
+  }
+
+  private UUID queue() {
+    return jobRepository
+        .save(new AIGenerationJob(JobType.STORY, null, "{\"genre\": \"Fantasy\"}"))
+        .getId();
+  }
+}
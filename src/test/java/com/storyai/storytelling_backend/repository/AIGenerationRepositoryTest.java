@@ -0,0 +1,70 @@
+package com.storyai.storytelling_backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.storyai.storytelling_backend.entity.AIGeneration;
+import com.storyai.storytelling_backend.entity.AIGeneration.CacheOutcome;
+
+/** Runs against a real Postgres with the Flyway schema */
+@DataJpaTest(
+    properties = {
+      "spring.flyway.user=test",
+      "spring.flyway.password=test",
+      "spring.jpa.hibernate.ddl-auto=none"
+    })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AIGenerationRepositoryTest {
+
+  @Container @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+  @Autowired private AIGenerationRepository generationRepository;
+
+  @BeforeEach
+  void setUp() {
+    generationRepository.deleteAll();
+  }
+
+  @Test
+  void insertAllRecordsRepeatedPromptsForUnknownSessions() {
+    AIGeneration first = new AIGeneration("story", "openai", "gpt-4", "hash", CacheOutcome.MISS);
+    first.setSessionId(424242L);
+    first.setInputTokens(100);
+    first.setOutputTokens(50);
+    first.setTokensUsed(150);
+    first.setLatencyMs(900);
+    AIGeneration second =
+        new AIGeneration("story", "openai", "gpt-4", "hash", CacheOutcome.REFRESH);
+    second.setSessionId(424242L);
+    second.setSucceeded(false);
+
+    assertThat(generationRepository.insertAll(List.of(first, second))).isEqualTo(2);
+
+    List<AIGeneration> stored = generationRepository.findBySessionIdOrderByCreatedAtDesc(424242L);
+    assertThat(stored).hasSize(2);
+    assertThat(stored)
+        .extracting(AIGeneration::getCacheOutcome)
+        .containsExactlyInAnyOrder(CacheOutcome.MISS, CacheOutcome.REFRESH);
+    assertThat(stored)
+        .filteredOn(AIGeneration::isSucceeded)
+        .singleElement()
+        .extracting(AIGeneration::getTokensUsed)
+        .isEqualTo(150);
+  }
+}
@@ -0,0 +1,97 @@
+package com.storyai.storytelling_backend.unit.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import com.storyai.storytelling_backend.config.AIConfiguration;
+import com.storyai.storytelling_backend.config.AIHttpClientProperties;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIConfigurationTest {
+
+  private HttpServer server;
+  private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+  private SimpleMeterRegistry registry;
+  private PoolingHttpClientConnectionManager connectionManager;
+  private CloseableHttpClient httpClient;
+  private RestTemplate restTemplate;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          clientPorts.add(exchange.getRemoteAddress().getPort());
+          byte[] body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          exchange.sendResponseHeaders(200, body.length);
+          exchange.getResponseBody().write(body);
+          exchange.close();
+        });
+    server.start();
+
+    AIConfiguration configuration = new AIConfiguration();
+    AIHttpClientProperties properties = new AIHttpClientProperties();
+    registry = new SimpleMeterRegistry();
+    connectionManager = configuration.aiConnectionManager(properties, registry);
+    httpClient = configuration.aiHttpClient(connectionManager, properties);
+    restTemplate = configuration.aiRestTemplate(new RestTemplateBuilder(), httpClient);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    httpClient.close();
+    server.stop(0);
+  }
+
+  @Test
+  void sequentialCallsReuseOneConnection() {
+    String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/messages";
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(restTemplate.postForObject(url, "{}", String.class)).contains("ok");
+    }
+
+    assertThat(clientPorts).hasSize(1);
+    assertThat(connectionManager.getTotalStats().getAvailable()).isEqualTo(1);
+  }
+
+  @Test
+  void poolUtilizationIsPublished() {
+    String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/messages";
+    restTemplate.postForObject(url, "{}", String.class);
+
+    assertThat(
+            registry
+                .get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "ai-providers")
+                .tag("state", "available")
+                .gauge()
+                .value())
+        .isEqualTo(1.0);
+    assertThat(
+            registry
+                .get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "ai-providers")
+                .gauge()
+                .value())
+        .isEqualTo(100.0);
+  }
+}
@@ -0,0 +1,95 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.entity.AICache;
+import com.storyai.storytelling_backend.entity.AICacheDictionary;
+import com.storyai.storytelling_backend.repository.AICacheDictionaryRepository;
+import com.storyai.storytelling_backend.service.AICacheContentCodec;
+
+class AICacheContentCodecTest {
+
+  private AICacheDictionaryRepository dictionaryRepository;
+  private AICacheContentCodec codec;
+
+  @BeforeEach
+  void setUp() {
+    dictionaryRepository = mock(AICacheDictionaryRepository.class);
+    when(dictionaryRepository.save(any(AICacheDictionary.class)))
+        .thenAnswer(
+            invocation -> {
+              AICacheDictionary dictionary = invocation.getArgument(0);
+              dictionary.setId(1);
+              return dictionary;
+            });
+
+    AICacheProperties properties = new AICacheProperties();
+    properties.getCompression().setEnabled(true);
+    codec = new AICacheContentCodec(dictionaryRepository, properties);
+  }
+
+  @Test
+  void roundTripsWithoutDictionary() {
+    String content = chapter(0);
+
+    AICacheContentCodec.Encoded encoded = codec.encode(content);
+
+    assertThat(encoded.isCompressed()).isTrue();
+    assertThat(encoded.getDictionaryId()).isNull();
+    assertThat(codec.decode(stored(encoded))).isEqualTo(content);
+    assertThat(codec.getCompressionRatio()).isGreaterThan(1.0);
+  }
+
+  @Test
+  void roundTripsWithTrainedDictionary() {
+    List<String> samples = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      samples.add(chapter(i));
+    }
+    assertThat(codec.trainDictionary(samples)).isEqualTo(1);
+
+    String content = chapter(99);
+    AICacheContentCodec.Encoded encoded = codec.encode(content);
+
+    assertThat(encoded.getDictionaryId()).isEqualTo(1);
+    assertThat(codec.decode(stored(encoded))).isEqualTo(content);
+  }
+
+  @Test
+  void leavesShortContentPlain() {
+    AICacheContentCodec.Encoded encoded = codec.encode("A short line.");
+
+    assertThat(encoded.isCompressed()).isFalse();
+    assertThat(encoded.getContent()).isEqualTo("A short line.");
+  }
+
+  private static AICache stored(AICacheContentCodec.Encoded encoded) {
+    AICache cache = new AICache();
+    cache.setContent(encoded.getContent());
+    cache.setContentCompressed(encoded.getContentCompressed());
+    cache.setCompressionCodec(encoded.getCodec());
+    cache.setDictionaryId(encoded.getDictionaryId());
+    return cache;
+  }
+
+  private static String chapter(int seed) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      text.append("The wind howled through the ancient forest as the traveler ")
+          .append("pressed onward toward the ruined tower number ")
+          .append(seed * 31 + i)
+          .append(". Shadows moved between the trees and the path grew narrow.\n");
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,56 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.storyai.storytelling_backend.repository.AICacheRepository;
+import com.storyai.storytelling_backend.repository.AICacheRepositoryCustom.HitDelta;
+import com.storyai.storytelling_backend.service.AICacheHitRecorder;
+
+class AICacheHitRecorderTest {
+
+  private AICacheRepository cacheRepository;
+  private AICacheHitRecorder hitRecorder;
+
+  @BeforeEach
+  void setUp() {
+    cacheRepository = mock(AICacheRepository.class);
+    hitRecorder = new AICacheHitRecorder(cacheRepository);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void flushAggregatesHitsPerKeyIntoOneBatch() {
+    hitRecorder.recordHit("story:a");
+    hitRecorder.recordHit("story:a");
+    hitRecorder.recordHit("story:b");
+
+    hitRecorder.flush();
+
+    ArgumentCaptor<Collection<HitDelta>> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(cacheRepository).applyHitDeltas(captor.capture());
+    List<HitDelta> deltas = List.copyOf(captor.getValue());
+    assertThat(deltas)
+        .extracting(HitDelta::getCacheKey, HitDelta::getHits)
+        .containsExactlyInAnyOrder(tuple("story:a", 2L), tuple("story:b", 1L));
+    assertThat(hitRecorder.pendingKeys()).isZero();
+  }
+
+  @Test
+  void flushWithNothingPendingSkipsDatabase() {
+    hitRecorder.flush();
+
+    verify(cacheRepository, never()).applyHitDeltas(anyCollection());
+  }
+}
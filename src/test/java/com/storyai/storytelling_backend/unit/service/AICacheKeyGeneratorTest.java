@@ -0,0 +1,99 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.config.AICacheProperties.KeyScope;
+import com.storyai.storytelling_backend.config.AIProviderConfig;
+import com.storyai.storytelling_backend.service.AICacheKeyGenerator;
+
+class AICacheKeyGeneratorTest {
+
+  private static final String PROMPT = "Genre: fantasy\nTone: dark\n\nBegin the chapter:";
+
+  @Test
+  void identicalRequestsInDifferentSessionsShareStoryScopedKey() {
+    AICacheKeyGenerator keyGenerator = generator(KeyScope.STORY);
+
+    String first = keyGenerator.storyKey("claude", "model", 0.7, 2000, request(1L, 10L), PROMPT);
+    String second = keyGenerator.storyKey("claude", "model", 0.7, 2000, request(1L, 11L), PROMPT);
+
+    assertThat(first).isEqualTo(second).startsWith("claude:story:st1:");
+    assertThat(first.length()).isLessThanOrEqualTo(255);
+  }
+
+  @Test
+  void sessionScopeKeepsSessionsApart() {
+    AICacheKeyGenerator keyGenerator = generator(KeyScope.SESSION);
+
+    String first = keyGenerator.storyKey("claude", "model", 0.7, 2000, request(1L, 10L), PROMPT);
+    String second = keyGenerator.storyKey("claude", "model", 0.7, 2000, request(1L, 11L), PROMPT);
+
+    assertThat(first).isNotEqualTo(second);
+  }
+
+  @Test
+  void samplingParametersAndModelChangeTheKey() {
+    AICacheKeyGenerator keyGenerator = generator(KeyScope.GLOBAL);
+    GenerateStoryRequest request = request(1L, 10L);
+
+    String base = keyGenerator.storyKey("claude", "model", 0.7, 2000, request, PROMPT);
+
+    assertThat(keyGenerator.storyKey("claude", "model", 0.9, 2000, request, PROMPT))
+        .isNotEqualTo(base);
+    assertThat(keyGenerator.storyKey("claude", "model", 0.7, 1000, request, PROMPT))
+        .isNotEqualTo(base);
+    assertThat(keyGenerator.storyKey("claude", "other", 0.7, 2000, request, PROMPT))
+        .isNotEqualTo(base);
+    assertThat(keyGenerator.storyKey("openai", "model", 0.7, 2000, request, PROMPT))
+        .isNotEqualTo(base);
+  }
+
+  @Test
+  void formattingOnlyDifferencesShareTheKey() {
+    AICacheKeyGenerator keyGenerator = generator(KeyScope.GLOBAL);
+    GenerateStoryRequest request = request(1L, 10L);
+    String reformatted = "  Genre: fantasy  \r\nTone: dark\r\n\r\nBegin the chapter:\n";
+
+    assertThat(keyGenerator.storyKey("claude", "model", 0.7, 2000, request, reformatted))
+        .isEqualTo(keyGenerator.storyKey("claude", "model", 0.7, 2000, request, PROMPT));
+  }
+
+  @Test
+  void routedRequestsShareTheKeyAcrossProviders() {
+    AICacheKeyGenerator keyGenerator = generator(KeyScope.STORY, "router");
+    GenerateStoryRequest request = request(1L, 10L);
+
+    String claude = keyGenerator.storyKey("claude", "sonnet", 0.8, 2000, request, PROMPT);
+    String openAI =
+        keyGenerator.storyKey("openai", "gpt-4", 0.7, 1000, request, "Another prompt: fantasy");
+
+    assertThat(claude).isEqualTo(openAI).startsWith("router:story:st1:");
+    request.setTone("dark");
+    assertThat(keyGenerator.storyKey("claude", "sonnet", 0.8, 2000, request, PROMPT))
+        .isNotEqualTo(claude);
+  }
+
+  private static AICacheKeyGenerator generator(KeyScope scope) {
+    return generator(scope, "claude");
+  }
+
+  private static AICacheKeyGenerator generator(KeyScope scope, String provider) {
+    AICacheProperties properties = new AICacheProperties();
+    properties.getKey().setScope(scope);
+    AIProviderConfig providerConfig = new AIProviderConfig();
+    providerConfig.setProvider(provider);
+    return new AICacheKeyGenerator(properties, providerConfig);
+  }
+
+  private static GenerateStoryRequest request(Long storyId, Long sessionId) {
+    GenerateStoryRequest request = new GenerateStoryRequest();
+    request.setStoryId(storyId);
+    request.setSessionId(sessionId);
+    request.setGenre("fantasy");
+    return request;
+  }
+}
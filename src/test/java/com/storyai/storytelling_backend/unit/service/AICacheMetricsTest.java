@@ -0,0 +1,68 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.service.AICacheMetrics;
+import com.storyai.storytelling_backend.service.AICacheMetrics.Outcome;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AICacheMetricsTest {
+
+  private SimpleMeterRegistry registry;
+  private AICacheMetrics metrics;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    metrics = new AICacheMetrics(registry);
+  }
+
+  @Test
+  void countsLookupOutcomesAndHitRatio() {
+    metrics.recordLookup(Outcome.LOCAL_HIT, TimeUnit.MICROSECONDS.toNanos(5));
+    metrics.recordLookup(Outcome.HIT, TimeUnit.MILLISECONDS.toNanos(2));
+    metrics.recordLookup(Outcome.HIT, TimeUnit.MILLISECONDS.toNanos(2));
+    metrics.recordLookup(Outcome.NEGATIVE_HIT, TimeUnit.MICROSECONDS.toNanos(3));
+
+    assertThat(metrics.getHits()).isEqualTo(3);
+    assertThat(metrics.getLocalHits()).isEqualTo(1);
+    assertThat(metrics.getMisses()).isEqualTo(1);
+    assertThat(metrics.getNegativeHits()).isEqualTo(1);
+    assertThat(metrics.getHitRatio()).isEqualTo(0.75);
+    assertThat(metrics.getLookupPercentileMicros(0.99)).isGreaterThan(1000);
+    assertThat(registry.get("ai.cache.gets").tags("result", "hit", "tier", "db").counter().count())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void storageEstimatesFollowWritesEvictionsResizesAndRefresh() {
+    metrics.resetStorage(10, 10_000);
+    metrics.recordWrites(2, 500);
+    metrics.recordEvictions(3, 3_000);
+    metrics.recordResize(-1_500);
+
+    assertThat(metrics.getStoredEntries()).isEqualTo(9);
+    assertThat(metrics.getStoredBytes()).isEqualTo(6_000);
+    assertThat(metrics.getEvictions()).isEqualTo(3);
+    assertThat(registry.get("ai.cache.stored.bytes").gauge().value()).isEqualTo(6_000);
+  }
+
+  @Test
+  void expirationsReleaseTheAverageEntrySize() {
+    metrics.resetStorage(10, 10_000);
+    metrics.recordExpirations(4);
+
+    assertThat(metrics.getStoredEntries()).isEqualTo(6);
+    assertThat(metrics.getStoredBytes()).isEqualTo(6_000);
+
+    metrics.recordExpirations(20);
+    assertThat(metrics.getStoredEntries()).isZero();
+    assertThat(metrics.getStoredBytes()).isZero();
+  }
+}
@@ -0,0 +1,77 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.repository.AICacheRepository;
+import com.storyai.storytelling_backend.repository.AICacheRepositoryCustom.EvictedEntry;
+import com.storyai.storytelling_backend.service.AICacheContentCodec;
+import com.storyai.storytelling_backend.service.AICacheHitRecorder;
+import com.storyai.storytelling_backend.service.AICacheMetrics;
+import com.storyai.storytelling_backend.service.AICacheService;
+import com.storyai.storytelling_backend.service.AILocalCache;
+import com.storyai.storytelling_backend.service.StaleCacheRefresher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AICacheServiceTest {
+
+  private AICacheRepository cacheRepository;
+  private AICacheMetrics metrics;
+  private AICacheService cacheService;
+
+  @BeforeEach
+  void setUp() {
+    cacheRepository = mock(AICacheRepository.class);
+    metrics = new AICacheMetrics(new SimpleMeterRegistry());
+    cacheService =
+        new AICacheService(
+            cacheRepository,
+            mock(AILocalCache.class),
+            mock(AICacheHitRecorder.class),
+            mock(AICacheContentCodec.class),
+            metrics,
+            mock(StaleCacheRefresher.class),
+            new AICacheProperties());
+  }
+
+  @Test
+  void evictionGoesByTheStoredBytesInTheDatabase() {
+    // Other nodes wrote what this node's estimate hasn't seen
+    metrics.resetStorage(1, 100);
+    storedInDatabase(3, 3000);
+    when(cacheRepository.evictLowestValue(1000, 10))
+        .thenReturn(List.of(new EvictedEntry("story:a", 1000)));
+
+    assertThat(cacheService.evictToBudget(2000, 10, 5)).isEqualTo(1);
+    assertThat(metrics.getStoredBytes()).isEqualTo(2000);
+  }
+
+  @Test
+  void withinBudgetEvictsNothing() {
+    metrics.resetStorage(3, 3000);
+    storedInDatabase(1, 100);
+
+    assertThat(cacheService.evictToBudget(2000, 10, 5)).isZero();
+    verify(cacheRepository, never()).evictLowestValue(anyLong(), anyInt());
+    assertThat(metrics.getStoredBytes()).isEqualTo(100);
+  }
+
+  private void storedInDatabase(long entries, long bytes) {
+    AICacheRepository.StorageTotals totals = mock(AICacheRepository.StorageTotals.class);
+    when(totals.getEntries()).thenReturn(entries);
+    when(totals.getBytes()).thenReturn(bytes);
+    when(cacheRepository.storageTotals()).thenReturn(totals);
+  }
+}
@@ -0,0 +1,165 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+import com.storyai.storytelling_backend.service.AIConcurrencyLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIConcurrencyLimiterTest {
+
+  private SimpleMeterRegistry registry;
+  private AIResilienceProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    properties = new AIResilienceProperties();
+    // Keep timing noise in fast test calls from counting as slow
+    properties.getConcurrency().setLatencyTolerance(1_000_000);
+  }
+
+  @Test
+  void rejectsWithRetryAfterWhenSaturatedAndQueueFull() throws Exception {
+    properties.getConcurrency().setInitialLimit(1);
+    properties.getConcurrency().setMaxLimit(1);
+    properties.getConcurrency().setMaxQueue(0);
+    AIConcurrencyLimiter limiter = new AIConcurrencyLimiter(properties, registry);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> holder = occupySlot(limiter, started, release);
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> limiter.execute("claude", () -> "second"))
+        .isInstanceOf(AIServiceUnavailableException.class)
+        .satisfies(
+            e -> {
+              AIServiceUnavailableException unavailable = (AIServiceUnavailableException) e;
+              assertThat(unavailable.getErrorCode()).isEqualTo("AI_PROVIDER_SATURATED");
+              assertThat(unavailable.getRetryAfterSeconds()).isPositive();
+            });
+    // Other providers have their own limit
+    assertThat(limiter.execute("openai", () -> "other")).isEqualTo("other");
+
+    release.countDown();
+    assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("held");
+    assertThat(
+            registry
+                .get("ai.provider.concurrency.rejected")
+                .tag("provider", "claude")
+                .counter()
+                .count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void queuedCallRunsWhenSlotFreesAndGivesUpAtDeadline() throws Exception {
+    properties.getConcurrency().setInitialLimit(1);
+    properties.getConcurrency().setMaxLimit(1);
+    properties.getConcurrency().setMaxQueue(1);
+    properties.getConcurrency().setMaxWaitMs(5000);
+    AIConcurrencyLimiter limiter = new AIConcurrencyLimiter(properties, registry);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    occupySlot(limiter, started, release);
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    CompletableFuture<String> queued =
+        CompletableFuture.supplyAsync(() -> limiter.execute("claude", () -> "queued"));
+    Thread.sleep(100);
+    assertThat(queued).isNotDone();
+    release.countDown();
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+
+    properties.getConcurrency().setMaxWaitMs(50);
+    CountDownLatch startedAgain = new CountDownLatch(1);
+    CountDownLatch releaseAgain = new CountDownLatch(1);
+    occupySlot(limiter, startedAgain, releaseAgain);
+    assertThat(startedAgain.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThatThrownBy(() -> limiter.execute("claude", () -> "late"))
+        .isInstanceOf(AIServiceUnavailableException.class);
+    releaseAgain.countDown();
+  }
+
+  @Test
+  void overloadShrinksLimitAndOtherFailuresDoNot() {
+    AIConcurrencyLimiter limiter = new AIConcurrencyLimiter(properties, registry);
+    limiter.execute("claude", () -> "warm up");
+    int initial = limiter.currentLimit("claude");
+
+    assertThatThrownBy(
+            () ->
+                limiter.execute(
+                    "claude",
+                    () -> {
+                      throw new RuntimeException(
+                          "Failed to generate content from Claude",
+                          HttpClientErrorException.create(
+                              HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+                    }))
+        .isInstanceOf(RuntimeException.class);
+    assertThat(limiter.currentLimit("claude")).isEqualTo(initial);
+
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(
+              () ->
+                  limiter.execute(
+                      "claude",
+                      () -> {
+                        throw new RuntimeException(
+                            "Failed to generate content from Claude",
+                            HttpServerErrorException.create(
+                                HttpStatus.SERVICE_UNAVAILABLE, "Overloaded", null, null, null));
+                      }))
+          .isInstanceOf(RuntimeException.class);
+    }
+    assertThat(limiter.currentLimit("claude")).isLessThan(initial);
+    assertThat(
+            registry.get("ai.provider.concurrency.limit").tag("provider", "claude").gauge().value())
+        .isEqualTo(limiter.currentLimit("claude"));
+  }
+
+  @Test
+  void limitGrowsWhileInUse() {
+    properties.getConcurrency().setInitialLimit(1);
+    AIConcurrencyLimiter limiter = new AIConcurrencyLimiter(properties, registry);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.execute("claude", () -> "ok");
+    }
+
+    assertThat(limiter.currentLimit("claude")).isGreaterThan(1);
+  }
+
+  private static CompletableFuture<String> occupySlot(
+      AIConcurrencyLimiter limiter, CountDownLatch started, CountDownLatch release) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            limiter.execute(
+                "claude",
+                () -> {
+                  started.countDown();
+                  try {
+                    release.await(5, TimeUnit.SECONDS);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  return "held";
+                }));
+  }
+}
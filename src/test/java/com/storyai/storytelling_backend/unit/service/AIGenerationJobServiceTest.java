@@ -0,0 +1,76 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.DTO.CreateGenerationJobRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.config.AIJobProperties;
+import com.storyai.storytelling_backend.entity.AIGenerationJob;
+import com.storyai.storytelling_backend.entity.AIGenerationJob.JobType;
+import com.storyai.storytelling_backend.entity.AIGenerationJob.Status;
+import com.storyai.storytelling_backend.exception.RateLimitException;
+import com.storyai.storytelling_backend.repository.AIGenerationJobRepository;
+import com.storyai.storytelling_backend.service.AIGenerationJobService;
+import com.storyai.storytelling_backend.service.AIGenerationJobWorker;
+
+class AIGenerationJobServiceTest {
+
+  private AIGenerationJobRepository jobRepository;
+  private AIGenerationJobWorker worker;
+  private AIGenerationJobService jobService;
+
+  @BeforeEach
+  void setUp() {
+    AIJobProperties properties = new AIJobProperties();
+    properties.setMaxActivePerUser(2);
+    properties.setRejectedRetryAfterSeconds(15);
+    jobRepository = mock(AIGenerationJobRepository.class);
+    worker = mock(AIGenerationJobWorker.class);
+    jobService = new AIGenerationJobService(properties, jobRepository, worker, new ObjectMapper());
+    when(jobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  @Test
+  void userBelowTheLimitGetsTheJobQueued() {
+    pending(7L, 1);
+
+    assertThat(jobService.submit(storyJob(), 7L).getStatus()).isEqualTo(Status.QUEUED);
+    verify(worker).wakeUp();
+  }
+
+  @Test
+  void userAtTheLimitIsTurnedAwayWithRetryAfter() {
+    pending(7L, 2);
+
+    assertThatThrownBy(() -> jobService.submit(storyJob(), 7L))
+        .isInstanceOfSatisfying(
+            RateLimitException.class, e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(15));
+    verify(jobRepository, never()).save(any(AIGenerationJob.class));
+  }
+
+  private void pending(Long userId, long jobs) {
+    when(jobRepository.countByUserIdAndStatusIn(
+            eq(userId), eq(EnumSet.of(Status.QUEUED, Status.RUNNING))))
+        .thenReturn(jobs);
+  }
+
+  private static CreateGenerationJobRequest storyJob() {
+    CreateGenerationJobRequest request = new CreateGenerationJobRequest();
+    request.setType(JobType.STORY);
+    request.setStory(new GenerateStoryRequest());
+    return request;
+  }
+}
@@ -0,0 +1,145 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GeneratedStoryResponse;
+import com.storyai.storytelling_backend.config.AIJobProperties;
+import com.storyai.storytelling_backend.entity.AIGenerationJob.JobType;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+import com.storyai.storytelling_backend.repository.AIGenerationJobRepository;
+import com.storyai.storytelling_backend.repository.AIGenerationJobRepositoryCustom.ClaimedJob;
+import com.storyai.storytelling_backend.service.AIGenerationJobWorker;
+import com.storyai.storytelling_backend.service.AIStoryGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIGenerationJobWorkerTest {
+
+  private static final String STORY_REQUEST =
+      "{\"storyId\": 1, \"sessionId\": 2, \"genre\": \"Fantasy\"}";
+
+  private final UUID id = UUID.randomUUID();
+  private AIJobProperties properties;
+  private AIGenerationJobRepository repository;
+  private AIStoryGenerator generator;
+  private AIGenerationJobWorker worker;
+
+  @BeforeEach
+  void setUp() {
+    properties = new AIJobProperties();
+    properties.setEnabled(false);
+    repository = mock(AIGenerationJobRepository.class);
+    generator = mock(AIStoryGenerator.class);
+    when(generator.isAvailable()).thenReturn(true);
+    when(repository.complete(any(), anyString(), anyString())).thenReturn(1);
+    when(repository.fail(any(), anyString(), anyString())).thenReturn(1);
+    when(repository.requeue(any(), anyString(), any(Long.class))).thenReturn(1);
+    worker =
+        new AIGenerationJobWorker(
+            properties, repository, generator, new ObjectMapper(), new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  void tearDown() {
+    worker.shutdown();
+  }
+
+  @Test
+  void storesTheGeneratedResponse() {
+    GeneratedStoryResponse response = new GeneratedStoryResponse();
+    response.setContent("Once upon a time");
+    when(generator.generateStory(any())).thenReturn(response);
+
+    worker.execute(new ClaimedJob(id, JobType.STORY, STORY_REQUEST, 1));
+
+    ArgumentCaptor<GenerateStoryRequest> request =
+        ArgumentCaptor.forClass(GenerateStoryRequest.class);
+    verify(generator).generateStory(request.capture());
+    assertThat(request.getValue().getGenre()).isEqualTo("Fantasy");
+    ArgumentCaptor<String> result = ArgumentCaptor.forClass(String.class);
+    verify(repository).complete(eq(id), eq(worker.getWorkerId()), result.capture());
+    assertThat(result.getValue()).contains("\"content\":\"Once upon a time\"");
+  }
+
+  @Test
+  void shedJobIsRequeuedForItsRetryAfterUntilAttemptsRunOut() {
+    when(generator.generateStory(any()))
+        .thenThrow(new AIServiceUnavailableException("Rate limited", "AI_RATE_LIMITED", 7));
+
+    worker.execute(new ClaimedJob(id, JobType.STORY, STORY_REQUEST, 1));
+    verify(repository).requeue(id, worker.getWorkerId(), 7L);
+
+    worker.execute(new ClaimedJob(id, JobType.STORY, STORY_REQUEST, 3));
+    verify(repository).fail(id, worker.getWorkerId(), "Rate limited");
+  }
+
+  @Test
+  void otherFailuresFinishTheJobWithoutDetails() {
+    when(generator.generateStory(any())).thenThrow(new RuntimeException("secret provider error"));
+
+    worker.execute(new ClaimedJob(id, JobType.STORY, STORY_REQUEST, 1));
+
+    verify(repository).fail(id, worker.getWorkerId(), "Generation failed");
+    verify(repository, never()).requeue(any(), anyString(), any(Long.class));
+  }
+
+  @Test
+  void leasesAreRenewedWhileJobsRun() throws Exception {
+    worker.renewLeases();
+    verify(repository, never()).renewLeases(anyString(), anyLong());
+
+    properties.setEnabled(true);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(repository.claim(anyString(), anyInt(), anyLong()))
+        .thenReturn(List.of(new ClaimedJob(id, JobType.STORY, STORY_REQUEST, 1)))
+        .thenReturn(List.of());
+    when(generator.generateStory(any()))
+        .thenAnswer(
+            invocation -> {
+              started.countDown();
+              release.await(10, TimeUnit.SECONDS);
+              return new GeneratedStoryResponse();
+            });
+
+    worker.wakeUp();
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    worker.renewLeases();
+    release.countDown();
+
+    verify(repository).renewLeases(worker.getWorkerId(), properties.getLeaseSeconds());
+    verify(repository, timeout(10_000)).complete(eq(id), eq(worker.getWorkerId()), anyString());
+  }
+
+  @Test
+  void jobClaimedTooOftenFailsWithoutRunning() {
+    worker.execute(new ClaimedJob(id, JobType.STORY, STORY_REQUEST, 4));
+
+    verify(repository)
+        .fail(id, worker.getWorkerId(), "Generation did not complete after 3 attempts");
+    verifyNoInteractions(generator);
+  }
+}
@@ -0,0 +1,91 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.entity.AIGeneration;
+import com.storyai.storytelling_backend.entity.AIGeneration.CacheOutcome;
+import com.storyai.storytelling_backend.repository.AIGenerationRepository;
+import com.storyai.storytelling_backend.service.AICompletion;
+import com.storyai.storytelling_backend.service.AIGenerationLedger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIGenerationLedgerTest {
+
+  private AIGenerationRepository generationRepository;
+  private SimpleMeterRegistry registry;
+  private List<List<AIGeneration>> batches;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    generationRepository = mock(AIGenerationRepository.class);
+    registry = new SimpleMeterRegistry();
+    batches = new ArrayList<>();
+    when(generationRepository.insertAll(anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              Collection<AIGeneration> batch = invocation.getArgument(0);
+              batches.add(List.copyOf(batch));
+              return batch.size();
+            });
+  }
+
+  @Test
+  void trackRecordsUsageLatencyAndFailures() {
+    AIGenerationLedger ledger = new AIGenerationLedger(generationRepository, registry, 10, 10);
+
+    AIGeneration ok = generation();
+    ledger.track(ok, () -> new AICompletion("text", 120, 30));
+    AIGeneration failed = generation();
+    assertThatThrownBy(
+            () ->
+                ledger.track(
+                    failed,
+                    () -> {
+                      throw new IllegalStateException("provider down");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(ok.getTokensUsed()).isEqualTo(150);
+    assertThat(ok.isSucceeded()).isTrue();
+    assertThat(ok.getLatencyMs()).isNotNull();
+    assertThat(failed.isSucceeded()).isFalse();
+    assertThat(failed.getTokensUsed()).isNull();
+    assertThat(ledger.pendingCount()).isEqualTo(2);
+  }
+
+  @Test
+  void flushWritesInBatchesAndDropsWhenFull() {
+    AIGenerationLedger ledger = new AIGenerationLedger(generationRepository, registry, 5, 2);
+    for (int i = 0; i < 7; i++) {
+      ledger.record(generation());
+    }
+
+    ledger.flush();
+
+    verify(generationRepository, times(3)).insertAll(anyCollection());
+    assertThat(batches).extracting(List::size).containsExactly(2, 2, 1);
+    assertThat(ledger.pendingCount()).isZero();
+    assertThat(
+            registry.get("ai.generation.ledger.records").tag("result", "dropped").counter().count())
+        .isEqualTo(2);
+  }
+
+  private static AIGeneration generation() {
+    return new AIGeneration("story", "openai", "gpt-4", "hash", CacheOutcome.MISS);
+  }
+}
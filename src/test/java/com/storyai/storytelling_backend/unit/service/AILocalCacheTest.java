@@ -0,0 +1,75 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.service.AILocalCache;
+
+class AILocalCacheTest {
+
+  private AILocalCache localCache;
+
+  @BeforeEach
+  void setUp() {
+    localCache = new AILocalCache(new AICacheProperties());
+  }
+
+  @Test
+  void returnsStoredContent() {
+    localCache.put("story:key", "Once upon a time", LocalDateTime.now().plusHours(1));
+
+    Optional<AILocalCache.Entry> entry = localCache.get("story:key");
+
+    assertThat(entry).isPresent();
+    assertThat(entry.get().isMiss()).isFalse();
+    assertThat(entry.get().getContent()).isEqualTo("Once upon a time");
+  }
+
+  @Test
+  void remembersKnownMisses() {
+    localCache.putMiss("story:absent");
+
+    assertThat(localCache.get("story:absent"))
+        .hasValueSatisfying(entry -> assertThat(entry.isMiss()).isTrue());
+  }
+
+  @Test
+  void doesNotKeepAlreadyExpiredContent() {
+    localCache.put("story:key", "stale", LocalDateTime.now().minusMinutes(1));
+
+    assertThat(localCache.get("story:key")).isEmpty();
+  }
+
+  @Test
+  void writeReplacesNegativeEntry() {
+    localCache.putMiss("story:key");
+    localCache.put("story:key", "fresh", null);
+
+    assertThat(localCache.get("story:key").map(AILocalCache.Entry::getContent)).hasValue("fresh");
+  }
+
+  @Test
+  void invalidateRemovesEntry() {
+    localCache.put("story:key", "content", null);
+    localCache.invalidate("story:key");
+
+    assertThat(localCache.get("story:key")).isEmpty();
+  }
+
+  @Test
+  void disabledTierStoresNothing() {
+    AICacheProperties properties = new AICacheProperties();
+    properties.getLocal().setEnabled(false);
+    AILocalCache disabled = new AILocalCache(properties);
+
+    disabled.put("story:key", "content", null);
+
+    assertThat(disabled.get("story:key")).isEmpty();
+  }
+}
@@ -0,0 +1,141 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+import com.storyai.storytelling_backend.service.AICompletion;
+import com.storyai.storytelling_backend.service.AIRateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIRateLimiterTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private SimpleMeterRegistry registry;
+  private AIResilienceProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    properties = new AIResilienceProperties();
+    properties.getRateLimit().setMaxWaitMs(0);
+  }
+
+  @Test
+  void shedsOnceTheRequestQuotaIsUsedUp() {
+    properties.getRateLimit().setRequestsPerMinute(2);
+    AIRateLimiter rateLimiter = newRateLimiter();
+
+    rateLimiter.acquire("claude", "sonnet", 10);
+    rateLimiter.acquire("claude", "sonnet", 10);
+
+    assertThatThrownBy(() -> rateLimiter.acquire("claude", "sonnet", 10))
+        .isInstanceOf(AIServiceUnavailableException.class)
+        .satisfies(
+            e -> {
+              AIServiceUnavailableException unavailable = (AIServiceUnavailableException) e;
+              assertThat(unavailable.getErrorCode()).isEqualTo("AI_RATE_LIMITED");
+              assertThat(unavailable.getRetryAfterSeconds()).isEqualTo(30);
+            });
+    // Other models have their own quota
+    rateLimiter.acquire("claude", "opus", 10);
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    rateLimiter.acquire("claude", "sonnet", 10);
+  }
+
+  @Test
+  void learnsTokenQuotaFromResponseHeaders() {
+    AIRateLimiter rateLimiter = newRateLimiter();
+    HttpHeaders headers = new HttpHeaders();
+    headers.add("anthropic-ratelimit-tokens-limit", "1000");
+    headers.add("anthropic-ratelimit-tokens-remaining", "0");
+
+    rateLimiter.observe("claude", "sonnet", headers);
+
+    assertThatThrownBy(() -> rateLimiter.acquire("claude", "sonnet", 100))
+        .isInstanceOf(AIServiceUnavailableException.class);
+    assertThat(
+            registry
+                .get("ai.provider.rate.quota")
+                .tags("provider", "claude", "quota", "tokens")
+                .gauge()
+                .value())
+        .isEqualTo(1000.0);
+
+    // 1000 tokens a minute refill 100 in six seconds
+    now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+    rateLimiter.acquire("claude", "sonnet", 100);
+  }
+
+  @Test
+  void retryAfterPausesTheQuota() {
+    AIRateLimiter rateLimiter = newRateLimiter();
+    HttpHeaders headers = new HttpHeaders();
+    headers.add(HttpHeaders.RETRY_AFTER, "20");
+
+    rateLimiter.observe("openai", "gpt-4", headers);
+
+    assertThatThrownBy(() -> rateLimiter.acquire("openai", "gpt-4", 10))
+        .isInstanceOf(AIServiceUnavailableException.class)
+        .satisfies(
+            e -> assertThat(((AIServiceUnavailableException) e).getRetryAfterSeconds())
+                .isEqualTo(20));
+    now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+    rateLimiter.acquire("openai", "gpt-4", 10);
+  }
+
+  @Test
+  void settlingReturnsUnusedTokens() {
+    properties.getRateLimit().setTokensPerMinute(1000);
+    AIRateLimiter rateLimiter = newRateLimiter();
+
+    rateLimiter.acquire("openai", "gpt-4", 800);
+    assertThatThrownBy(() -> rateLimiter.acquire("openai", "gpt-4", 800))
+        .isInstanceOf(AIServiceUnavailableException.class);
+
+    rateLimiter.settle("openai", "gpt-4", 800, new AICompletion("text", 60, 40));
+    rateLimiter.acquire("openai", "gpt-4", 800);
+  }
+
+  @Test
+  void queuesCallsDueWithinTheMaxWait() {
+    properties.getRateLimit().setMaxWaitMs(2000);
+    AIRateLimiter rateLimiter = new AIRateLimiter(properties, registry);
+    HttpHeaders headers = new HttpHeaders();
+    // 600 a minute: the next request is due in 100ms
+    headers.add("x-ratelimit-limit-requests", "600");
+    headers.add("x-ratelimit-remaining-requests", "0");
+    rateLimiter.observe("openai", "gpt-4", headers);
+
+    long start = System.nanoTime();
+    rateLimiter.acquire("openai", "gpt-4", 10);
+
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(50L, 1500L);
+    assertThat(
+            registry
+                .get("ai.provider.rate.limited")
+                .tags("provider", "openai", "result", "queued")
+                .counter()
+                .count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void estimatesPromptTokensPlusOutputCap() {
+    assertThat(AIRateLimiter.estimateTokens("x".repeat(400), 1000)).isEqualTo(1100);
+  }
+
+  private AIRateLimiter newRateLimiter() {
+    return new AIRateLimiter(properties, registry, now::get);
+  }
+}
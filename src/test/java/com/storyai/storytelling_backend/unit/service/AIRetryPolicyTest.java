@@ -0,0 +1,197 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.client5.http.HttpHostConnectException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.service.AIRetryPolicy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIRetryPolicyTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final List<Long> sleptMillis = new ArrayList<>();
+  private AIResilienceProperties properties;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    properties = new AIResilienceProperties();
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void retriesTransientFailuresWithJitteredBackoff() {
+    AIRetryPolicy policy = newPolicy();
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result =
+        policy.execute(
+            "claude",
+            attempt -> {
+              attempts.incrementAndGet();
+              if (attempt < 3) {
+                throw new RuntimeException("Failed", serverError(529));
+              }
+              return "text";
+            });
+
+    assertThat(result).isEqualTo("text");
+    assertThat(attempts).hasValue(3);
+    assertThat(sleptMillis).hasSize(2);
+    assertThat(sleptMillis.get(0)).isBetween(0L, 200L);
+    assertThat(sleptMillis.get(1)).isBetween(0L, 400L);
+    assertThat(retries("retried")).isEqualTo(2);
+    assertThat(retries("recovered")).isEqualTo(1);
+  }
+
+  @Test
+  void waitsForRetryAfterUnlessItIsTooLong() {
+    AIRetryPolicy policy = newPolicy();
+
+    policy.execute("openai", attempt -> attempt == 1 ? fail(tooManyRequests("2")) : "text");
+    assertThat(sleptMillis).containsExactly(2000L);
+
+    AtomicInteger attempts = new AtomicInteger();
+    assertThatThrownBy(
+            () ->
+                policy.execute(
+                    "openai",
+                    attempt -> {
+                      attempts.incrementAndGet();
+                      return fail(tooManyRequests("60"));
+                    }))
+        .isInstanceOf(HttpClientErrorException.class);
+    assertThat(attempts).hasValue(1);
+    assertThat(retries("retry_after_too_long")).isEqualTo(1);
+  }
+
+  @Test
+  void onlyRetriesFailuresThatReachedNoProviderWork() {
+    AIRetryPolicy policy = newPolicy();
+
+    assertThat(attempts(policy, new HttpClientErrorException(HttpStatus.BAD_REQUEST))).isEqualTo(1);
+    assertThat(attempts(policy, new IllegalStateException("Bad response"))).isEqualTo(1);
+    assertThat(attempts(policy, ioFailure(new SocketTimeoutException("Read timed out"))))
+        .isEqualTo(1);
+    // Refused connections are retried until the attempts run out
+    assertThat(attempts(policy, ioFailure(new HttpHostConnectException("Connection refused"))))
+        .isEqualTo(3);
+    assertThat(retries("exhausted")).isEqualTo(1);
+  }
+
+  @Test
+  void budgetLimitsRetriesToAShareOfCalls() {
+    properties.getRetry().setBudgetCapacity(2);
+    properties.getRetry().setBudgetRatio(0.5);
+    properties.getRetry().setBudgetMinPerSecond(0);
+    properties.getRetry().setMaxAttempts(2);
+    AIRetryPolicy policy = newPolicy();
+
+    for (int i = 0; i < 6; i++) {
+      attempts(policy, serverError(503));
+    }
+
+    // The full budget, then one retry for every two calls
+    assertThat(retries("retried")).isEqualTo(4);
+    assertThat(retries("budget_exhausted")).isEqualTo(2);
+  }
+
+  @Test
+  void aStreamIsNotRetriedOnceItHasSentText() {
+    AIRetryPolicy policy = newPolicy();
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                policy.execute(
+                    "claude",
+                    attempt -> {
+                      attempts.incrementAndGet();
+                      return fail(serverError(502));
+                    },
+                    () -> false))
+        .isInstanceOf(HttpServerErrorException.class);
+    assertThat(attempts).hasValue(1);
+  }
+
+  private AIRetryPolicy newPolicy() {
+    return new AIRetryPolicy(
+        properties,
+        meterRegistry,
+        now::get,
+        nanos -> {
+          sleptMillis.add(TimeUnit.NANOSECONDS.toMillis(nanos));
+          now.addAndGet(nanos);
+        });
+  }
+
+  private int attempts(AIRetryPolicy policy, RuntimeException failure) {
+    AtomicInteger attempts = new AtomicInteger();
+    try {
+      policy.execute(
+          "claude",
+          attempt -> {
+            attempts.incrementAndGet();
+            return fail(failure);
+          });
+    } catch (RuntimeException e) {
+      assertThat(e).isSameAs(failure);
+    }
+    return attempts.get();
+  }
+
+  private double retries(String outcome) {
+    return meterRegistry.find("ai.provider.retries").tag("outcome", outcome).counters().stream()
+        .mapToDouble(counter -> counter.count())
+        .sum();
+  }
+
+  private static String fail(RuntimeException failure) {
+    throw failure;
+  }
+
+  private static HttpServerErrorException serverError(int status) {
+    return HttpServerErrorException.create(
+        HttpStatusCode.valueOf(status),
+        "Overloaded",
+        HttpHeaders.EMPTY,
+        new byte[0],
+        StandardCharsets.UTF_8);
+  }
+
+  private static HttpClientErrorException tooManyRequests(String retryAfter) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+    return HttpClientErrorException.create(
+        HttpStatus.TOO_MANY_REQUESTS,
+        "Too Many Requests",
+        headers,
+        new byte[0],
+        StandardCharsets.UTF_8);
+  }
+
+  private static ResourceAccessException ioFailure(IOException cause) {
+    return new ResourceAccessException("I/O error", cause);
+  }
+}
@@ -0,0 +1,63 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.service.AIStreamingSupport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AIStreamingSupportTest {
+
+  private SimpleMeterRegistry registry;
+  private AIStreamingSupport streaming;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    streaming = new AIStreamingSupport(new ObjectMapper(), registry);
+  }
+
+  @Test
+  void readsDataPayloadsUntilDone() throws Exception {
+    String body =
+        "event: content_block_delta\n"
+            + "data: {\"delta\": {\"text\": \"Once\"}}\n\n"
+            + ": keep-alive\n\n"
+            + "data: {\"delta\": {\"text\": \" upon\"}}\n\n"
+            + "data: [DONE]\n\n"
+            + "data: {\"delta\": {\"text\": \"ignored\"}}\n\n";
+    List<JsonNode> events = new ArrayList<>();
+
+    streaming.readEvents(
+        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), events::add);
+
+    assertThat(events)
+        .extracting(event -> event.path("delta").path("text").asText())
+        .containsExactly("Once", " upon");
+  }
+
+  @Test
+  void recordsTimeToFirstTokenOncePerCall() {
+    List<String> deltas = new ArrayList<>();
+    Consumer<String> timed = streaming.timingFirstToken("openai", deltas::add);
+
+    timed.accept("");
+    timed.accept("Once");
+    timed.accept(" upon");
+
+    assertThat(deltas).containsExactly("", "Once", " upon");
+    assertThat(registry.get("ai.generation.ttft").tag("provider", "openai").timer().count())
+        .isEqualTo(1);
+  }
+}
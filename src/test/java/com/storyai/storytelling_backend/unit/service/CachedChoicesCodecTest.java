@@ -0,0 +1,42 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.DTO.GeneratedChoicesResponse.GeneratedChoice;
+import com.storyai.storytelling_backend.service.CachedChoicesCodec;
+
+class CachedChoicesCodecTest {
+
+  private final CachedChoicesCodec codec = new CachedChoicesCodec(new ObjectMapper());
+
+  @Test
+  void roundTripsChoicesAtCurrentVersion() {
+    GeneratedChoice choice = new GeneratedChoice("Open the door", "Something stirs inside");
+    choice.setEmotionalTone("tense");
+    List<GeneratedChoice> choices =
+        List.of(choice, new GeneratedChoice("Walk away", "The moment passes"));
+
+    List<GeneratedChoice> decoded =
+        codec.decode(codec.encode(choices), CachedChoicesCodec.SCHEMA_VERSION).orElseThrow();
+
+    assertThat(decoded).hasSize(2);
+    assertThat(decoded.get(0).getChoiceText()).isEqualTo("Open the door");
+    assertThat(decoded.get(0).getEmotionalTone()).isEqualTo("tense");
+    assertThat(decoded.get(1).getConsequence()).isEqualTo("The moment passes");
+  }
+
+  @Test
+  void missingOutdatedOrUnreadableStructureNeedsReparse() {
+    String encoded = codec.encode(List.of(new GeneratedChoice("a", "b")));
+
+    assertThat(codec.decode(null, null)).isEmpty();
+    assertThat(codec.decode(encoded, null)).isEmpty();
+    assertThat(codec.decode(encoded, (short) (CachedChoicesCodec.SCHEMA_VERSION - 1))).isEmpty();
+    assertThat(codec.decode("not json", CachedChoicesCodec.SCHEMA_VERSION)).isEmpty();
+  }
+}
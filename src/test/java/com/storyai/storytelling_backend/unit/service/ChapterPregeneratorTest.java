@@ -0,0 +1,211 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GenerateTurnRequest;
+import com.storyai.storytelling_backend.DTO.GeneratedChoicesResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedStoryResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedTurnResponse;
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.entity.DifficultyLevel;
+import com.storyai.storytelling_backend.entity.Story;
+import com.storyai.storytelling_backend.entity.StoryChapter;
+import com.storyai.storytelling_backend.entity.StorySession;
+import com.storyai.storytelling_backend.entity.UserChoice;
+import com.storyai.storytelling_backend.service.AIStoryGenerator;
+import com.storyai.storytelling_backend.service.ChapterPregenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChapterPregeneratorTest {
+
+  private SimpleMeterRegistry registry;
+  private AICacheProperties properties;
+  private BlockingGenerator generator;
+  private ChapterPregenerator pregenerator;
+
+  private StorySession session;
+  private StoryChapter chapter;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    properties = new AICacheProperties();
+    properties.getSpeculation().setConcurrency(4);
+    generator = new BlockingGenerator();
+
+    Story story = new Story("The Vault", "A heist", "mystery", null);
+    story.setId(7L);
+    story.setDifficultyLevel(DifficultyLevel.HARD);
+    session = new StorySession(null, story);
+    session.setId(11L);
+    chapter = new StoryChapter(story, 1, "The Door", "The door creaks open.");
+  }
+
+  @AfterEach
+  void tearDown() {
+    generator.release.countDown();
+    if (pregenerator != null) {
+      pregenerator.shutdown();
+    }
+  }
+
+  @Test
+  void continuationRequestCarriesTheChapterAndTheChoice() {
+    GenerateTurnRequest request =
+        ChapterPregenerator.continuationRequest(session, chapter, choice(21L, "Enter"));
+
+    assertThat(request.getStoryId()).isEqualTo(7L);
+    assertThat(request.getSessionId()).isEqualTo(11L);
+    assertThat(request.getGenre()).isEqualTo("mystery");
+    assertThat(request.getDifficultyLevel()).isEqualTo("hard");
+    assertThat(request.getContext())
+        .containsEntry("previousChapter", "The door creaks open.")
+        .containsEntry("playerChoice", "Enter");
+  }
+
+  @Test
+  void speculatesEachChoiceOnceWithinTheSessionBudget() throws Exception {
+    properties.getSpeculation().setMaxBranchesPerSession(2);
+    pregenerator = newPregenerator();
+    List<UserChoice> choices =
+        List.of(choice(21L, "Enter"), choice(22L, "Knock"), choice(23L, "Leave"));
+
+    pregenerator.speculate(session, chapter, choices);
+    // Asking again while they're pending starts nothing new
+    pregenerator.speculate(session, chapter, choices);
+
+    assertThat(generator.started.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(generator.choices).containsExactlyInAnyOrder("Enter", "Knock");
+    assertThat(pregenerator.pendingCount(11L)).isEqualTo(2);
+    assertThat(registry.get("ai.speculation").tag("result", "over_budget").counter().count())
+        .isEqualTo(2.0);
+  }
+
+  @Test
+  void committingAChoiceCancelsOnlyTheOtherBranchesStillQueued() throws Exception {
+    properties.getSpeculation().setConcurrency(1);
+    pregenerator = newPregenerator();
+    pregenerator.speculate(
+        session,
+        chapter,
+        List.of(choice(22L, "Knock"), choice(21L, "Enter"), choice(23L, "Leave")));
+    assertThat(generator.startedOne.await(5, TimeUnit.SECONDS)).isTrue();
+
+    pregenerator.commit(11L, 21L);
+
+    assertThat(pregenerator.pendingCount(11L)).isZero();
+    assertThat(registry.get("ai.speculation").tag("result", "cancelled").counter().count())
+        .isEqualTo(1.0);
+
+    // The running branch may be shared with other sessions, so it isn't interrupted
+    generator.release.countDown();
+    assertThat(generator.finished.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(generator.interrupted).isEmpty();
+    assertThat(generator.choices).containsExactlyInAnyOrder("Knock", "Enter");
+  }
+
+  @Test
+  void continuationOfAQueuedBranchIsGeneratedByTheReaderInstead() throws Exception {
+    properties.getSpeculation().setConcurrency(1);
+    pregenerator = newPregenerator();
+    UserChoice enter = choice(21L, "Enter");
+    pregenerator.speculate(session, chapter, List.of(choice(22L, "Knock"), enter));
+    assertThat(generator.startedOne.await(5, TimeUnit.SECONDS)).isTrue();
+
+    CompletableFuture<GeneratedTurnResponse> continuation =
+        CompletableFuture.supplyAsync(
+            () ->
+                pregenerator.continuation(
+                    11L, 21L, ChapterPregenerator.continuationRequest(session, chapter, enter)));
+
+    // The queued branch is dropped; the reader's call does its work
+    assertThat(generator.started.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(pregenerator.pendingCount(11L)).isEqualTo(1);
+    generator.release.countDown();
+    assertThat(continuation.get(5, TimeUnit.SECONDS)).isNotNull();
+    assertThat(generator.choices).containsExactlyInAnyOrder("Knock", "Enter");
+  }
+
+  @Test
+  void doesNothingWhenDisabled() {
+    properties.getSpeculation().setEnabled(false);
+    pregenerator = newPregenerator();
+
+    pregenerator.speculate(session, chapter, List.of(choice(21L, "Enter")));
+
+    assertThat(pregenerator.pendingCount(11L)).isZero();
+    assertThat(generator.choices).isEmpty();
+  }
+
+  private ChapterPregenerator newPregenerator() {
+    return new ChapterPregenerator(generator, properties, registry);
+  }
+
+  private UserChoice choice(Long id, String text) {
+    UserChoice choice = new UserChoice(chapter, text, id.intValue() - 20, 2);
+    choice.setId(id);
+    return choice;
+  }
+
+  /** Blocks each generation until released, recording which were interrupted */
+  private static class BlockingGenerator implements AIStoryGenerator {
+    private final Set<Object> choices = ConcurrentHashMap.newKeySet();
+    private final Set<Object> interrupted = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch startedOne = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(2);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch finished = new CountDownLatch(2);
+
+    @Override
+    public GeneratedTurnResponse generateTurn(GenerateTurnRequest request) {
+      Object choice = request.getContext().get("playerChoice");
+      choices.add(choice);
+      startedOne.countDown();
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        interrupted.add(choice);
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted");
+      }
+      finished.countDown();
+      return new GeneratedTurnResponse(
+          new GeneratedStoryResponse(), new GeneratedChoicesResponse());
+    }
+
+    @Override
+    public GeneratedStoryResponse generateStory(GenerateStoryRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public GeneratedChoicesResponse generateChoices(GenerateChoicesRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+
+    @Override
+    public String getProviderName() {
+      return "blocking";
+    }
+  }
+}
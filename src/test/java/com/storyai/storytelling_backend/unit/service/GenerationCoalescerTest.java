@@ -0,0 +1,132 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+import com.storyai.storytelling_backend.service.GenerationCoalescer;
+
+class GenerationCoalescerTest {
+
+  @Test
+  void concurrentCallersShareOneGeneration() throws Exception {
+    GenerationCoalescer coalescer = new GenerationCoalescer(30);
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(
+            pool.submit(
+                () ->
+                    coalescer.execute(
+                        "story:key",
+                        () -> {
+                          calls.incrementAndGet();
+                          await(release);
+                          return "chapter";
+                        })));
+      }
+
+      // Let every caller register before the leader finishes
+      while (calls.get() == 0) {
+        Thread.sleep(5);
+      }
+      Thread.sleep(100);
+      release.countDown();
+
+      for (Future<String> result : results) {
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("chapter");
+      }
+      assertThat(calls.get()).isEqualTo(1);
+      assertThat(coalescer.inFlightCount()).isZero();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void waitersSeeLeaderFailure() throws Exception {
+    GenerationCoalescer coalescer = new GenerationCoalescer(30);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    try {
+      Future<String> leader =
+          pool.submit(
+              () ->
+                  coalescer.execute(
+                      "story:key",
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        throw new IllegalStateException("provider down");
+                      }));
+      started.await();
+
+      Future<String> waiter = pool.submit(() -> coalescer.execute("story:key", () -> "unused"));
+      Thread.sleep(100);
+      release.countDown();
+
+      assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+          .hasCauseInstanceOf(IllegalStateException.class);
+      assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+          .hasCauseInstanceOf(IllegalStateException.class);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void waiterTimesOutWhileLeaderKeepsRunning() throws Exception {
+    GenerationCoalescer coalescer = new GenerationCoalescer(0);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+
+    try {
+      Future<String> leader =
+          pool.submit(
+              () ->
+                  coalescer.execute(
+                      "story:key",
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        return "chapter";
+                      }));
+      started.await();
+
+      assertThatThrownBy(() -> coalescer.execute("story:key", () -> "unused"))
+          .isInstanceOf(AIServiceUnavailableException.class);
+
+      release.countDown();
+      assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("chapter");
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import com.storyai.storytelling_backend.config.AIMockProperties;
+import com.storyai.storytelling_backend.service.AICompletion;
+import com.storyai.storytelling_backend.service.MockAIProvider;
+
+class MockAIProviderTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private AIMockProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new AIMockProperties();
+    properties.getLatency().setFixedMs(0);
+    properties.getLatency().setTokensPerSecond(0);
+  }
+
+  @Test
+  void textDependsOnlyOnSeedAndPrompt() {
+    MockAIProvider provider = newProvider();
+
+    String prose = provider.prose("prompt", "Fantasy", 120);
+
+    assertThat(prose).startsWith("The fantasy tale continues.");
+    assertThat(prose.split("\\s+").length).isBetween(120, 140);
+    assertThat(newProvider().prose("prompt", "Fantasy", 120)).isEqualTo(prose);
+    assertThat(provider.prose("other prompt", "Fantasy", 120)).isNotEqualTo(prose);
+
+    properties.setSeed(7);
+    assertThat(newProvider().prose("prompt", "Fantasy", 120)).isNotEqualTo(prose);
+  }
+
+  @Test
+  void choicesComeInTheProviderFormat() {
+    String choices = newProvider().choices("prompt", 3);
+
+    assertThat(choices.lines().filter(line -> line.startsWith("CHOICE: "))).hasSize(3);
+    assertThat(choices.lines().filter(line -> line.startsWith("CONSEQUENCE: "))).hasSize(3);
+    assertThat(choices.lines().filter(line -> line.startsWith("TONE: "))).hasSize(3);
+  }
+
+  @Test
+  void streamsTheTextAtTheTokenRateAfterTheFirstTokenDelay() {
+    properties.getLatency().setFixedMs(100);
+    // 20 tokens a second, about 80 characters
+    properties.getLatency().setTokensPerSecond(20);
+    MockAIProvider provider = newProvider();
+    String text = "x".repeat(19) + " " + "y".repeat(20);
+    StringBuilder received = new StringBuilder();
+
+    long start = System.nanoTime();
+    AICompletion completion = provider.complete("prompt", text, received::append);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertThat(received.toString()).isEqualTo(text);
+    assertThat(completion.getOutputTokens()).isEqualTo(10);
+    assertThat(elapsedMillis).isBetween(550L, 2000L);
+  }
+
+  @Test
+  void answersBurstsOf429WithRetryAfter() {
+    properties.getErrors().setBurstEverySeconds(10);
+    properties.getErrors().setBurstSeconds(3);
+    properties.getErrors().setRetryAfterSeconds(4);
+    MockAIProvider provider = newProvider();
+
+    provider.complete("prompt", "text", null);
+    now.set(TimeUnit.SECONDS.toNanos(8));
+
+    assertThatThrownBy(() -> provider.complete("prompt", "text", null))
+        .isInstanceOf(HttpClientErrorException.class)
+        .satisfies(
+            e -> {
+              HttpClientErrorException error = (HttpClientErrorException) e;
+              assertThat(error.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+              assertThat(error.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+                  .isEqualTo("4");
+            });
+
+    now.set(TimeUnit.SECONDS.toNanos(10));
+    provider.complete("prompt", "text", null);
+  }
+
+  @Test
+  void injectsServerErrors() {
+    properties.getErrors().setServerErrorRate(1.0);
+
+    assertThatThrownBy(() -> newProvider().complete("prompt", "text", null))
+        .isInstanceOf(HttpServerErrorException.class);
+  }
+
+  private MockAIProvider newProvider() {
+    return new MockAIProvider(properties, now::get);
+  }
+}
@@ -0,0 +1,177 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GenerateTurnRequest;
+import com.storyai.storytelling_backend.DTO.GeneratedChoicesResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedTurnResponse;
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.config.AIContextProperties;
+import com.storyai.storytelling_backend.config.AIMockProperties;
+import com.storyai.storytelling_backend.config.AIProviderConfig;
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.repository.AIGenerationRepository;
+import com.storyai.storytelling_backend.repository.StorySessionRepository;
+import com.storyai.storytelling_backend.service.AICacheKeyGenerator;
+import com.storyai.storytelling_backend.service.AICacheService;
+import com.storyai.storytelling_backend.service.AIConcurrencyLimiter;
+import com.storyai.storytelling_backend.service.AIGenerationLedger;
+import com.storyai.storytelling_backend.service.AIRateLimiter;
+import com.storyai.storytelling_backend.service.AIRetryPolicy;
+import com.storyai.storytelling_backend.service.AICompletion;
+import com.storyai.storytelling_backend.service.AIStreamingSupport;
+import com.storyai.storytelling_backend.service.CachedChoicesCodec;
+import com.storyai.storytelling_backend.service.GenerationCoalescer;
+import com.storyai.storytelling_backend.service.MockStoryGenerator;
+import com.storyai.storytelling_backend.service.StoryContextCompactor;
+import com.storyai.storytelling_backend.service.StoryTurnFormat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MockStoryGeneratorTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private AICacheService cacheService;
+  private StorySessionRepository sessionRepository;
+  private MockStoryGenerator generator;
+
+  @BeforeEach
+  void setUp() {
+    cacheService = mock(AICacheService.class);
+    sessionRepository = mock(StorySessionRepository.class);
+    when(cacheService.getCachedContent(anyString(), any())).thenReturn(Optional.empty());
+    when(cacheService.getCachedValue(anyString(), any())).thenReturn(Optional.empty());
+    generator = newGenerator(false);
+  }
+
+  /** A mock generator, optionally one whose turns come back without their choices */
+  private MockStoryGenerator newGenerator(boolean dropTurnChoices) {
+    AIMockProperties properties = new AIMockProperties();
+    properties.getLatency().setFixedMs(0);
+    properties.getLatency().setTokensPerSecond(0);
+    AIResilienceProperties resilience = new AIResilienceProperties();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    return new MockStoryGenerator(
+        properties,
+        cacheService,
+        new GenerationCoalescer(90),
+        new AICacheKeyGenerator(new AICacheProperties(), new AIProviderConfig()),
+        new CachedChoicesCodec(objectMapper),
+        new AIGenerationLedger(mock(AIGenerationRepository.class), registry, 100, 10),
+        new AIStreamingSupport(objectMapper, registry),
+        new AIConcurrencyLimiter(resilience, registry),
+        new AIRateLimiter(resilience, registry),
+        new AIRetryPolicy(resilience, registry),
+        new StoryContextCompactor(
+            new AIContextProperties(),
+            sessionRepository,
+            objectMapper,
+            mock(PlatformTransactionManager.class))) {
+      @Override
+      protected AICompletion call(String prompt, int tokens) {
+        AICompletion completion = super.call(prompt, tokens);
+        if (!dropTurnChoices || StoryTurnFormat.requestedChoices(prompt) == 0) {
+          return completion;
+        }
+        return new AICompletion(
+            StoryTurnFormat.split(completion.getContent()).chapter(),
+            completion.getInputTokens(),
+            completion.getOutputTokens());
+      }
+    };
+  }
+
+  @Test
+  void turnIsAnsweredWithTheChapterAndTheChoicesAskedFor() {
+    GenerateTurnRequest request = new GenerateTurnRequest();
+    request.setSessionId(1L);
+    request.setGenre("Fantasy");
+    request.setTargetLength(60);
+    request.setNumberOfChoices(4);
+
+    GeneratedTurnResponse turn = generator.generateTurn(request);
+
+    assertThat(turn.getStory().getContent()).startsWith("The fantasy tale continues.");
+    assertThat(turn.getChoices().getChoices())
+        .hasSize(4)
+        .allSatisfy(choice -> assertThat(choice.getEmotionalTone()).isNotBlank());
+    verify(cacheService)
+        .cacheContent(anyString(), eq(turn.getStory().getContent()), any(Duration.class));
+  }
+
+  @Test
+  void choicesCachedWithoutTheirStructuredFormAreUpgraded() {
+    String content = "CHOICE: Open the gate\nCONSEQUENCE: It creaks\nTONE: brave";
+    when(cacheService.getCachedValue(anyString(), any()))
+        .thenReturn(Optional.of(new AICacheService.CachedValue(content, null, null)));
+    GenerateChoicesRequest request = new GenerateChoicesRequest();
+    request.setCurrentSituation("A gate");
+    request.setNumberOfChoices(1);
+
+    GeneratedChoicesResponse response = generator.generateChoices(request);
+
+    assertThat(response.getCached()).isTrue();
+    assertThat(response.getChoices())
+        .singleElement()
+        .satisfies(choice -> assertThat(choice.getEmotionalTone()).isEqualTo("brave"));
+    ArgumentCaptor<String> structured = ArgumentCaptor.forClass(String.class);
+    verify(cacheService)
+        .upgradeStructured(
+            anyString(), eq(content), structured.capture(), eq(CachedChoicesCodec.SCHEMA_VERSION));
+    assertThat(structured.getValue()).contains("Open the gate");
+  }
+
+  @Test
+  void sessionSummaryIsFoldedOnlyWhenTheProviderIsCalled() {
+    GenerateStoryRequest request = new GenerateStoryRequest();
+    request.setSessionId(1L);
+    request.setGenre("Fantasy");
+    request.setContext(Map.of("choices", List.of("a", "b", "c", "d", "e", "f", "g")));
+    when(cacheService.getCachedContent(anyString(), any())).thenReturn(Optional.of("cached"));
+
+    assertThat(generator.generateStory(request).getContent()).isEqualTo("cached");
+    verifyNoInteractions(sessionRepository);
+
+    when(cacheService.getCachedContent(anyString(), any())).thenReturn(Optional.empty());
+    generator.generateStory(request);
+    verify(sessionRepository).findContextSummaryForUpdate(1L);
+  }
+
+  @Test
+  void turnWithoutChoicesAsksForThemSeparatelyAndCachesNoPlaceholders() {
+    generator = newGenerator(true);
+    GenerateTurnRequest request = new GenerateTurnRequest();
+    request.setSessionId(1L);
+    request.setGenre("Fantasy");
+    request.setNumberOfChoices(2);
+
+    GeneratedTurnResponse turn = generator.generateTurn(request);
+
+    assertThat(turn.getChoices().getChoices())
+        .hasSize(2)
+        .noneSatisfy(choice -> assertThat(choice.getChoiceText()).isEqualTo("Continue forward"));
+    verify(cacheService, never())
+        .cacheContent(anyString(), eq(""), anyString(), any(), any(Duration.class));
+  }
+}
@@ -0,0 +1,89 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.service.ProviderHealth;
+
+class ProviderHealthTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private AIResilienceProperties.Routing properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new AIResilienceProperties().getRouting();
+    properties.setWindowSize(20);
+    properties.setMinimumCalls(10);
+    properties.setOpenSeconds(30);
+  }
+
+  @Test
+  void errorRateOpensBreakerAndOneProbeClosesIt() {
+    ProviderHealth health = new ProviderHealth("claude", properties, now::get);
+    for (int i = 0; i < 10; i++) {
+      health.recordSuccess(TimeUnit.MILLISECONDS.toNanos(100));
+      health.recordFailure();
+    }
+    assertThat(health.getState()).isEqualTo(ProviderHealth.State.OPEN);
+    assertThat(health.tryAcquire()).isFalse();
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    assertThat(health.tryAcquire()).isTrue();
+    assertThat(health.getState()).isEqualTo(ProviderHealth.State.HALF_OPEN);
+    // Only one probe at a time
+    assertThat(health.tryAcquire()).isFalse();
+
+    health.recordSuccess(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(health.getState()).isEqualTo(ProviderHealth.State.CLOSED);
+    assertThat(health.errorRate()).isZero();
+  }
+
+  @Test
+  void failedProbeReopensBreaker() {
+    properties.setConsecutiveFailures(3);
+    ProviderHealth health = new ProviderHealth("claude", properties, now::get);
+    for (int i = 0; i < 3; i++) {
+      health.recordFailure();
+    }
+    now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    assertThat(health.tryAcquire()).isTrue();
+
+    health.recordFailure();
+
+    assertThat(health.getState()).isEqualTo(ProviderHealth.State.OPEN);
+    assertThat(health.isCallPermitted()).isFalse();
+  }
+
+  @Test
+  void scoreIsP95InflatedByErrors() {
+    ProviderHealth health = new ProviderHealth("openai", properties, now::get);
+    assertThat(health.score()).isZero();
+
+    for (int i = 1; i <= 20; i++) {
+      health.recordSuccess(TimeUnit.MILLISECONDS.toNanos(i * 100L));
+    }
+    assertThat(health.p95LatencyMillis()).isEqualTo(1900.0);
+    assertThat(health.score()).isEqualTo(1900.0);
+
+    health.recordFailure();
+    assertThat(health.score()).isGreaterThan(1900.0);
+  }
+
+  @Test
+  void providerWithOnlyFailuresScoresWorst() {
+    ProviderHealth failing = new ProviderHealth("openai", properties, now::get);
+    ProviderHealth slow = new ProviderHealth("claude", properties, now::get);
+    failing.recordFailure();
+    slow.recordSuccess(TimeUnit.SECONDS.toNanos(30));
+
+    assertThat(failing.getState()).isEqualTo(ProviderHealth.State.CLOSED);
+    assertThat(failing.score()).isGreaterThan(slow.score());
+  }
+}
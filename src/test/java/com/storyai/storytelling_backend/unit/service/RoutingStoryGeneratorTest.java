@@ -0,0 +1,184 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.DTO.GenerateChoicesRequest;
+import com.storyai.storytelling_backend.DTO.GenerateStoryRequest;
+import com.storyai.storytelling_backend.DTO.GeneratedChoicesResponse;
+import com.storyai.storytelling_backend.DTO.GeneratedStoryResponse;
+import com.storyai.storytelling_backend.config.AIResilienceProperties;
+import com.storyai.storytelling_backend.exception.AIServiceUnavailableException;
+import com.storyai.storytelling_backend.service.AIStoryGenerator;
+import com.storyai.storytelling_backend.service.ProviderHealth;
+import com.storyai.storytelling_backend.service.RoutingStoryGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RoutingStoryGeneratorTest {
+
+  private SimpleMeterRegistry registry;
+  private AIResilienceProperties properties;
+  private FakeGenerator openai;
+  private FakeGenerator claude;
+  private RoutingStoryGenerator router;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    properties = new AIResilienceProperties();
+    openai = new FakeGenerator("openai");
+    claude = new FakeGenerator("claude");
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (router != null) {
+      router.shutdown();
+    }
+  }
+
+  @Test
+  void failsOverWhenTheChosenProviderFails() {
+    openai.failing = true;
+    router = newRouter();
+
+    assertThat(router.generateStory(new GenerateStoryRequest()).getContent()).isEqualTo("claude");
+    assertThat(registry.get("ai.routing.failovers").counter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  void openCircuitSkipsTheProvider() {
+    properties.getRouting().setConsecutiveFailures(2);
+    openai.failing = true;
+    claude.available = false;
+    router = newRouter();
+
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> router.generateStory(new GenerateStoryRequest()))
+          .hasMessage("openai is down");
+    }
+    claude.available = true;
+    router.generateStory(new GenerateStoryRequest());
+
+    assertThat(openai.calls.get()).isEqualTo(2);
+    assertThat(router.getProviderHealth().get(0).getState()).isEqualTo(ProviderHealth.State.OPEN);
+  }
+
+  @Test
+  void failingProviderLosesFirstPickBeforeItsCircuitOpens() {
+    openai.failing = true;
+    router = newRouter();
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(router.generateStory(new GenerateStoryRequest()).getContent())
+          .isEqualTo("claude");
+    }
+
+    assertThat(openai.calls.get()).isEqualTo(1);
+    assertThat(router.getProviderHealth().get(0).getState())
+        .isEqualTo(ProviderHealth.State.CLOSED);
+    assertThat(registry.get("ai.routing.failovers").counter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  void prefersTheProviderWithLowerLatency() {
+    openai.delayMillis = 50;
+    router = newRouter();
+
+    // Each provider is tried once before either has a latency sample
+    router.generateStory(new GenerateStoryRequest());
+    router.generateStory(new GenerateStoryRequest());
+    for (int i = 0; i < 3; i++) {
+      assertThat(router.generateStory(new GenerateStoryRequest()).getContent())
+          .isEqualTo("claude");
+    }
+    assertThat(openai.calls.get()).isEqualTo(1);
+  }
+
+  @Test
+  void hedgesSlowCallsToTheNextProvider() {
+    properties.getRouting().setHedgeAfterMs(50);
+    openai.delayMillis = 2000;
+    router = newRouter();
+
+    long start = System.nanoTime();
+    GeneratedStoryResponse response = router.generateStory(new GenerateStoryRequest());
+
+    assertThat(response.getContent()).isEqualTo("claude");
+    assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1500);
+    assertThat(registry.get("ai.routing.hedges").counter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  void failsWhenNoProviderIsAvailable() {
+    openai.available = false;
+    claude.available = false;
+    router = newRouter();
+
+    assertThat(router.isAvailable()).isFalse();
+    assertThatThrownBy(() -> router.generateStory(new GenerateStoryRequest()))
+        .isInstanceOf(AIServiceUnavailableException.class);
+  }
+
+  private RoutingStoryGenerator newRouter() {
+    Map<String, AIStoryGenerator> providers = new LinkedHashMap<>();
+    providers.put("openai", openai);
+    providers.put("claude", claude);
+    return new RoutingStoryGenerator(providers, properties, registry);
+  }
+
+  private static class FakeGenerator implements AIStoryGenerator {
+    private final String name;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile boolean failing;
+    private volatile boolean available = true;
+    private volatile long delayMillis;
+
+    FakeGenerator(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public GeneratedStoryResponse generateStory(GenerateStoryRequest request) {
+      calls.incrementAndGet();
+      if (delayMillis > 0) {
+        try {
+          Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (failing) {
+        throw new RuntimeException(name + " is down");
+      }
+      GeneratedStoryResponse response = new GeneratedStoryResponse();
+      response.setContent(name);
+      response.setCached(false);
+      return response;
+    }
+
+    @Override
+    public GeneratedChoicesResponse generateChoices(GenerateChoicesRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isAvailable() {
+      return available;
+    }
+
+    @Override
+    public String getProviderName() {
+      return name;
+    }
+  }
+}
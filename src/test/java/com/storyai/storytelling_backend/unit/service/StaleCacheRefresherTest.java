@@ -0,0 +1,87 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.config.AICacheProperties;
+import com.storyai.storytelling_backend.service.StaleCacheRefresher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StaleCacheRefresherTest {
+
+  private SimpleMeterRegistry registry;
+  private StaleCacheRefresher refresher;
+
+  @BeforeEach
+  void setUp() {
+    AICacheProperties properties = new AICacheProperties();
+    properties.getStale().setRefreshConcurrency(1);
+    properties.getStale().setRefreshQueueSize(1);
+    registry = new SimpleMeterRegistry();
+    refresher = new StaleCacheRefresher(properties, registry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    refresher.shutdown();
+  }
+
+  @Test
+  void refreshesEachKeyOnceWhileItIsPending() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger runs = new AtomicInteger();
+    Runnable slowRefresh =
+        () -> {
+          runs.incrementAndGet();
+          awaitQuietly(release);
+        };
+
+    refresher.refresh("story:a", slowRefresh);
+    refresher.refresh("story:a", slowRefresh);
+    refresher.refresh("story:a", slowRefresh);
+    assertThat(refresher.pendingCount()).isEqualTo(1);
+
+    release.countDown();
+    awaitIdle();
+    assertThat(runs).hasValue(1);
+  }
+
+  @Test
+  void dropsRefreshesBeyondTheQueue() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Runnable slowRefresh = () -> awaitQuietly(release);
+
+    refresher.refresh("story:running", slowRefresh);
+    refresher.refresh("story:queued", slowRefresh);
+    refresher.refresh("story:dropped", slowRefresh);
+
+    assertThat(registry.get("ai.cache.refresh").tag("result", "rejected").counter().count())
+        .isEqualTo(1);
+    release.countDown();
+    awaitIdle();
+  }
+
+  private void awaitIdle() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (refresher.pendingCount() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(refresher.pendingCount()).isZero();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
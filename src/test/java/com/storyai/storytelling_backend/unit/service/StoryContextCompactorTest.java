@@ -0,0 +1,142 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storyai.storytelling_backend.config.AIContextProperties;
+import com.storyai.storytelling_backend.repository.StorySessionRepository;
+import com.storyai.storytelling_backend.service.StoryContextCompactor;
+
+class StoryContextCompactorTest {
+
+  private final AtomicReference<String> stored = new AtomicReference<>();
+  private AIContextProperties properties;
+  private StorySessionRepository repository;
+  private PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    properties = new AIContextProperties();
+    properties.setRecentItems(2);
+    repository = mock(StorySessionRepository.class);
+    transactionManager = mock(PlatformTransactionManager.class);
+    when(repository.findContextSummaryForUpdate(anyLong()))
+        .thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+    when(repository.updateContextSummary(anyLong(), anyString()))
+        .thenAnswer(
+            invocation -> {
+              stored.set(invocation.getArgument(1));
+              return 1;
+            });
+  }
+
+  @Test
+  void foldsOlderItemsIntoTheSummaryOnce() {
+    StoryContextCompactor compactor = newCompactor();
+    List<String> choices = new ArrayList<>(List.of("open door", "take key", "run"));
+
+    Map<String, Object> first = compactor.compact(1L, context(choices));
+
+    assertThat(first.get(StoryContextCompactor.SUMMARY_KEY)).isEqualTo("choices: open door");
+    assertThat(first.get("choices")).isEqualTo(List.of("take key", "run"));
+    assertThat(first.get("character")).isEqualTo("Ada");
+
+    choices.add("hide");
+    Map<String, Object> second = compactor.compact(1L, context(choices));
+
+    assertThat(second.get(StoryContextCompactor.SUMMARY_KEY))
+        .isEqualTo("choices: open door; choices: take key");
+    assertThat(second.get("choices")).isEqualTo(List.of("run", "hide"));
+
+    // Nothing new to fold: the stored summary is reused as it is
+    compactor.compact(1L, context(choices));
+    verify(repository, times(2)).updateContextSummary(anyLong(), anyString());
+  }
+
+  @Test
+  void summaryDropsItsOldestLinesBeyondTheLimit() {
+    properties.setMaxSummaryChars(40);
+    StoryContextCompactor compactor = newCompactor();
+    List<String> events = new ArrayList<>();
+    for (int i = 1; i <= 20; i++) {
+      events.add("event " + i);
+    }
+
+    Map<String, Object> compacted = compactor.compact(1L, Map.of("events", events));
+
+    String summary = (String) compacted.get(StoryContextCompactor.SUMMARY_KEY);
+    assertThat(summary.length()).isLessThanOrEqualTo(40);
+    assertThat(summary).endsWith("events: event 18").doesNotContain("event 1;");
+  }
+
+  @Test
+  void summaryIsFoldedUnderTheSessionRowLockInATransactionOfItsOwn() {
+    newCompactor().compact(1L, context(List.of("open door", "take key", "run")));
+
+    ArgumentCaptor<TransactionDefinition> definition =
+        ArgumentCaptor.forClass(TransactionDefinition.class);
+    verify(transactionManager).getTransaction(definition.capture());
+    assertThat(definition.getValue().getPropagationBehavior())
+        .isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    verify(repository).findContextSummaryForUpdate(1L);
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  void failedSummaryUpdateStillCompactsThePrompt() {
+    doThrow(new QueryTimeoutException("lock timeout"))
+        .when(repository)
+        .findContextSummaryForUpdate(anyLong());
+
+    Map<String, Object> compacted =
+        newCompactor().compact(1L, context(List.of("open door", "take key", "run")));
+
+    assertThat(compacted.get(StoryContextCompactor.SUMMARY_KEY)).isEqualTo("choices: open door");
+    assertThat(compacted.get("choices")).isEqualTo(List.of("take key", "run"));
+    verify(transactionManager).rollback(any());
+  }
+
+  @Test
+  void shortContextIsLeftAlone() {
+    StoryContextCompactor compactor = newCompactor();
+    Map<String, Object> context = context(List.of("open door"));
+
+    assertThat(compactor.compact(1L, context)).isEqualTo(context);
+    verify(repository, never()).findContextSummaryForUpdate(anyLong());
+  }
+
+  private StoryContextCompactor newCompactor() {
+    return new StoryContextCompactor(
+        properties, repository, new ObjectMapper(), transactionManager);
+  }
+
+  private static Map<String, Object> context(List<String> choices) {
+    Map<String, Object> context = new LinkedHashMap<>();
+    context.put("character", "Ada");
+    context.put("choices", List.copyOf(choices));
+    return context;
+  }
+}
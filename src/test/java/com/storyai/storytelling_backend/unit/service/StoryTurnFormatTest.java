@@ -0,0 +1,50 @@
+package com.storyai.storytelling_backend.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.storyai.storytelling_backend.service.StoryTurnFormat;
+
+class StoryTurnFormatTest {
+
+  @Test
+  void promptAsksForChoicesAfterTheChapterAndKeepsTheCueLast() {
+    String prompt =
+        StoryTurnFormat.prompt("Genre: fantasy\n\nBegin the chapter:", 4, "hard");
+
+    assertThat(prompt)
+        .startsWith("Genre: fantasy")
+        .contains("only " + StoryTurnFormat.CHOICES_MARKER)
+        .contains(" 4 distinct")
+        .contains("Difficulty level: hard")
+        .contains("CHOICE: ")
+        .endsWith("\nBegin the chapter:");
+    assertThat(prompt.indexOf("Begin the chapter:")).isEqualTo(prompt.lastIndexOf("Begin"));
+  }
+
+  @Test
+  void promptSaysHowManyChoicesItAsksFor() {
+    assertThat(StoryTurnFormat.requestedChoices(StoryTurnFormat.prompt("Genre: x", 5, null)))
+        .isEqualTo(5);
+    assertThat(StoryTurnFormat.requestedChoices("Genre: x\n\nBegin the chapter:")).isZero();
+  }
+
+  @Test
+  void splitsChapterFromChoices() {
+    StoryTurnFormat.Turn turn =
+        StoryTurnFormat.split(
+            "The door creaks open.\n\n---CHOICES---\nCHOICE: Enter\nCONSEQUENCE: Darkness\n");
+
+    assertThat(turn.chapter()).isEqualTo("The door creaks open.");
+    assertThat(turn.choices()).isEqualTo("CHOICE: Enter\nCONSEQUENCE: Darkness");
+  }
+
+  @Test
+  void outputWithoutTheMarkerIsAllChapter() {
+    StoryTurnFormat.Turn turn = StoryTurnFormat.split(" The door creaks open. ");
+
+    assertThat(turn.chapter()).isEqualTo("The door creaks open.");
+    assertThat(turn.choices()).isEmpty();
+  }
+}